@@ -0,0 +1,134 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Item with a stable id and a version of its contents, which is used by all benchmarks.
+ */
+final class BenchmarkItem {
+
+    static final KeyExtractor<BenchmarkItem> KEY_EXTRACTOR = new KeyExtractor<BenchmarkItem>() {
+        @Override
+        public long getKey(BenchmarkItem item) {
+            return item.id;
+        }
+    };
+
+    static final DiffUtilDiffEngine.CallbackFactory<BenchmarkItem> CALLBACK_FACTORY
+            = new DiffUtilDiffEngine.CallbackFactory<BenchmarkItem>() {
+        @Override
+        public DiffUtil.Callback createCallback(final List<BenchmarkItem> oldItems, final List<BenchmarkItem> newItems) {
+            return new DiffUtil.Callback() {
+                @Override
+                public int getOldListSize() {
+                    return oldItems.size();
+                }
+
+                @Override
+                public int getNewListSize() {
+                    return newItems.size();
+                }
+
+                @Override
+                public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                    return oldItems.get(oldItemPosition).id == newItems.get(newItemPosition).id;
+                }
+
+                @Override
+                public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                    return oldItems.get(oldItemPosition).equals(newItems.get(newItemPosition));
+                }
+            };
+        }
+    };
+
+    final long id;
+
+    final int version;
+
+    BenchmarkItem(long id, int version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    static List<BenchmarkItem> createItems(int count) {
+        List<BenchmarkItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new BenchmarkItem(i, 0));
+        }
+        return items;
+    }
+
+    /**
+     * @return copy of {@param items} in which {@param percent} of items were removed, inserted, changed and moved, e.g. as after a
+     * refresh from the server.
+     */
+    static List<BenchmarkItem> mutate(List<BenchmarkItem> items, double percent, Random random) {
+        List<BenchmarkItem> newItems = new ArrayList<>(items);
+        int changeCount = Math.max(1, (int) (items.size() * percent / 100));
+        long nextId = items.size();
+
+        for (int i = 0; i < changeCount; i++) {
+            newItems.remove(random.nextInt(newItems.size()));
+            newItems.add(random.nextInt(newItems.size() + 1), new BenchmarkItem(nextId++, 0));
+
+            int changed = random.nextInt(newItems.size());
+            newItems.set(changed, new BenchmarkItem(newItems.get(changed).id, newItems.get(changed).version + 1));
+
+            Collections.swap(newItems, random.nextInt(newItems.size()), random.nextInt(newItems.size()));
+        }
+        return newItems;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        BenchmarkItem that = (BenchmarkItem) o;
+        return id == that.id && version == that.version;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (int) (id ^ (id >>> 32)) + version;
+    }
+
+    /**
+     * Counts dispatched operations, so they can't be optimized away.
+     */
+    static final class CountingCallback implements ListUpdateCallback {
+
+        int count;
+
+        @Override
+        public void onInserted(int position, int count) {
+            this.count += count;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            this.count += count;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            count++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            this.count += count;
+        }
+    }
+}
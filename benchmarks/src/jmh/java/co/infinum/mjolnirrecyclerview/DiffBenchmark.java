@@ -0,0 +1,82 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diff engines on the same pairs of old and new items. Each diff is also dispatched, because engines differ in how much work they
+ * defer until their results are dispatched.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DiffBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int itemCount;
+
+    /**
+     * Percent of items which are removed, inserted, changed and moved.
+     */
+    @Param({"0.1", "1", "10"})
+    double changePercent;
+
+    @Param({"diffUtil", "keyed", "parallel"})
+    String engine;
+
+    private List<BenchmarkItem> oldItems;
+
+    private List<BenchmarkItem> newItems;
+
+    private MjolnirDiffEngine<BenchmarkItem> diffEngine;
+
+    private MjolnirDiffScheduler scheduler;
+
+    @Setup
+    public void setUp() {
+        oldItems = BenchmarkItem.createItems(itemCount);
+        newItems = BenchmarkItem.mutate(oldItems, changePercent, new Random(42));
+
+        switch (engine) {
+            case "diffUtil":
+                diffEngine = new DiffUtilDiffEngine<>(BenchmarkItem.CALLBACK_FACTORY);
+                break;
+            case "keyed":
+                diffEngine = new KeyedDiffEngine<>(BenchmarkItem.KEY_EXTRACTOR);
+                break;
+            case "parallel":
+                scheduler = MjolnirDiffScheduler.getInstance().acquire();
+                diffEngine = new ParallelDiffEngine<>(new KeyedDiffEngine<>(BenchmarkItem.KEY_EXTRACTOR), scheduler,
+                        scheduler.getMaxWorkerCount() + 1, ParallelDiffEngine.DEFAULT_MIN_CHUNK_SIZE);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown engine " + engine);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.release();
+            scheduler = null;
+        }
+    }
+
+    @Benchmark
+    public int calculateAndDispatch() {
+        BenchmarkItem.CountingCallback callback = new BenchmarkItem.CountingCallback();
+        diffEngine.calculateDiff(oldItems, newItems).dispatchUpdatesTo(callback);
+        return callback.count;
+    }
+}
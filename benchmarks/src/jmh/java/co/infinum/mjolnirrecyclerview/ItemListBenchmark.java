@@ -0,0 +1,172 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ArrayAdapter like methods of the adapter, which modify its {@link PersistentItemList} and dispatch notifications through
+ * {@link AdapterPositionMap}.
+ * <p>
+ * Single item operations take only nanoseconds, so each invocation runs them at many positions and undoes them, instead of restoring
+ * the list in a per-invocation setup, whose timing overhead would be larger than the measured operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ItemListBenchmark {
+
+    private static final int OPERATIONS_PER_INVOCATION = 1024;
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "10000", "100000"})
+    int itemCount;
+
+    private PersistentItemList<BenchmarkItem> items;
+
+    private AdapterPositionMap positionMap;
+
+    private List<BenchmarkItem> page;
+
+    private int[] positions;
+
+    @Setup
+    public void setUp() {
+        items = new PersistentItemList<>(BenchmarkItem.createItems(itemCount));
+        positionMap = new AdapterPositionMap(new BenchmarkItem.CountingCallback());
+        positionMap.addHeader(0, 0);
+
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(new BenchmarkItem(itemCount + i, 0));
+        }
+
+        // positions are strided through the whole list, so tree lookups don't hit the same path all the time
+        positions = new int[OPERATIONS_PER_INVOCATION];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = (int) ((long) i * 7919 % itemCount);
+        }
+    }
+
+    /**
+     * Each operation inserts an item and removes it again, so the list keeps its size.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public int addAndRemove() {
+        BenchmarkItem item = page.get(0);
+        int sum = 0;
+        for (int position : positions) {
+            items.add(position, item);
+            positionMap.onInserted(position, 1);
+            sum += items.remove(position).version;
+            positionMap.onRemoved(position, 1);
+        }
+        return sum;
+    }
+
+    /**
+     * Each operation appends a page and removes it again, so the list keeps its size.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public int addAllAndRemove() {
+        int start = items.size();
+        int sum = 0;
+        for (int i = 0; i < OPERATIONS_PER_INVOCATION; i++) {
+            items.addAll(page);
+            positionMap.onInserted(start, PAGE_SIZE);
+            for (int j = PAGE_SIZE - 1; j >= 0; j--) {
+                sum += items.remove(start + j).version;
+            }
+            positionMap.onRemoved(start, PAGE_SIZE);
+        }
+        return sum;
+    }
+
+    /**
+     * Each operation sets an item and sets the original item back, so the list doesn't change.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public int set() {
+        BenchmarkItem item = page.get(0);
+        int sum = 0;
+        for (int position : positions) {
+            BenchmarkItem original = items.set(position, item);
+            sum += items.set(position, original).version;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_INVOCATION)
+    public int get() {
+        int sum = 0;
+        for (int position : positions) {
+            sum += items.get(position).version;
+        }
+        return sum;
+    }
+
+    /**
+     * Removal of scattered items takes at least linear time, so restoring the full list before each invocation is negligible.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean removeAll(RemoveAllState state) {
+        return state.items.removeAll(state.scatteredItems, state.positionMap);
+    }
+
+    @State(Scope.Thread)
+    public static class RemoveAllState {
+
+        @Param({"1000", "10000", "100000"})
+        int itemCount;
+
+        private List<BenchmarkItem> initialItems;
+
+        private PersistentItemList<BenchmarkItem> items;
+
+        private AdapterPositionMap positionMap;
+
+        private Set<BenchmarkItem> scatteredItems;
+
+        @Setup
+        public void setUp() {
+            initialItems = BenchmarkItem.createItems(itemCount);
+            items = new PersistentItemList<>(initialItems);
+            positionMap = new AdapterPositionMap(new BenchmarkItem.CountingCallback());
+            positionMap.addHeader(0, 0);
+
+            // every 10th item, so removed ranges are scattered through the whole list
+            Random random = new Random(42);
+            scatteredItems = new HashSet<>();
+            for (int i = random.nextInt(10); i < itemCount; i += 10) {
+                scatteredItems.add(initialItems.get(i));
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void restoreItems() {
+            if (items.size() != itemCount) {
+                items.setAll(initialItems);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of adapter positions to items and decorations, which is done by getItemViewType() and onBindViewHolder() for every bound
+ * position, and by every notification of item changes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PositionMapBenchmark {
+
+    private static final int POSITIONS_PER_INVOCATION = 1024;
+
+    // same view types as in MjolnirRecyclerAdapter, which can't be loaded on the JVM
+
+    private static final int TYPE_HEADER = 111;
+
+    private static final int TYPE_FOOTER = 222;
+
+    private static final int TYPE_ITEM = 333;
+
+    private static final int TYPE_DECORATION_BASE = 1000000;
+
+    @Param({"1000", "10000", "100000"})
+    int itemCount;
+
+    /**
+     * Number of items between sections.
+     */
+    @Param({"0", "10", "100"})
+    int sectionSpacing;
+
+    private AdapterPositionMap positionMap;
+
+    private int[] positions;
+
+    @Setup
+    public void setUp() {
+        positionMap = new AdapterPositionMap(new BenchmarkItem.CountingCallback());
+        positionMap.addHeader(0, TYPE_HEADER);
+        positionMap.addFooter(0, TYPE_FOOTER, itemCount);
+        if (sectionSpacing > 0) {
+            for (int anchor = 0, type = TYPE_DECORATION_BASE; anchor < itemCount; anchor += sectionSpacing) {
+                positionMap.addSection(anchor, type++);
+            }
+        }
+
+        // positions are strided through the whole adapter, so binary searches don't hit the same path all the time
+        int totalCount = positionMap.getTotalCount(itemCount);
+        positions = new int[POSITIONS_PER_INVOCATION];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = (int) ((long) i * 7919 % totalCount);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS_PER_INVOCATION)
+    public int resolve() {
+        int sum = 0;
+        for (int position : positions) {
+            sum += positionMap.resolve(position, itemCount);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS_PER_INVOCATION)
+    public int getItemViewType() {
+        int sum = 0;
+        for (int position : positions) {
+            int resolved = positionMap.resolve(position, itemCount);
+            sum += resolved >= 0 ? TYPE_ITEM : positionMap.getDecorationType(-1 - resolved);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void insertAndRemoveInMiddle() {
+        positionMap.onInserted(itemCount / 2, 1);
+        positionMap.onRemoved(itemCount / 2, 1);
+    }
+}
@@ -0,0 +1,128 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the update queue, when updates arrive in bursts faster than they can be diffed, e.g. from a chatty socket. Diff and
+ * main thread executors are queues, which are drained on the benchmark thread, so the result doesn't depend on thread scheduling.
+ * Score is the time to submit a whole burst and dispatch its latest update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UpdatePipelineBenchmark {
+
+    @Param({"1000", "10000"})
+    int itemCount;
+
+    @Param({"1", "8", "64"})
+    int burstSize;
+
+    private final ArrayDeque<Runnable> diffQueue = new ArrayDeque<>();
+
+    private final ArrayDeque<Runnable> mainQueue = new ArrayDeque<>();
+
+    private final BenchmarkItem.CountingCallback callback = new BenchmarkItem.CountingCallback();
+
+    private final KeyedDiffEngine<BenchmarkItem> diffEngine = new KeyedDiffEngine<>(BenchmarkItem.KEY_EXTRACTOR);
+
+    private PersistentItemList<BenchmarkItem> items;
+
+    private UpdatePipeline<BenchmarkItem> pipeline;
+
+    private List<List<BenchmarkItem>> burst;
+
+    @Setup
+    public void setUp() {
+        List<BenchmarkItem> initialItems = BenchmarkItem.createItems(itemCount);
+        items = new PersistentItemList<>(initialItems);
+
+        Random random = new Random(42);
+        burst = new ArrayList<>(burstSize);
+        for (int i = 0; i < burstSize; i++) {
+            burst.add(BenchmarkItem.mutate(initialItems, 1, random));
+        }
+
+        pipeline = new UpdatePipeline<>(new UpdatePipeline.Target<BenchmarkItem>() {
+            @Override
+            public List<BenchmarkItem> getItemsSnapshot() {
+                return items.snapshot();
+            }
+
+            @Override
+            public long getItemsVersion() {
+                return items.getVersion();
+            }
+
+            @Override
+            public Executor getDiffExecutor() {
+                return new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        diffQueue.add(command);
+                    }
+                };
+            }
+
+            @Override
+            public MjolnirMetrics getMetrics() {
+                return null;
+            }
+
+            @Override
+            public void applyUpdate(List<BenchmarkItem> newItems, MjolnirDiffResult result) {
+                items.setAll(newItems);
+                result.dispatchUpdatesTo(callback);
+            }
+
+            @Override
+            public void replaceItems(List<BenchmarkItem> newItems) {
+                items.setAll(newItems);
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mainQueue.add(command);
+            }
+        });
+    }
+
+    @Benchmark
+    public int submitBurst() {
+        for (int i = 0; i < burst.size(); i++) {
+            pipeline.submit(burst.get(i), diffEngine);
+
+            // diff threads pick up the first update while the rest of the burst is still arriving
+            if (i == 0) {
+                drain(diffQueue);
+            }
+        }
+
+        while (!diffQueue.isEmpty() || !mainQueue.isEmpty()) {
+            drain(mainQueue);
+            drain(diffQueue);
+        }
+        return callback.count + pipeline.getSkippedCount();
+    }
+
+    private static void drain(ArrayDeque<Runnable> queue) {
+        Runnable runnable;
+        while ((runnable = queue.poll()) != null) {
+            runnable.run();
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.Arrays;
+
+/**
+ * Maps adapter positions to item positions and back, when items are mixed with headers, sections and footers.
+ * <p>
+ * Adapter contains headers, followed by items and sections, followed by footers. Each section is anchored in front of an item (or at
+ * the end of items) and keeps its anchor as items are inserted, removed and moved, the same way as a view in front of that item would.
+ * Sections are sorted by their anchors, and position of every section among items and sections is precomputed in a prefix-sum table,
+ * so mapping a position is a binary search in O(log s), which doesn't allocate.
+ * <p>
+ * Item update operations, which are received through {@link ListUpdateCallback}, move section anchors and are dispatched to the target
+ * callback in adapter positions. Ranges which are split by sections are dispatched as multiple ranges.
+ */
+final class AdapterPositionMap implements ListUpdateCallback {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final ListUpdateCallback adapterCallback;
+
+    private int[] headerTypes = new int[INITIAL_CAPACITY];
+
+    private int headerCount;
+
+    private int[] footerTypes = new int[INITIAL_CAPACITY];
+
+    private int footerCount;
+
+    /**
+     * Item positions in front of which sections are displayed, sorted in ascending order.
+     */
+    private int[] anchors = new int[INITIAL_CAPACITY];
+
+    private int[] sectionTypes = new int[INITIAL_CAPACITY];
+
+    /**
+     * Position of each section among items and sections, which equals its anchor plus the number of sections in front of it.
+     */
+    private int[] sectionPositions = new int[INITIAL_CAPACITY];
+
+    private int sectionCount;
+
+    /**
+     * Reusable buffer of (adapter position, count) pairs, which are dispatched when a range is split by sections.
+     */
+    private int[] ranges = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * @param adapterCallback callback which receives update operations in adapter positions.
+     */
+    AdapterPositionMap(ListUpdateCallback adapterCallback) {
+        this.adapterCallback = adapterCallback;
+    }
+
+    int getHeaderCount() {
+        return headerCount;
+    }
+
+    int getFooterCount() {
+        return footerCount;
+    }
+
+    int getSectionCount() {
+        return sectionCount;
+    }
+
+    /**
+     * @return number of adapter positions, when adapter contains {@param itemCount} items.
+     */
+    int getTotalCount(int itemCount) {
+        return headerCount + itemCount + sectionCount + footerCount;
+    }
+
+    /**
+     * Maps {@param adapterPosition} to an item position or a decoration. Decorations are indexed in adapter order: headers first, then
+     * sections, then footers.
+     *
+     * @return item position if there is an item at {@param adapterPosition}, otherwise -1 - decoration index.
+     */
+    int resolve(int adapterPosition, int itemCount) {
+        if (adapterPosition < headerCount) {
+            return -1 - adapterPosition;
+        }
+
+        int position = adapterPosition - headerCount;
+        if (position >= itemCount + sectionCount) {
+            return -1 - (adapterPosition - itemCount);
+        }
+
+        int section = Arrays.binarySearch(sectionPositions, 0, sectionCount, position);
+        if (section >= 0) {
+            return -1 - (headerCount + section);
+        }
+        // number of sections in front of the item is the insertion point
+        return position + section + 1;
+    }
+
+    /**
+     * @return view type of decoration with {@param index}, as returned by {@link #resolve(int, int)}.
+     */
+    int getDecorationType(int index) {
+        if (index < headerCount) {
+            return headerTypes[index];
+        } else if (index < headerCount + sectionCount) {
+            return sectionTypes[index - headerCount];
+        } else {
+            return footerTypes[index - headerCount - sectionCount];
+        }
+    }
+
+    /**
+     * @return adapter position of the item at {@param itemPosition}.
+     */
+    int toAdapterPosition(int itemPosition) {
+        return headerCount + itemPosition + countAnchorsUpTo(itemPosition);
+    }
+
+    /**
+     * @return adapter position at which items are inserted when they are inserted at {@param itemPosition}. Inserted items are placed
+     * in front of sections which are anchored at {@param itemPosition}, so sections stay in front of the item they were anchored to.
+     */
+    private int toInsertPosition(int itemPosition) {
+        return headerCount + itemPosition + countAnchorsBefore(itemPosition);
+    }
+
+    // region Decorations
+
+    /**
+     * Adds header with {@param type} at {@param index} among headers.
+     *
+     * @return adapter position of the header.
+     */
+    int addHeader(int index, int type) {
+        headerTypes = insert(headerTypes, headerCount++, index, type);
+        return index;
+    }
+
+    /**
+     * @return adapter position of the removed header, or -1 if there is no header with {@param type}.
+     */
+    int removeHeader(int type) {
+        int index = indexOf(headerTypes, headerCount, type);
+        if (index >= 0) {
+            remove(headerTypes, headerCount--, index);
+        }
+        return index;
+    }
+
+    /**
+     * Adds footer with {@param type} at {@param index} among footers.
+     *
+     * @return adapter position of the footer.
+     */
+    int addFooter(int index, int type, int itemCount) {
+        footerTypes = insert(footerTypes, footerCount++, index, type);
+        return headerCount + itemCount + sectionCount + index;
+    }
+
+    /**
+     * @return adapter position of the removed footer, or -1 if there is no footer with {@param type}.
+     */
+    int removeFooter(int type, int itemCount) {
+        int index = indexOf(footerTypes, footerCount, type);
+        if (index < 0) {
+            return -1;
+        }
+        remove(footerTypes, footerCount--, index);
+        return headerCount + itemCount + sectionCount + index;
+    }
+
+    /**
+     * Adds section with {@param type} in front of the item at {@param anchor}, after sections which are already anchored there.
+     *
+     * @return adapter position of the section.
+     */
+    int addSection(int anchor, int type) {
+        int index = countAnchorsUpTo(anchor);
+        anchors = insert(anchors, sectionCount, index, anchor);
+        sectionTypes = insert(sectionTypes, sectionCount, index, type);
+        sectionCount++;
+        updateSectionPositions(index);
+        return headerCount + anchor + index;
+    }
+
+    /**
+     * @return adapter position of the removed section, or -1 if there is no section with {@param type}.
+     */
+    int removeSection(int type) {
+        int index = indexOf(sectionTypes, sectionCount, type);
+        if (index < 0) {
+            return -1;
+        }
+
+        int adapterPosition = headerCount + sectionPositions[index];
+        remove(anchors, sectionCount, index);
+        remove(sectionTypes, sectionCount, index);
+        sectionCount--;
+        updateSectionPositions(index);
+        return adapterPosition;
+    }
+
+    /**
+     * Moves sections which are anchored after the last item in front of the end of items, after all items were replaced.
+     */
+    void onItemsReplaced(int itemCount) {
+        for (int i = sectionCount - 1; i >= 0 && anchors[i] > itemCount; i--) {
+            anchors[i] = itemCount;
+        }
+        updateSectionPositions(0);
+    }
+
+    // endregion
+
+    // region ListUpdateCallback
+
+    @Override
+    public void onInserted(int position, int count) {
+        int adapterPosition = toInsertPosition(position);
+        shiftAnchorsAfterInsert(position, count);
+        adapterCallback.onInserted(adapterPosition, count);
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        int rangeCount = splitRange(position, count);
+        shiftAnchorsAfterRemove(position, count);
+
+        // later ranges are removed first, so adapter positions of earlier ranges don't change
+        for (int i = rangeCount - 1; i >= 0; i--) {
+            adapterCallback.onRemoved(ranges[i * 2], ranges[i * 2 + 1]);
+        }
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        int fromAdapterPosition = toAdapterPosition(fromPosition);
+        shiftAnchorsAfterRemove(fromPosition, 1);
+        int toAdapterPosition = toInsertPosition(toPosition);
+        shiftAnchorsAfterInsert(toPosition, 1);
+        adapterCallback.onMoved(fromAdapterPosition, toAdapterPosition);
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+        int rangeCount = splitRange(position, count);
+        for (int i = 0; i < rangeCount; i++) {
+            adapterCallback.onChanged(ranges[i * 2], ranges[i * 2 + 1], payload);
+        }
+    }
+
+    // endregion
+
+    /**
+     * Splits items from {@param position} to {@param position} + {@param count} into ranges which are contiguous in adapter positions
+     * and stores them in {@link #ranges}.
+     *
+     * @return number of ranges.
+     */
+    private int splitRange(int position, int count) {
+        int end = position + count;
+        int rangeCount = 0;
+        int start = position;
+
+        // sections anchored strictly inside the range separate its items
+        for (int i = countAnchorsUpTo(position); i < sectionCount && anchors[i] < end; i++) {
+            if (anchors[i] > start) {
+                rangeCount = addRange(rangeCount, start, anchors[i] - start);
+                start = anchors[i];
+            }
+        }
+        return addRange(rangeCount, start, end - start);
+    }
+
+    private int addRange(int rangeCount, int start, int count) {
+        if ((rangeCount + 1) * 2 > ranges.length) {
+            ranges = Arrays.copyOf(ranges, ranges.length * 2);
+        }
+        ranges[rangeCount * 2] = toAdapterPosition(start);
+        ranges[rangeCount * 2 + 1] = count;
+        return rangeCount + 1;
+    }
+
+    private void shiftAnchorsAfterInsert(int position, int count) {
+        int first = countAnchorsBefore(position);
+        for (int i = first; i < sectionCount; i++) {
+            anchors[i] += count;
+        }
+        updateSectionPositions(first);
+    }
+
+    /**
+     * Sections which were anchored to removed items are anchored to the first item after them.
+     */
+    private void shiftAnchorsAfterRemove(int position, int count) {
+        int first = countAnchorsUpTo(position);
+        for (int i = first; i < sectionCount; i++) {
+            anchors[i] = Math.max(position, anchors[i] - count);
+        }
+        updateSectionPositions(first);
+    }
+
+    private void updateSectionPositions(int from) {
+        if (sectionPositions.length < anchors.length) {
+            sectionPositions = Arrays.copyOf(sectionPositions, anchors.length);
+        }
+        for (int i = from; i < sectionCount; i++) {
+            sectionPositions[i] = anchors[i] + i;
+        }
+    }
+
+    /**
+     * @return number of sections with anchor lower than {@param itemPosition}.
+     */
+    private int countAnchorsBefore(int itemPosition) {
+        int low = 0;
+        int high = sectionCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (anchors[middle] < itemPosition) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return number of sections with anchor lower than or equal to {@param itemPosition}.
+     */
+    private int countAnchorsUpTo(int itemPosition) {
+        return itemPosition == Integer.MAX_VALUE ? sectionCount : countAnchorsBefore(itemPosition + 1);
+    }
+
+    private static int indexOf(int[] values, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] insert(int[] values, int size, int index, int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        return values;
+    }
+
+    private static void remove(int[] values, int size, int index) {
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+    }
+}
@@ -0,0 +1,133 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link MjolnirItemSource} which displays rows of a database query, e.g. of a large SQLite table, without loading all of them.
+ * <p>
+ * Rows are queried in windows of a fixed size on a background executor and mapped to items there, so the main thread never touches
+ * the database. Only a few windows around the last bound item are kept in memory - the next window is queried as soon as an item of
+ * the current one is bound, and windows which are the farthest away are dropped. Items of windows which are not loaded yet are
+ * displayed as placeholders.
+ * <p>
+ * When the table changes, call {@link #onTableChanged()}, e.g. from a ContentObserver. Windows which are in memory are queried again,
+ * and only rows which have changed are dispatched as changed, so the adapter doesn't have to call notifyDataSetChanged().
+ *
+ * @param <E> type of items.
+ */
+public class CursorItemSource<E> extends PagedItemSource<E> {
+
+    public static final int DEFAULT_WINDOW_SIZE = 50;
+
+    /**
+     * Windows before and after the window of the last bound item are loaded, so one more can be kept in memory while scrolling.
+     */
+    private static final int DEFAULT_MAX_RESIDENT_WINDOWS = 4;
+
+    /**
+     * Single dedicated worker, which is shared by all sources that weren't given an executor, so slow queries never delay diff
+     * calculations. Worker thread stops as soon as there are no queries left.
+     */
+    private static final Executor QUERY_EXECUTOR = new MjolnirDiffScheduler(1, "MjolnirCursor");
+
+    /**
+     * Creates a source, whose rows are queried on a single worker thread, which is shared by all sources created this way.
+     */
+    public CursorItemSource(WindowQuery query, RowMapper<E> rowMapper) {
+        this(query, rowMapper, DEFAULT_WINDOW_SIZE, QUERY_EXECUTOR);
+    }
+
+    /**
+     * @param query      query of rows.
+     * @param rowMapper  maps rows to items, items have to implement equals(), so changed rows can be found.
+     * @param windowSize number of rows which are queried at once.
+     * @param executor   executor on which rows are queried and mapped.
+     */
+    public CursorItemSource(WindowQuery query, RowMapper<E> rowMapper, int windowSize, Executor executor) {
+        super(new WindowLoader<>(query, rowMapper, executor), windowSize, DEFAULT_MAX_RESIDENT_WINDOWS, 0);
+    }
+
+    /**
+     * Queries the rows which are in memory again and dispatches the rows which have changed. Has to be called on the main thread.
+     */
+    public void onTableChanged() {
+        reload();
+    }
+
+    /**
+     * Query of rows, which is run on the background executor.
+     */
+    public interface WindowQuery {
+
+        /**
+         * @return number of rows, e.g. result of {@code SELECT COUNT(*)}.
+         */
+        int count();
+
+        /**
+         * @return cursor with up to {@param limit} rows from {@param offset}, e.g. result of a query with {@code LIMIT limit OFFSET
+         * offset}. Rows have to be in a stable order.
+         */
+        Cursor query(int offset, int limit);
+    }
+
+    public interface RowMapper<E> {
+
+        /**
+         * @return item from the current row of {@param cursor}.
+         */
+        E map(Cursor cursor);
+    }
+
+    private static final class WindowLoader<E> implements PageLoader<E> {
+
+        private final WindowQuery query;
+
+        private final RowMapper<E> rowMapper;
+
+        private final Executor executor;
+
+        WindowLoader(WindowQuery query, RowMapper<E> rowMapper, Executor executor) {
+            this.query = query;
+            this.rowMapper = rowMapper;
+            this.executor = executor;
+        }
+
+        @Override
+        public void loadPage(final int page, final int pageSize, final PageCallback<E> callback) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    List<E> items;
+                    int count;
+                    try {
+                        count = query.count();
+                        items = queryWindow(page * pageSize, pageSize);
+                    } catch (RuntimeException e) {
+                        // e.g. database was closed, window is queried again the next time one of its items is bound
+                        callback.onPageFailed();
+                        return;
+                    }
+                    callback.onPageLoaded(items, count);
+                }
+            });
+        }
+
+        private List<E> queryWindow(int offset, int limit) {
+            Cursor cursor = query.query(offset, limit);
+            try {
+                List<E> items = new ArrayList<>(cursor.getCount());
+                while (cursor.moveToNext()) {
+                    items.add(rowMapper.map(cursor));
+                }
+                return items;
+            } finally {
+                cursor.close();
+            }
+        }
+    }
+}
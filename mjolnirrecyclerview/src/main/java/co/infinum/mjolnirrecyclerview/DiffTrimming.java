@@ -0,0 +1,147 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.List;
+
+/**
+ * Fast path for updates, which share a prefix and a suffix with the displayed items - e.g. a new page appended at the end or
+ * prepended at the start. Shared items are found in O(prefix + suffix) with DiffUtil.Callback#areItemsTheSame, so only the changed
+ * middle section has to be diffed - and if one of the middle sections is empty, there is nothing to diff at all.
+ */
+final class DiffTrimming {
+
+    private DiffTrimming() {
+    }
+
+    /**
+     * @return number of leading items which are the same in old and new list.
+     */
+    static int commonPrefix(DiffUtil.Callback callback) {
+        int length = Math.min(callback.getOldListSize(), callback.getNewListSize());
+        int prefix = 0;
+        while (prefix < length && callback.areItemsTheSame(prefix, prefix)) {
+            prefix++;
+        }
+        return prefix;
+    }
+
+    /**
+     * @return number of trailing items which are the same in old and new list, excluding the {@param prefix} items.
+     */
+    static int commonSuffix(DiffUtil.Callback callback, int prefix) {
+        int oldSize = callback.getOldListSize();
+        int newSize = callback.getNewListSize();
+        int length = Math.min(oldSize, newSize) - prefix;
+        int suffix = 0;
+        while (suffix < length && callback.areItemsTheSame(oldSize - suffix - 1, newSize - suffix - 1)) {
+            suffix++;
+        }
+        return suffix;
+    }
+
+    /**
+     * Dispatches changes of shared prefix and suffix items, whose contents differ. Has to be dispatched after the middle section, so
+     * that positions are already final.
+     */
+    static void dispatchSharedChanges(DiffUtil.Callback callback, int prefix, int suffix, ListUpdateCallback updateCallback) {
+        for (int i = 0; i < prefix; i++) {
+            dispatchChange(callback, i, i, updateCallback);
+        }
+
+        int oldSize = callback.getOldListSize();
+        int newSize = callback.getNewListSize();
+        for (int i = 1; i <= suffix; i++) {
+            dispatchChange(callback, oldSize - i, newSize - i, updateCallback);
+        }
+    }
+
+    private static void dispatchChange(DiffUtil.Callback callback, int oldPosition, int newPosition, ListUpdateCallback updateCallback) {
+        if (!callback.areContentsTheSame(oldPosition, newPosition)) {
+            updateCallback.onChanged(newPosition, 1, callback.getChangePayload(oldPosition, newPosition));
+        }
+    }
+
+    /**
+     * Callback which compares items with equals(), used when there is no diff engine.
+     */
+    static final class EqualityCallback<E> extends DiffUtil.Callback {
+
+        private final List<E> oldItems;
+
+        private final List<E> newItems;
+
+        EqualityCallback(List<E> oldItems, List<E> newItems) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            E oldItem = oldItems.get(oldItemPosition);
+            return oldItem == null ? newItems.get(newItemPosition) == null : oldItem.equals(newItems.get(newItemPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return true;
+        }
+    }
+
+    /**
+     * Exposes only the middle section of the wrapped callback to DiffUtil.
+     */
+    static final class MiddleCallback extends DiffUtil.Callback {
+
+        private final DiffUtil.Callback callback;
+
+        private final int prefix;
+
+        private final int oldSize;
+
+        private final int newSize;
+
+        MiddleCallback(DiffUtil.Callback callback, int prefix, int suffix) {
+            this.callback = callback;
+            this.prefix = prefix;
+            this.oldSize = callback.getOldListSize() - prefix - suffix;
+            this.newSize = callback.getNewListSize() - prefix - suffix;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldSize;
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newSize;
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return callback.areItemsTheSame(oldItemPosition + prefix, newItemPosition + prefix);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return callback.areContentsTheSame(oldItemPosition + prefix, newItemPosition + prefix);
+        }
+
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            return callback.getChangePayload(oldItemPosition + prefix, newItemPosition + prefix);
+        }
+    }
+}
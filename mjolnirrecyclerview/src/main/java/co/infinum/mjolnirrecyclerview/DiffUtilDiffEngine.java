@@ -0,0 +1,84 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.List;
+
+/**
+ * {@link MjolnirDiffEngine} which uses DiffUtil. A new DiffUtil.Callback is created for each pair of old and new items, so every queued
+ * update is diffed with the callback that actually describes it.
+ *
+ * @param <E> type of items.
+ */
+public class DiffUtilDiffEngine<E> implements MjolnirDiffEngine<E> {
+
+    private final CallbackFactory<E> callbackFactory;
+
+    private final boolean detectMoves;
+
+    public DiffUtilDiffEngine(CallbackFactory<E> callbackFactory) {
+        this(callbackFactory, true);
+    }
+
+    /**
+     * @param callbackFactory factory which creates DiffUtil.Callback for each old and new items pair.
+     * @param detectMoves     true if DiffUtil should try to detect moved items.
+     */
+    public DiffUtilDiffEngine(CallbackFactory<E> callbackFactory, boolean detectMoves) {
+        this.callbackFactory = callbackFactory;
+        this.detectMoves = detectMoves;
+    }
+
+    @Override
+    public MjolnirDiffResult calculateDiff(List<E> oldItems, List<E> newItems) {
+        return calculateDiff(callbackFactory.createCallback(oldItems, newItems), detectMoves);
+    }
+
+    /**
+     * Calculates diff with an already created {@param callback}. Items which are shared at the start and at the end of both lists
+     * are skipped, so DiffUtil runs only on the changed middle section - and doesn't run at all if items were only added or removed
+     * in one place, e.g. when a new page is appended.
+     */
+    static MjolnirDiffResult calculateDiff(DiffUtil.Callback callback, boolean detectMoves) {
+        int prefix = DiffTrimming.commonPrefix(callback);
+        int suffix = DiffTrimming.commonSuffix(callback, prefix);
+
+        if (prefix == 0 && suffix == 0) {
+            final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(callback, detectMoves);
+
+            return new MjolnirDiffResult() {
+                @Override
+                public void dispatchUpdatesTo(ListUpdateCallback callback) {
+                    diffResult.dispatchUpdatesTo(callback);
+                }
+            };
+        }
+
+        UpdateOperations operations = new UpdateOperations();
+        int oldMiddle = callback.getOldListSize() - prefix - suffix;
+        int newMiddle = callback.getNewListSize() - prefix - suffix;
+
+        if (oldMiddle == 0) {
+            operations.onInserted(prefix, newMiddle);
+        } else if (newMiddle == 0) {
+            operations.onRemoved(prefix, oldMiddle);
+        } else {
+            DiffUtil.calculateDiff(new DiffTrimming.MiddleCallback(callback, prefix, suffix), detectMoves)
+                    .dispatchUpdatesTo(new OffsetListUpdateCallback(operations, prefix));
+        }
+
+        DiffTrimming.dispatchSharedChanges(callback, prefix, suffix, operations);
+        return operations;
+    }
+
+    /**
+     * Creates DiffUtil.Callback for the given pair of old and new items, e.g. {@code new ItemsDiffUtil(oldItems, newItems)}.
+     *
+     * @param <E> type of items.
+     */
+    public interface CallbackFactory<E> {
+
+        DiffUtil.Callback createCallback(List<E> oldItems, List<E> newItems);
+    }
+}
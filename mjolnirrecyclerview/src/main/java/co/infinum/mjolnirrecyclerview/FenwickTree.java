@@ -0,0 +1,33 @@
+package co.infinum.mjolnirrecyclerview;
+
+/**
+ * Binary indexed tree over int counts, which supports point updates and prefix sums in O(log n).
+ */
+final class FenwickTree {
+
+    private final int[] tree;
+
+    FenwickTree(int size) {
+        tree = new int[size + 1];
+    }
+
+    /**
+     * Adds {@param delta} to the count at {@param index}.
+     */
+    void add(int index, int delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return sum of counts at indices lower than {@param index}.
+     */
+    int prefixSum(int index) {
+        int sum = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,94 @@
+package co.infinum.mjolnirrecyclerview;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Filters items with {@link MjolnirItemFilter} on the diff thread, and remembers which items matched the last query. When the next
+ * query narrows it, only those items are filtered again instead of all items.
+ *
+ * @param <E> type of items.
+ */
+final class IncrementalFilter<E> {
+
+    /**
+     * Number of items which are filtered between checks whether the filter was superseded by a newer update.
+     */
+    private static final int CANCELLATION_CHECK_INTERVAL = 1024;
+
+    private final UpdatePipeline<E> updatePipeline;
+
+    /**
+     * Result of the last filtering, which is reused when the next query narrows its query. Written from the diff thread.
+     */
+    private volatile FilterResult<E> lastResult;
+
+    IncrementalFilter(UpdatePipeline<E> updatePipeline) {
+        this.updatePipeline = updatePipeline;
+    }
+
+    /**
+     * Filters {@param source} with {@param query} on the diff thread. If the last result was filtered from the same items by the same
+     * filter with a query which is narrowed by {@param query}, only its items are filtered.
+     *
+     * @param updateGeneration generation of the update, which produces the filtered items.
+     * @return filtered items, or null if filtering was superseded by a newer update.
+     */
+    List<E> filter(List<E> source, MjolnirItemFilter<E> filter, String query, long updateGeneration) {
+        FilterResult<E> previous = lastResult;
+        boolean isNarrowing = previous != null && previous.source == source && previous.filter == filter
+                && filter.isNarrowing(previous.query, query);
+        int candidateCount = isNarrowing ? previous.indices.length : source.size();
+
+        int[] indices = new int[candidateCount];
+        List<E> filteredItems = new ArrayList<>();
+        for (int i = 0; i < candidateCount; i++) {
+            if (i % CANCELLATION_CHECK_INTERVAL == 0 && updatePipeline.isSuperseded(updateGeneration)) {
+                return null;
+            }
+
+            int index = isNarrowing ? previous.indices[i] : i;
+            E item = source.get(index);
+            if (filter.matches(item, query)) {
+                indices[filteredItems.size()] = index;
+                filteredItems.add(item);
+            }
+        }
+
+        // result of a superseded filter might be stale, e.g. filter was replaced in the meantime, so it is never reused
+        if (updatePipeline.isSuperseded(updateGeneration)) {
+            return null;
+        }
+        lastResult = new FilterResult<>(source, filter, query, Arrays.copyOf(indices, filteredItems.size()));
+        return filteredItems;
+    }
+
+    /**
+     * Forgets the last result, e.g. because the filter was replaced.
+     */
+    void clear() {
+        lastResult = null;
+    }
+
+    /**
+     * Positions of items which matched a query, by which the next narrowing query is filtered.
+     */
+    private static final class FilterResult<E> {
+
+        final List<E> source;
+
+        final MjolnirItemFilter<E> filter;
+
+        final String query;
+
+        final int[] indices;
+
+        FilterResult(List<E> source, MjolnirItemFilter<E> filter, String query, int[] indices) {
+            this.source = source;
+            this.filter = filter;
+            this.query = query;
+            this.indices = indices;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package co.infinum.mjolnirrecyclerview;
+
+import java.util.Arrays;
+
+/**
+ * Least recently used cache of items by their positions, with a fixed capacity.
+ * <p>
+ * Entries are kept in preallocated slots, which are linked into a list in order of use, and positions are mapped to slots with a
+ * {@link LongIntHashMap}, so neither lookups nor insertions box positions or allocate entries.
+ *
+ * @param <E> type of items.
+ */
+final class ItemLruCache<E> {
+
+    private static final int NONE = -1;
+
+    private final LongIntHashMap slots;
+
+    private final int[] positions;
+
+    private final Object[] items;
+
+    private final int[] previous;
+
+    private final int[] next;
+
+    /**
+     * Most recently used slot.
+     */
+    private int head = NONE;
+
+    /**
+     * Least recently used slot, which is evicted first.
+     */
+    private int tail = NONE;
+
+    private int size;
+
+    ItemLruCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache size has to be at least 1!");
+        }
+        slots = new LongIntHashMap(capacity);
+        positions = new int[capacity];
+        items = new Object[capacity];
+        previous = new int[capacity];
+        next = new int[capacity];
+    }
+
+    int getCapacity() {
+        return items.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return item at {@param position}, or null if it isn't cached.
+     */
+    @SuppressWarnings("unchecked")
+    E get(int position) {
+        int slot = slots.get(position, NONE);
+        if (slot == NONE) {
+            return null;
+        }
+
+        moveToHead(slot);
+        return (E) items[slot];
+    }
+
+    /**
+     * Caches {@param item} at {@param position}. If cache is full, the least recently used item is evicted.
+     */
+    void put(int position, E item) {
+        int slot = slots.get(position, NONE);
+        if (slot == NONE) {
+            if (size < items.length) {
+                slot = size++;
+            } else {
+                slot = tail;
+                unlink(slot);
+                slots.remove(positions[slot]);
+            }
+            positions[slot] = position;
+            slots.put(position, slot);
+        } else {
+            unlink(slot);
+        }
+
+        items[slot] = item;
+        linkAtHead(slot);
+    }
+
+    void clear() {
+        slots.clear();
+        Arrays.fill(items, null);
+        head = NONE;
+        tail = NONE;
+        size = 0;
+    }
+
+    private void moveToHead(int slot) {
+        if (slot != head) {
+            unlink(slot);
+            linkAtHead(slot);
+        }
+    }
+
+    private void unlink(int slot) {
+        if (previous[slot] != NONE) {
+            next[previous[slot]] = next[slot];
+        } else {
+            head = next[slot];
+        }
+
+        if (next[slot] != NONE) {
+            previous[next[slot]] = previous[slot];
+        } else {
+            tail = previous[slot];
+        }
+    }
+
+    private void linkAtHead(int slot) {
+        previous[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) {
+            previous[head] = slot;
+        }
+        head = slot;
+
+        if (tail == NONE) {
+            tail = slot;
+        }
+    }
+}
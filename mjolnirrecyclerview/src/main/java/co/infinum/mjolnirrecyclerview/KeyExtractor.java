@@ -0,0 +1,12 @@
+package co.infinum.mjolnirrecyclerview;
+
+/**
+ * Provides a stable key for items, e.g. their database id. Two items with the same key represent the same entity, even if their
+ * contents differ.
+ *
+ * @param <E> type of items.
+ */
+public interface KeyExtractor<E> {
+
+    long getKey(E item);
+}
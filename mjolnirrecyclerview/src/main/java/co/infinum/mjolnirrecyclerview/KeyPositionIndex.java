@@ -0,0 +1,392 @@
+package co.infinum.mjolnirrecyclerview;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Index which maps item keys to their current positions in O(log n).
+ * <p>
+ * Keys are stored in an implicit treap - a randomized binary tree ordered by item positions, in which every node knows the size of its
+ * subtree. Position of a key is found by walking from its node to the root and counting nodes on the left, so inserting or removing
+ * items in the middle doesn't renumber the following items. Nodes are kept in primitive arrays and reused through a free list, so
+ * single item changes don't allocate.
+ * <p>
+ * Single item changes are applied incrementally. Bulk changes, such as diff updates, only invalidate the index and it is rebuilt from
+ * the items in O(n) on the next lookup. Keys should be unique - while there are duplicate keys, every change invalidates the index and
+ * lookups return the first item with the given key.
+ *
+ * @param <E> type of items.
+ */
+class KeyPositionIndex<E> {
+
+    private static final int NIL = 0;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final List<E> items;
+
+    private final KeyExtractor<E> keyExtractor;
+
+    private final LongIntHashMap nodesByKey = new LongIntHashMap();
+
+    private final Random random = new Random();
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+
+    private int[] left = new int[INITIAL_CAPACITY];
+
+    private int[] right = new int[INITIAL_CAPACITY];
+
+    private int[] parent = new int[INITIAL_CAPACITY];
+
+    private int[] sizes = new int[INITIAL_CAPACITY];
+
+    private int[] priorities = new int[INITIAL_CAPACITY];
+
+    private int root = NIL;
+
+    /**
+     * First node of the free list, which is linked through {@link #right}. Node 0 is reserved for {@link #NIL}.
+     */
+    private int freeNode = NIL;
+
+    private int allocatedCount = 1;
+
+    private boolean isValid;
+
+    /**
+     * Roots of the trees which were produced by the last {@link #split(int, int)}.
+     */
+    private int splitLeft;
+
+    private int splitRight;
+
+    /**
+     * @param items        items which are indexed, read when the index is rebuilt or items are inserted.
+     * @param keyExtractor extractor of item keys.
+     */
+    KeyPositionIndex(List<E> items, KeyExtractor<E> keyExtractor) {
+        this.items = items;
+        this.keyExtractor = keyExtractor;
+    }
+
+    KeyExtractor<E> getKeyExtractor() {
+        return keyExtractor;
+    }
+
+    /**
+     * @return position of the item with {@param key}, or -1 if there is no such item.
+     */
+    int indexOf(long key) {
+        ensureValid();
+
+        int node = nodesByKey.get(key, NIL);
+        if (node == NIL) {
+            return -1;
+        }
+
+        int position = sizes[left[node]];
+        while (parent[node] != NIL) {
+            if (right[parent[node]] == node) {
+                position += sizes[left[parent[node]]] + 1;
+            }
+            node = parent[node];
+        }
+        return position;
+    }
+
+    /**
+     * Marks the index as stale, so it is rebuilt on the next lookup. Called after bulk changes of items.
+     */
+    void invalidate() {
+        isValid = false;
+    }
+
+    /**
+     * Indexes {@param count} items, which were inserted at {@param position}.
+     */
+    void onInserted(int position, int count) {
+        if (!isValid) {
+            return;
+        }
+
+        int inserted = build(position, count);
+        if (!isValid) {
+            return;
+        }
+
+        split(root, position);
+        int leftPart = splitLeft;
+        int rightPart = splitRight;
+        setRoot(merge(merge(leftPart, inserted), rightPart));
+    }
+
+    /**
+     * Removes {@param count} items, which were removed from {@param position}, from the index.
+     */
+    void onRemoved(int position, int count) {
+        if (!isValid) {
+            return;
+        }
+
+        split(root, position);
+        int leftPart = splitLeft;
+        split(splitRight, count);
+        int removed = splitLeft;
+        int rightPart = splitRight;
+
+        free(removed);
+        setRoot(merge(leftPart, rightPart));
+    }
+
+    /**
+     * Updates the key of the item at {@param position}, which was replaced.
+     */
+    void onChanged(int position) {
+        if (!isValid) {
+            return;
+        }
+
+        int node = nodeAt(position);
+        long key = keyExtractor.getKey(items.get(position));
+        if (key == keys[node]) {
+            return;
+        }
+
+        if (nodesByKey.containsKey(key)) {
+            invalidate();
+            return;
+        }
+        nodesByKey.remove(keys[node]);
+        keys[node] = key;
+        nodesByKey.put(key, node);
+    }
+
+    private void ensureValid() {
+        if (isValid) {
+            return;
+        }
+
+        root = NIL;
+        freeNode = NIL;
+        allocatedCount = 1;
+        nodesByKey.clear();
+
+        boolean hasDuplicates = false;
+        int size = items.size();
+        ensureCapacity(size + 1);
+        for (int i = 0; i < size; i++) {
+            long key = keyExtractor.getKey(items.get(i));
+            if (!nodesByKey.putIfAbsent(key, allocatedCount)) {
+                hasDuplicates = true;
+            }
+            keys[allocatedCount++] = key;
+        }
+        setRoot(buildTree(1, size));
+
+        // nodes of duplicates are not reachable by key, so the index is rebuilt again after the next change
+        isValid = !hasDuplicates;
+    }
+
+    /**
+     * Creates nodes for {@param count} items at {@param position} and maps their keys. If any of the keys is already indexed, the index
+     * is invalidated.
+     *
+     * @return root of the new tree.
+     */
+    private int build(int position, int count) {
+        int first = allocatedCount;
+        if (freeNode == NIL) {
+            ensureCapacity(allocatedCount + count);
+            for (int i = 0; i < count; i++) {
+                long key = keyExtractor.getKey(items.get(position + i));
+                keys[allocatedCount] = key;
+                if (!nodesByKey.putIfAbsent(key, allocatedCount++)) {
+                    invalidate();
+                    return NIL;
+                }
+            }
+            return buildTree(first, count);
+        }
+
+        // reused nodes aren't consecutive, so they are merged one by one
+        int tree = NIL;
+        for (int i = 0; i < count; i++) {
+            int node = allocate();
+            long key = keyExtractor.getKey(items.get(position + i));
+            keys[node] = key;
+            if (!nodesByKey.putIfAbsent(key, node)) {
+                invalidate();
+                return NIL;
+            }
+            tree = merge(tree, node);
+        }
+        return tree;
+    }
+
+    /**
+     * Builds a treap from {@param count} consecutive nodes starting with {@param first} in O(n), by keeping the rightmost path of the
+     * tree on a stack.
+     *
+     * @return root of the new tree.
+     */
+    private int buildTree(int first, int count) {
+        int[] stack = new int[count];
+        int stackSize = 0;
+
+        for (int node = first; node < first + count; node++) {
+            initNode(node);
+
+            int last = NIL;
+            while (stackSize > 0 && priorities[stack[stackSize - 1]] < priorities[node]) {
+                last = stack[--stackSize];
+                updateSize(last);
+            }
+
+            left[node] = last;
+            parent[last] = node;
+            if (stackSize > 0) {
+                right[stack[stackSize - 1]] = node;
+                parent[node] = stack[stackSize - 1];
+            }
+            stack[stackSize++] = node;
+        }
+
+        while (stackSize > 0) {
+            updateSize(stack[--stackSize]);
+        }
+        parent[NIL] = NIL;
+        return count > 0 ? stack[0] : NIL;
+    }
+
+    /**
+     * Splits {@param tree} into first {@param count} nodes and the rest, which are stored in {@link #splitLeft} and
+     * {@link #splitRight}.
+     */
+    private void split(int tree, int count) {
+        if (tree == NIL) {
+            splitLeft = NIL;
+            splitRight = NIL;
+            return;
+        }
+
+        if (sizes[left[tree]] >= count) {
+            split(left[tree], count);
+            setLeft(tree, splitRight);
+            splitRight = tree;
+        } else {
+            split(right[tree], count - sizes[left[tree]] - 1);
+            setRight(tree, splitLeft);
+            splitLeft = tree;
+        }
+        updateSize(tree);
+        parent[splitLeft] = NIL;
+        parent[splitRight] = NIL;
+    }
+
+    /**
+     * @return root of the tree, which contains nodes of {@param first} followed by nodes of {@param second}.
+     */
+    private int merge(int first, int second) {
+        if (first == NIL) {
+            return second;
+        } else if (second == NIL) {
+            return first;
+        }
+
+        if (priorities[first] > priorities[second]) {
+            setRight(first, merge(right[first], second));
+            updateSize(first);
+            return first;
+        } else {
+            setLeft(second, merge(first, left[second]));
+            updateSize(second);
+            return second;
+        }
+    }
+
+    private int nodeAt(int position) {
+        int node = root;
+        while (position != sizes[left[node]]) {
+            if (position < sizes[left[node]]) {
+                node = left[node];
+            } else {
+                position -= sizes[left[node]] + 1;
+                node = right[node];
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Unmaps keys of all nodes in {@param tree} and adds them to the free list.
+     */
+    private void free(int tree) {
+        if (tree == NIL) {
+            return;
+        }
+        free(left[tree]);
+        int rightTree = right[tree];
+
+        nodesByKey.remove(keys[tree]);
+        right[tree] = freeNode;
+        freeNode = tree;
+
+        free(rightTree);
+    }
+
+    private int allocate() {
+        int node;
+        if (freeNode != NIL) {
+            node = freeNode;
+            freeNode = right[node];
+        } else {
+            ensureCapacity(allocatedCount + 1);
+            node = allocatedCount++;
+        }
+        initNode(node);
+        return node;
+    }
+
+    private void initNode(int node) {
+        left[node] = NIL;
+        right[node] = NIL;
+        parent[node] = NIL;
+        sizes[node] = 1;
+        priorities[node] = random.nextInt();
+    }
+
+    private void setRoot(int node) {
+        root = node;
+        parent[node] = NIL;
+    }
+
+    private void setLeft(int node, int child) {
+        left[node] = child;
+        parent[child] = node;
+    }
+
+    private void setRight(int node, int child) {
+        right[node] = child;
+        parent[child] = node;
+    }
+
+    private void updateSize(int node) {
+        sizes[node] = sizes[left[node]] + sizes[right[node]] + 1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= keys.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, keys.length * 2);
+        keys = Arrays.copyOf(keys, newCapacity);
+        left = Arrays.copyOf(left, newCapacity);
+        right = Arrays.copyOf(right, newCapacity);
+        parent = Arrays.copyOf(parent, newCapacity);
+        sizes = Arrays.copyOf(sizes, newCapacity);
+        priorities = Arrays.copyOf(priorities, newCapacity);
+    }
+}
@@ -0,0 +1,292 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link MjolnirDiffEngine} for items with stable keys, which is an alternative to DiffUtil when a lot of items change at once.
+ * <p>
+ * Instead of Myers' algorithm, which is O(N * D), items are matched by their keys through a hash map in O(N). Items which are shared
+ * at the start and at the end of both lists are skipped first, so appending or prepending a page costs only O(page size). Items
+ * which keep their relative order are found with a longest increasing subsequence pass in O(N log N) and stay where they are, so
+ * only the remaining items are moved - which is the smallest possible number of moves. Removals, moves, inserts and changes are
+ * dispatched through the same ListUpdateCallback events as DiffUtil.DiffResult, so item animations keep working.
+ * <p>
+ * Items with the same key are considered to be the same item. By default, their contents are compared with equals() - override
+ * {@link #areContentsTheSame(Object, Object)} and {@link #getChangePayload(Object, Object)} to change that. Keys should be unique;
+ * if they aren't, duplicates are treated as removed and inserted items.
+ *
+ * @param <E> type of items.
+ */
+public class KeyedDiffEngine<E> implements MjolnirDiffEngine<E> {
+
+    private static final int NO_POSITION = -1;
+
+    private final KeyExtractor<E> keyExtractor;
+
+    public KeyedDiffEngine(KeyExtractor<E> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    public KeyExtractor<E> getKeyExtractor() {
+        return keyExtractor;
+    }
+
+    /**
+     * Checks whether two items with the same key have the same contents. If they don't, a change is dispatched for the new item.
+     */
+    protected boolean areContentsTheSame(E oldItem, E newItem) {
+        return oldItem == null ? newItem == null : oldItem.equals(newItem);
+    }
+
+    /**
+     * @return payload, which is dispatched with the change of items which have the same key but different contents.
+     */
+    protected Object getChangePayload(E oldItem, E newItem) {
+        return null;
+    }
+
+    @Override
+    public MjolnirDiffResult calculateDiff(List<E> oldItems, List<E> newItems) {
+        UpdateOperations operations = new UpdateOperations();
+        calculateDiff(oldItems, newItems, operations);
+        return operations;
+    }
+
+    /**
+     * Calculates diff between {@param oldItems} and {@param newItems} and records it to {@param operations}.
+     */
+    void calculateDiff(List<E> oldItems, List<E> newItems, UpdateOperations operations) {
+        int length = Math.min(oldItems.size(), newItems.size());
+        int prefix = 0;
+        while (prefix < length && isSameKey(oldItems.get(prefix), newItems.get(prefix))) {
+            prefix++;
+        }
+
+        int suffix = 0;
+        while (suffix < length - prefix
+                && isSameKey(oldItems.get(oldItems.size() - suffix - 1), newItems.get(newItems.size() - suffix - 1))) {
+            suffix++;
+        }
+
+        List<E> oldMiddle = oldItems.subList(prefix, oldItems.size() - suffix);
+        List<E> newMiddle = newItems.subList(prefix, newItems.size() - suffix);
+
+        if (oldMiddle.isEmpty()) {
+            operations.onInserted(prefix, newMiddle.size());
+        } else if (newMiddle.isEmpty()) {
+            operations.onRemoved(prefix, oldMiddle.size());
+        } else {
+            calculateMiddleDiff(oldMiddle, newMiddle, prefix == 0 ? operations : new OffsetListUpdateCallback(operations, prefix));
+        }
+
+        for (int i = 0; i < prefix; i++) {
+            dispatchChange(oldItems.get(i), newItems.get(i), i, operations);
+        }
+        for (int i = 1; i <= suffix; i++) {
+            dispatchChange(oldItems.get(oldItems.size() - i), newItems.get(newItems.size() - i), newItems.size() - i, operations);
+        }
+    }
+
+    private boolean isSameKey(E oldItem, E newItem) {
+        return keyExtractor.getKey(oldItem) == keyExtractor.getKey(newItem);
+    }
+
+    private void dispatchChange(E oldItem, E newItem, int newPosition, ListUpdateCallback callback) {
+        if (!areContentsTheSame(oldItem, newItem)) {
+            callback.onChanged(newPosition, 1, getChangePayload(oldItem, newItem));
+        }
+    }
+
+    private void calculateMiddleDiff(List<E> oldItems, List<E> newItems, ListUpdateCallback operations) {
+        int oldSize = oldItems.size();
+        int newSize = newItems.size();
+
+        // match new items to old items by their keys
+        LongIntHashMap oldPositions = new LongIntHashMap(oldSize);
+        for (int i = 0; i < oldSize; i++) {
+            oldPositions.putIfAbsent(keyExtractor.getKey(oldItems.get(i)), i);
+        }
+
+        int[] oldToNew = new int[oldSize];
+        Arrays.fill(oldToNew, NO_POSITION);
+        int[] newToOld = new int[newSize];
+
+        for (int j = 0; j < newSize; j++) {
+            int i = oldPositions.get(keyExtractor.getKey(newItems.get(j)), NO_POSITION);
+            if (i != NO_POSITION && oldToNew[i] == NO_POSITION) {
+                oldToNew[i] = j;
+                newToOld[j] = i;
+            } else {
+                newToOld[j] = NO_POSITION;
+            }
+        }
+
+        // removals are dispatched from the end, so positions of the remaining old items don't change
+        for (int i = oldSize - 1; i >= 0; i--) {
+            if (oldToNew[i] == NO_POSITION) {
+                operations.onRemoved(i, 1);
+            }
+        }
+
+        dispatchMovesAndInserts(oldToNew, newToOld, operations);
+
+        // changes are dispatched last, when all items are already at their new positions
+        for (int j = 0; j < newSize; j++) {
+            int i = newToOld[j];
+            if (i != NO_POSITION) {
+                dispatchChange(oldItems.get(i), newItems.get(j), j, operations);
+            }
+        }
+    }
+
+    /**
+     * Moves matched items which are not part of the longest increasing subsequence and inserts new items.
+     * <p>
+     * Every item gets a slot in a combined order of old and new positions: matched items which stay in place (anchors) split the list
+     * into gaps, and each gap contains old positions of items which will be moved, followed by new positions of items which will be
+     * moved or inserted in front of the next anchor. Occupied slots are tracked in a Fenwick tree, so the current position of each
+     * item is a prefix sum.
+     */
+    private static void dispatchMovesAndInserts(int[] oldToNew, int[] newToOld, ListUpdateCallback operations) {
+        int newSize = newToOld.length;
+
+        // ranks of matched items in old order, listed in new order
+        int[] rankOfOld = new int[oldToNew.length];
+        int matchedCount = 0;
+        for (int i = 0; i < oldToNew.length; i++) {
+            rankOfOld[i] = oldToNew[i] == NO_POSITION ? NO_POSITION : matchedCount++;
+        }
+
+        int[] ranks = new int[matchedCount];
+        int index = 0;
+        for (int j = 0; j < newSize; j++) {
+            if (newToOld[j] != NO_POSITION) {
+                ranks[index++] = rankOfOld[newToOld[j]];
+            }
+        }
+
+        boolean[] isAnchorRank = longestIncreasingSubsequence(ranks);
+
+        // gap of every old rank and every new position - number of anchors in front of it
+        int[] gapOfRank = new int[matchedCount];
+        int anchorCount = 0;
+        for (int rank = 0; rank < matchedCount; rank++) {
+            gapOfRank[rank] = anchorCount;
+            if (isAnchorRank[rank]) {
+                anchorCount++;
+            }
+        }
+
+        int[] gapOfNew = new int[newSize];
+        int anchors = 0;
+        for (int j = 0; j < newSize; j++) {
+            gapOfNew[j] = anchors;
+            if (newToOld[j] != NO_POSITION && isAnchorRank[rankOfOld[newToOld[j]]]) {
+                anchors++;
+            }
+        }
+
+        // count slots in each gap: old positions of moved items, new positions of moved and inserted items and the anchor
+        int[] gapStart = new int[anchorCount + 2];
+        int[] movedFromCount = new int[anchorCount + 1];
+        int[] movedToCount = new int[anchorCount + 1];
+        for (int rank = 0; rank < matchedCount; rank++) {
+            if (!isAnchorRank[rank]) {
+                movedFromCount[gapOfRank[rank]]++;
+            }
+        }
+        for (int j = 0; j < newSize; j++) {
+            if (!isAnchor(j, newToOld, rankOfOld, isAnchorRank)) {
+                movedToCount[gapOfNew[j]]++;
+            }
+        }
+        for (int gap = 0; gap <= anchorCount; gap++) {
+            int anchorSlot = gap < anchorCount ? 1 : 0;
+            gapStart[gap + 1] = gapStart[gap] + movedFromCount[gap] + movedToCount[gap] + anchorSlot;
+        }
+
+        FenwickTree occupied = new FenwickTree(gapStart[anchorCount + 1]);
+
+        // assign slots of old positions and mark them as occupied
+        int[] slotOfRank = new int[matchedCount];
+        int[] nextFromSlot = new int[anchorCount + 1];
+        for (int rank = 0; rank < matchedCount; rank++) {
+            int gap = gapOfRank[rank];
+            if (isAnchorRank[rank]) {
+                // anchor is the last slot of the gap which precedes it
+                slotOfRank[rank] = gapStart[gap + 1] - 1;
+            } else {
+                slotOfRank[rank] = gapStart[gap] + nextFromSlot[gap]++;
+            }
+            occupied.add(slotOfRank[rank], 1);
+        }
+
+        // move and insert items in new order
+        int[] nextToSlot = new int[anchorCount + 1];
+        for (int j = 0; j < newSize; j++) {
+            if (isAnchor(j, newToOld, rankOfOld, isAnchorRank)) {
+                continue;
+            }
+
+            int gap = gapOfNew[j];
+            int toSlot = gapStart[gap] + movedFromCount[gap] + nextToSlot[gap]++;
+
+            if (newToOld[j] == NO_POSITION) {
+                occupied.add(toSlot, 1);
+                operations.onInserted(occupied.prefixSum(toSlot), 1);
+            } else {
+                int fromSlot = slotOfRank[rankOfOld[newToOld[j]]];
+                int fromPosition = occupied.prefixSum(fromSlot);
+                occupied.add(fromSlot, -1);
+                occupied.add(toSlot, 1);
+                operations.onMoved(fromPosition, occupied.prefixSum(toSlot));
+            }
+        }
+    }
+
+    private static boolean isAnchor(int newPosition, int[] newToOld, int[] rankOfOld, boolean[] isAnchorRank) {
+        return newToOld[newPosition] != NO_POSITION && isAnchorRank[rankOfOld[newToOld[newPosition]]];
+    }
+
+    /**
+     * Finds the longest increasing subsequence of distinct {@param values} with patience sorting in O(N log N).
+     *
+     * @return array indexed by value, which is true for values that are part of the subsequence.
+     */
+    static boolean[] longestIncreasingSubsequence(int[] values) {
+        int length = values.length;
+        int[] tailIndices = new int[length];
+        int[] predecessors = new int[length];
+        int tailCount = 0;
+
+        for (int i = 0; i < length; i++) {
+            int low = 0;
+            int high = tailCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[tailIndices[middle]] < values[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            predecessors[i] = low > 0 ? tailIndices[low - 1] : NO_POSITION;
+            tailIndices[low] = i;
+            if (low == tailCount) {
+                tailCount++;
+            }
+        }
+
+        boolean[] isPart = new boolean[length];
+        int index = tailCount > 0 ? tailIndices[tailCount - 1] : NO_POSITION;
+        while (index != NO_POSITION) {
+            isPart[values[index]] = true;
+            index = predecessors[index];
+        }
+        return isPart;
+    }
+}
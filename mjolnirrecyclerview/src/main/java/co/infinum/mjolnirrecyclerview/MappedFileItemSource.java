@@ -0,0 +1,178 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.annotation.NonNull;
+import android.support.v7.util.ListUpdateCallback;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * {@link MjolnirItemSource} which reads items from records in a memory-mapped file, e.g. an offline catalogue with millions of rows.
+ * <p>
+ * Records have either a fixed length, or a variable length, in which case each record is prefixed with its length as a 4 byte
+ * big-endian int. Offsets of variable-length records are indexed once, when the file is opened. Items are decoded from their records
+ * only when they are bound, and the last decoded items are kept in a small LRU cache, so heap usage depends on the number of visible
+ * items rather than on the size of the file. Pages of the file are loaded and dropped by the operating system.
+ * <p>
+ * File has to be smaller than 2 GB and must not change while it is mapped. Opening a file with variable-length records reads the
+ * whole file, so it should be done on a background thread.
+ *
+ * @param <E> type of items.
+ */
+public class MappedFileItemSource<E> implements MjolnirItemSource<E> {
+
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    private static final int LENGTH_PREFIX_SIZE = 4;
+
+    private final MappedByteBuffer buffer;
+
+    private final RecordDecoder<E> decoder;
+
+    /**
+     * Length of fixed-length records, or 0 if records have a variable length.
+     */
+    private final int recordLength;
+
+    /**
+     * Offsets of variable-length records, at their length prefixes, followed by the length of the file, so each record ends where the
+     * next one starts. Null if records have a fixed length.
+     */
+    private final int[] offsets;
+
+    private final int size;
+
+    private final ItemLruCache<E> cache;
+
+    public MappedFileItemSource(File file, int recordLength, RecordDecoder<E> decoder) throws IOException {
+        this(file, recordLength, decoder, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Opens a file with fixed-length records.
+     *
+     * @param recordLength length of each record in bytes.
+     * @param cacheSize    number of decoded items which are kept in memory, which should be higher than the number of visible items.
+     */
+    public MappedFileItemSource(File file, int recordLength, RecordDecoder<E> decoder, int cacheSize) throws IOException {
+        if (recordLength < 1) {
+            throw new IllegalArgumentException("Record length has to be at least 1!");
+        }
+
+        this.buffer = map(file);
+        this.decoder = decoder;
+        this.recordLength = recordLength;
+        this.offsets = null;
+        this.size = buffer.capacity() / recordLength;
+        this.cache = new ItemLruCache<>(cacheSize);
+    }
+
+    public MappedFileItemSource(File file, RecordDecoder<E> decoder) throws IOException {
+        this(file, decoder, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Opens a file with variable-length records, each of which is prefixed with its length.
+     *
+     * @param cacheSize number of decoded items which are kept in memory, which should be higher than the number of visible items.
+     */
+    public MappedFileItemSource(File file, RecordDecoder<E> decoder, int cacheSize) throws IOException {
+        this.buffer = map(file);
+        this.decoder = decoder;
+        this.recordLength = 0;
+        this.cache = new ItemLruCache<>(cacheSize);
+
+        int[] recordOffsets = new int[16];
+        int count = 0;
+        int offset = 0;
+        while (offset < buffer.capacity()) {
+            if (buffer.capacity() - offset < LENGTH_PREFIX_SIZE) {
+                throw new IOException("Record " + count + " is truncated!");
+            }
+            int length = buffer.getInt(offset);
+            if (length < 0 || length > buffer.capacity() - offset - LENGTH_PREFIX_SIZE) {
+                throw new IOException("Record " + count + " is truncated!");
+            }
+
+            // one more slot is always left for the end of the file
+            if (count + 1 == recordOffsets.length) {
+                recordOffsets = Arrays.copyOf(recordOffsets, recordOffsets.length * 2);
+            }
+            recordOffsets[count++] = offset;
+            offset += LENGTH_PREFIX_SIZE + length;
+        }
+        recordOffsets[count] = offset;
+
+        this.offsets = Arrays.copyOf(recordOffsets, count + 1);
+        this.size = count;
+    }
+
+    private static MappedByteBuffer map(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            // mapping stays valid after the channel is closed
+            FileChannel channel = randomAccessFile.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @NonNull
+    @Override
+    public E get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IllegalStateException("Index is defined in wrong range!");
+        }
+
+        E item = cache.get(position);
+        if (item == null) {
+            if (offsets == null) {
+                item = decoder.decode(buffer, position * recordLength, recordLength);
+            } else {
+                int offset = offsets[position] + LENGTH_PREFIX_SIZE;
+                item = decoder.decode(buffer, offset, offsets[position + 1] - offset);
+            }
+            cache.put(position, item);
+        }
+        return item;
+    }
+
+    @Override
+    public void onItemAccessed(int position) {
+        // items are decoded when they are bound, there is nothing to load ahead
+    }
+
+    @Override
+    public void attach(ListUpdateCallback callback) {
+        // file doesn't change while it is mapped, so there are no changes to dispatch
+    }
+
+    @Override
+    public void detach() {
+        cache.clear();
+    }
+
+    /**
+     * Decodes items from records.
+     */
+    public interface RecordDecoder<E> {
+
+        /**
+         * Decodes the item from {@param length} bytes at {@param offset} of {@param buffer}. Buffer is shared by all records, so it has to
+         * be read with absolute get methods, without changing its position.
+         */
+        @NonNull
+        E decode(ByteBuffer buffer, int offset, int length);
+    }
+}
@@ -0,0 +1,92 @@
+package co.infinum.mjolnirrecyclerview;
+
+import java.util.List;
+
+/**
+ * Change payload, which encodes fields of an item which have changed as a bitmask. Return it from
+ * DiffUtil.Callback#getChangePayload() or {@link KeyedDiffEngine#getChangePayload(Object, Object)} and read the changed fields with
+ * {@link MjolnirViewHolder#getChangedFields()} in {@link MjolnirViewHolder#bind(Object, int, List)}.
+ * <p>
+ * When an item is changed multiple times before it is bound, adapter merges all of its payloads, so no change is lost. Payloads of
+ * the most common masks are cached, so creating them with {@link #of(int)} doesn't allocate.
+ */
+public final class MjolnirChangePayload {
+
+    /**
+     * Mask which is reported when the whole item has to be bound, e.g. because it was bound without a payload.
+     */
+    public static final int ALL_FIELDS = ~0;
+
+    private static final int CACHE_SIZE = 256;
+
+    private static final MjolnirChangePayload[] CACHE = new MjolnirChangePayload[CACHE_SIZE];
+
+    static {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            CACHE[i] = new MjolnirChangePayload(i);
+        }
+    }
+
+    private final int changedFields;
+
+    private MjolnirChangePayload(int changedFields) {
+        this.changedFields = changedFields;
+    }
+
+    /**
+     * @param changedFields bitmask of changed fields, e.g. {@code FIELD_NAME | FIELD_PRICE}, where fields are powers of two defined by
+     *                      the app.
+     */
+    public static MjolnirChangePayload of(int changedFields) {
+        return changedFields >= 0 && changedFields < CACHE_SIZE ? CACHE[changedFields] : new MjolnirChangePayload(changedFields);
+    }
+
+    public int getChangedFields() {
+        return changedFields;
+    }
+
+    /**
+     * @return payload with fields which were changed in either of the payloads.
+     */
+    public MjolnirChangePayload merge(MjolnirChangePayload other) {
+        return of(changedFields | other.changedFields);
+    }
+
+    /**
+     * Merges {@param payloads} of a single bind into one bitmask.
+     *
+     * @return bitmask of changed fields, or {@link #ALL_FIELDS} if there are no payloads or some of them are not
+     * {@link MjolnirChangePayload}s, in which case the whole item has to be bound.
+     */
+    static int mergeChangedFields(List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            return ALL_FIELDS;
+        }
+
+        int changedFields = 0;
+        // indexed loop, so merging doesn't allocate an iterator
+        for (int i = 0, size = payloads.size(); i < size; i++) {
+            Object payload = payloads.get(i);
+            if (!(payload instanceof MjolnirChangePayload)) {
+                return ALL_FIELDS;
+            }
+            changedFields |= ((MjolnirChangePayload) payload).changedFields;
+        }
+        return changedFields;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof MjolnirChangePayload && changedFields == ((MjolnirChangePayload) o).changedFields;
+    }
+
+    @Override
+    public int hashCode() {
+        return changedFields;
+    }
+
+    @Override
+    public String toString() {
+        return "MjolnirChangePayload{changedFields=" + Integer.toBinaryString(changedFields) + "}";
+    }
+}
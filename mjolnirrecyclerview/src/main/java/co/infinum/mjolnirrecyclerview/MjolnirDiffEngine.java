@@ -0,0 +1,21 @@
+package co.infinum.mjolnirrecyclerview;
+
+import java.util.List;
+
+/**
+ * Strategy, which is used by {@link MjolnirRecyclerAdapter} to calculate the difference between currently displayed items and the new
+ * items. Diff is always calculated on the background thread, so implementations must not touch the adapter or any views.
+ *
+ * @param <E> type of items.
+ */
+public interface MjolnirDiffEngine<E> {
+
+    /**
+     * Calculates update operations, which transform {@param oldItems} into {@param newItems}. Both lists are immutable snapshots.
+     *
+     * @param oldItems currently displayed items.
+     * @param newItems new items.
+     * @return calculated diff result.
+     */
+    MjolnirDiffResult calculateDiff(List<E> oldItems, List<E> newItems);
+}
@@ -0,0 +1,16 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.ListUpdateCallback;
+
+/**
+ * Result of a diff calculation, which is calculated on a background thread and dispatched on the main thread.
+ */
+public interface MjolnirDiffResult {
+
+    /**
+     * Dispatches update operations, which transform the old list into the new list, to the given {@param callback}.
+     *
+     * @param callback callback which receives update operations, in the item (not adapter) position space.
+     */
+    void dispatchUpdatesTo(ListUpdateCallback callback);
+}
@@ -0,0 +1,191 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide executor, which is shared between all {@link MjolnirRecyclerAdapter} instances and used to calculate diffs off the main
+ * thread.
+ * <p>
+ * Worker threads are started lazily, only when there is queued work and no idle worker is available to pick it up, so the number of
+ * live threads follows the amount of diff work that is actually running. The worker count is capped and idle workers are stopped after
+ * a short keep alive period, or immediately once the last adapter has released the scheduler.
+ */
+public final class MjolnirDiffScheduler implements Executor {
+
+    /**
+     * Upper bound for the number of worker threads, regardless of the number of available processors.
+     */
+    private static final int MAX_WORKER_COUNT = 4;
+
+    private static final long KEEP_ALIVE_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * Maps to Process.THREAD_PRIORITY_BACKGROUND on Android, so diffing doesn't compete with the UI thread.
+     */
+    private static final int WORKER_PRIORITY = Thread.NORM_PRIORITY - 1;
+
+    private static MjolnirDiffScheduler instance;
+
+    private final Object lock = new Object();
+
+    private final Queue<Runnable> queue = new ArrayDeque<>();
+
+    private final int maxWorkerCount;
+
+    private final String threadName;
+
+    private int workerCount;
+
+    private int idleWorkerCount;
+
+    private int referenceCount;
+
+    private int threadIndex;
+
+    MjolnirDiffScheduler(int maxWorkerCount) {
+        this(maxWorkerCount, "MjolnirDiff");
+    }
+
+    /**
+     * @param threadName prefix of worker thread names.
+     */
+    MjolnirDiffScheduler(int maxWorkerCount, String threadName) {
+        if (maxWorkerCount < 1) {
+            throw new IllegalArgumentException("Worker count has to be at least 1!");
+        }
+        this.maxWorkerCount = maxWorkerCount;
+        this.threadName = threadName;
+    }
+
+    /**
+     * @return shared scheduler instance, which is created on the first call.
+     */
+    public static synchronized MjolnirDiffScheduler getInstance() {
+        if (instance == null) {
+            // leave one core to the main thread
+            int processors = Runtime.getRuntime().availableProcessors() - 1;
+            instance = new MjolnirDiffScheduler(Math.max(1, Math.min(processors, MAX_WORKER_COUNT)));
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a new user of this scheduler. Every call has to be paired with a call to {@link #release()}.
+     *
+     * @return this scheduler.
+     */
+    public MjolnirDiffScheduler acquire() {
+        synchronized (lock) {
+            referenceCount++;
+        }
+        return this;
+    }
+
+    /**
+     * Unregisters a user of this scheduler. Once there are no more users, idle workers are stopped right away instead of waiting for
+     * the keep alive period to pass. Already queued work is still executed.
+     */
+    public void release() {
+        synchronized (lock) {
+            if (referenceCount > 0) {
+                referenceCount--;
+            }
+
+            if (referenceCount == 0) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        synchronized (lock) {
+            queue.add(command);
+
+            if (idleWorkerCount > 0) {
+                lock.notify();
+            }
+
+            // new worker is started only if idle workers can't take all of the queued work
+            if (queue.size() > idleWorkerCount && workerCount < maxWorkerCount) {
+                startWorker();
+            }
+        }
+    }
+
+    /**
+     * @return number of currently alive worker threads.
+     */
+    public int getWorkerCount() {
+        synchronized (lock) {
+            return workerCount;
+        }
+    }
+
+    public int getMaxWorkerCount() {
+        return maxWorkerCount;
+    }
+
+    private void startWorker() {
+        workerCount++;
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWorker();
+            }
+        }, threadName + "-" + threadIndex++);
+        thread.setDaemon(true);
+        thread.setPriority(WORKER_PRIORITY);
+        thread.start();
+    }
+
+    private void runWorker() {
+        Runnable task = takeTask();
+        while (task != null) {
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                synchronized (lock) {
+                    workerCount--;
+                }
+                throw e;
+            }
+            task = takeTask();
+        }
+    }
+
+    /**
+     * @return next queued task, or null if worker should stop because there was no work during the keep alive period.
+     */
+    private Runnable takeTask() {
+        synchronized (lock) {
+            long deadline = System.currentTimeMillis() + KEEP_ALIVE_MILLIS;
+
+            while (queue.isEmpty()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || referenceCount == 0) {
+                    workerCount--;
+                    return null;
+                }
+
+                idleWorkerCount++;
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    workerCount--;
+                    return null;
+                } finally {
+                    idleWorkerCount--;
+                }
+            }
+
+            return queue.poll();
+        }
+    }
+}
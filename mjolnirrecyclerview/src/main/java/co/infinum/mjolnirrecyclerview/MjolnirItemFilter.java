@@ -0,0 +1,28 @@
+package co.infinum.mjolnirrecyclerview;
+
+/**
+ * Filter of items, which is used by {@link MjolnirRecyclerAdapter#filter(CharSequence)}. Items are filtered on the diff executor, so
+ * implementations must not touch the adapter or any views.
+ * <p>
+ * When the new query narrows the previous one, e.g. the user typed another character, only items which matched the previous query
+ * are filtered again, instead of all items.
+ *
+ * @param <E> type of items.
+ */
+public abstract class MjolnirItemFilter<E> {
+
+    /**
+     * @return true if {@param item} matches non-empty {@param query} and should be displayed.
+     */
+    public abstract boolean matches(E item, String query);
+
+    /**
+     * Checks whether every item which matches {@param query} also matches {@param previousQuery}, so that only the items which matched
+     * the previous query have to be filtered again. By default, that is true if the new query starts with the previous one, which holds
+     * for prefix and substring matching. Override it if {@link #matches(Object, String)} works differently, e.g. return false to always
+     * filter all items.
+     */
+    public boolean isNarrowing(String previousQuery, String query) {
+        return query.startsWith(previousQuery);
+    }
+}
@@ -0,0 +1,43 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.annotation.Nullable;
+import android.support.v7.util.ListUpdateCallback;
+
+/**
+ * External source of items for {@link MjolnirRecyclerAdapter}, which is set with
+ * {@link MjolnirRecyclerAdapter#setItemSource(MjolnirItemSource)}. Source owns the items - it doesn't have to keep all of them in
+ * memory, but it has to notify the adapter about every change of its items.
+ * <p>
+ * All methods are called on the main thread.
+ *
+ * @param <E> type of items.
+ */
+public interface MjolnirItemSource<E> {
+
+    /**
+     * @return number of items, including items which are not loaded yet.
+     */
+    int size();
+
+    /**
+     * @return item at {@param position}, or null if item is not loaded yet and a placeholder should be displayed instead.
+     */
+    @Nullable
+    E get(int position);
+
+    /**
+     * Called when the item at {@param position} is bound, so source can load items around it.
+     */
+    void onItemAccessed(int position);
+
+    /**
+     * Attaches the source to an adapter. Source has to dispatch all changes of its items to {@param callback} on the main thread, right
+     * after they are made.
+     */
+    void attach(ListUpdateCallback callback);
+
+    /**
+     * Detaches the source from adapter, after which it shouldn't dispatch any more changes.
+     */
+    void detach();
+}
@@ -0,0 +1,366 @@
+package co.infinum.mjolnirrecyclerview;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Opt-in performance metrics of {@link MjolnirRecyclerAdapter}, which is set with
+ * {@link MjolnirRecyclerAdapter#setMetrics(MjolnirMetrics)}. One instance can be shared by multiple adapters.
+ * <p>
+ * Latencies of creating and binding view holders are recorded per view type, so it's possible to tell which view type causes jank,
+ * together with latencies of calculating diffs and dispatching their results. Latencies are recorded in histograms with power-of-two
+ * buckets of nanoseconds, which are updated with atomic increments only, so recording doesn't lock or allocate, and they can be read
+ * from any thread with {@link #snapshot()}. Operations which take longer than a threshold are also reported to a {@link Listener} right
+ * away.
+ * <p>
+ * When metrics are not set, adapter only checks for null and doesn't read the clock.
+ */
+public final class MjolnirMetrics {
+
+    public static final int OPERATION_CREATE = 0;
+
+    public static final int OPERATION_BIND = 1;
+
+    public static final int OPERATION_DIFF_CALCULATION = 2;
+
+    public static final int OPERATION_DIFF_DISPATCH = 3;
+
+    /**
+     * View type which is reported for diff operations, which are not related to a view type.
+     */
+    public static final int NO_VIEW_TYPE = -1;
+
+    /**
+     * Latencies are recorded in buckets [2^i, 2^(i+1)) nanoseconds, and the last bucket contains everything longer than ~9 minutes.
+     */
+    public static final int BUCKET_COUNT = 40;
+
+    /**
+     * Latencies of view types, sorted by view type. Array is replaced when a new view type is added, so it can be read without locking.
+     */
+    private volatile ViewTypeMetrics[] viewTypes = new ViewTypeMetrics[0];
+
+    private final Object viewTypesLock = new Object();
+
+    private final Histogram diffCalculation = new Histogram();
+
+    private final Histogram diffDispatch = new Histogram();
+
+    private volatile Listener listener;
+
+    private volatile long slowThresholdNanos;
+
+    /**
+     * Sets the listener, which is notified about operations which took longer than {@param slowThresholdNanos}, e.g. longer than a
+     * frame. Listener is called on the thread on which the operation was performed - the main thread for create, bind and dispatch, and
+     * a diff thread for diff calculations.
+     *
+     * @param listener listener, or null to stop reporting slow operations.
+     */
+    public void setListener(Listener listener, long slowThresholdNanos) {
+        this.slowThresholdNanos = slowThresholdNanos;
+        this.listener = listener;
+    }
+
+    /**
+     * @return immutable copy of recorded metrics.
+     */
+    public Snapshot snapshot() {
+        ViewTypeMetrics[] currentViewTypes = viewTypes;
+        int[] types = new int[currentViewTypes.length];
+        HistogramSnapshot[] createSnapshots = new HistogramSnapshot[currentViewTypes.length];
+        HistogramSnapshot[] bindSnapshots = new HistogramSnapshot[currentViewTypes.length];
+        for (int i = 0; i < currentViewTypes.length; i++) {
+            types[i] = currentViewTypes[i].viewType;
+            createSnapshots[i] = currentViewTypes[i].create.snapshot();
+            bindSnapshots[i] = currentViewTypes[i].bind.snapshot();
+        }
+        return new Snapshot(types, createSnapshots, bindSnapshots, diffCalculation.snapshot(), diffDispatch.snapshot());
+    }
+
+    /**
+     * Clears all recorded metrics, e.g. after they were exported.
+     */
+    public void reset() {
+        for (ViewTypeMetrics metrics : viewTypes) {
+            metrics.create.reset();
+            metrics.bind.reset();
+        }
+        diffCalculation.reset();
+        diffDispatch.reset();
+    }
+
+    void recordCreate(int viewType, long nanos) {
+        getViewTypeMetrics(viewType).create.record(nanos);
+        notifyIfSlow(OPERATION_CREATE, viewType, nanos);
+    }
+
+    void recordBind(int viewType, long nanos) {
+        getViewTypeMetrics(viewType).bind.record(nanos);
+        notifyIfSlow(OPERATION_BIND, viewType, nanos);
+    }
+
+    void recordDiffCalculation(long nanos) {
+        diffCalculation.record(nanos);
+        notifyIfSlow(OPERATION_DIFF_CALCULATION, NO_VIEW_TYPE, nanos);
+    }
+
+    void recordDiffDispatch(long nanos) {
+        diffDispatch.record(nanos);
+        notifyIfSlow(OPERATION_DIFF_DISPATCH, NO_VIEW_TYPE, nanos);
+    }
+
+    private void notifyIfSlow(int operation, int viewType, long nanos) {
+        Listener currentListener = listener;
+        if (currentListener != null && nanos > slowThresholdNanos) {
+            currentListener.onSlowOperation(operation, viewType, nanos);
+        }
+    }
+
+    private ViewTypeMetrics getViewTypeMetrics(int viewType) {
+        ViewTypeMetrics[] currentViewTypes = viewTypes;
+        int index = indexOf(currentViewTypes, viewType);
+        if (index >= 0) {
+            return currentViewTypes[index];
+        }
+
+        synchronized (viewTypesLock) {
+            currentViewTypes = viewTypes;
+            index = indexOf(currentViewTypes, viewType);
+            if (index >= 0) {
+                return currentViewTypes[index];
+            }
+
+            int insertIndex = -index - 1;
+            ViewTypeMetrics[] newViewTypes = new ViewTypeMetrics[currentViewTypes.length + 1];
+            System.arraycopy(currentViewTypes, 0, newViewTypes, 0, insertIndex);
+            System.arraycopy(currentViewTypes, insertIndex, newViewTypes, insertIndex + 1, currentViewTypes.length - insertIndex);
+            newViewTypes[insertIndex] = new ViewTypeMetrics(viewType);
+            viewTypes = newViewTypes;
+            return newViewTypes[insertIndex];
+        }
+    }
+
+    /**
+     * @return index of {@param viewType} in {@param viewTypes}, or -(insertion point) - 1 if it's not there.
+     */
+    private static int indexOf(ViewTypeMetrics[] viewTypes, int viewType) {
+        int low = 0;
+        int high = viewTypes.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (viewTypes[middle].viewType < viewType) {
+                low = middle + 1;
+            } else if (viewTypes[middle].viewType > viewType) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Notified about operations which took longer than the threshold.
+     */
+    public interface Listener {
+
+        /**
+         * @param operation one of OPERATION_ constants.
+         * @param viewType  view type which was created or bound, or {@link #NO_VIEW_TYPE} for diff operations.
+         */
+        void onSlowOperation(int operation, int viewType, long durationNanos);
+    }
+
+    /**
+     * Immutable copy of recorded metrics.
+     */
+    public static final class Snapshot {
+
+        private final int[] viewTypes;
+
+        private final HistogramSnapshot[] createLatencies;
+
+        private final HistogramSnapshot[] bindLatencies;
+
+        private final HistogramSnapshot diffCalculationLatency;
+
+        private final HistogramSnapshot diffDispatchLatency;
+
+        Snapshot(int[] viewTypes, HistogramSnapshot[] createLatencies, HistogramSnapshot[] bindLatencies,
+                HistogramSnapshot diffCalculationLatency, HistogramSnapshot diffDispatchLatency) {
+            this.viewTypes = viewTypes;
+            this.createLatencies = createLatencies;
+            this.bindLatencies = bindLatencies;
+            this.diffCalculationLatency = diffCalculationLatency;
+            this.diffDispatchLatency = diffDispatchLatency;
+        }
+
+        /**
+         * @return view types which were created or bound, in ascending order.
+         */
+        public int[] getViewTypes() {
+            return viewTypes.clone();
+        }
+
+        /**
+         * @return latencies of creating view holders with {@param viewType}, or null if none were created.
+         */
+        public HistogramSnapshot getCreateLatency(int viewType) {
+            int index = Arrays.binarySearch(viewTypes, viewType);
+            return index >= 0 ? createLatencies[index] : null;
+        }
+
+        /**
+         * @return latencies of binding view holders with {@param viewType}, or null if none were bound. Number of binds is the count of
+         * the histogram.
+         */
+        public HistogramSnapshot getBindLatency(int viewType) {
+            int index = Arrays.binarySearch(viewTypes, viewType);
+            return index >= 0 ? bindLatencies[index] : null;
+        }
+
+        /**
+         * @return latencies of diff calculations on the diff threads.
+         */
+        public HistogramSnapshot getDiffCalculationLatency() {
+            return diffCalculationLatency;
+        }
+
+        /**
+         * @return latencies of applying diff results and dispatching their notifications on the main thread.
+         */
+        public HistogramSnapshot getDiffDispatchLatency() {
+            return diffDispatchLatency;
+        }
+    }
+
+    /**
+     * Immutable copy of a latency histogram.
+     */
+    public static final class HistogramSnapshot {
+
+        private final long[] buckets;
+
+        private final long count;
+
+        private final long totalNanos;
+
+        private final long maxNanos;
+
+        HistogramSnapshot(long[] buckets, long totalNanos, long maxNanos) {
+            long bucketSum = 0;
+            for (long bucket : buckets) {
+                bucketSum += bucket;
+            }
+            this.buckets = buckets;
+            this.count = bucketSum;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getMeanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        /**
+         * @return number of latencies in [2^{@param bucket}, 2^({@param bucket} + 1)) nanoseconds.
+         */
+        public long getBucketCount(int bucket) {
+            return buckets[bucket];
+        }
+
+        /**
+         * @return upper bound of the bucket, which contains the latency at {@param percentile} (between 0 and 100), so the real value
+         * is at most twice lower.
+         */
+        public long getPercentileNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(maxNanos, (1L << (i + 1)) - 1);
+                }
+            }
+            return maxNanos;
+        }
+    }
+
+    /**
+     * Lock-free histogram of latencies with power-of-two buckets.
+     */
+    static final class Histogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            nanos = Math.max(0, nanos);
+            buckets.incrementAndGet(getBucket(nanos));
+            totalNanos.addAndGet(nanos);
+
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+            totalNanos.set(0);
+            maxNanos.set(0);
+        }
+
+        /**
+         * Histogram may be updated while it's copied, so the copy isn't necessarily consistent, but it doesn't miss any latency which was
+         * recorded before the copy started.
+         */
+        HistogramSnapshot snapshot() {
+            long[] bucketCounts = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                bucketCounts[i] = buckets.get(i);
+            }
+            return new HistogramSnapshot(bucketCounts, totalNanos.get(), maxNanos.get());
+        }
+
+        static int getBucket(long nanos) {
+            return nanos == 0 ? 0 : Math.min(BUCKET_COUNT - 1, Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos));
+        }
+    }
+
+    private static final class ViewTypeMetrics {
+
+        final int viewType;
+
+        final Histogram create = new Histogram();
+
+        final Histogram bind = new Histogram();
+
+        ViewTypeMetrics(int viewType) {
+            this.viewType = viewType;
+        }
+    }
+}
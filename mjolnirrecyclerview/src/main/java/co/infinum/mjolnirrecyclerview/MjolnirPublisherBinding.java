@@ -0,0 +1,261 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Subscribes {@link MjolnirRecyclerAdapter} to a Reactive Streams Publisher of item lists, e.g. a Flowable from RxJava or a Flux from
+ * Reactor, and updates the adapter with each emitted list through {@link MjolnirRecyclerAdapter#update(Collection)}.
+ * <p>
+ * Only one list is requested at a time, and the next one is requested only after the previous one was diffed and dispatched, so a
+ * source which honours backpressure is never ahead of the diffs. Lists can be emitted on any thread - they are handed to the main
+ * thread through a single slot, so if the source emits more than it was asked for, a list which wasn't passed to the adapter yet is
+ * dropped when a newer list arrives.
+ * <p>
+ * Subscription is cancelled when the RecyclerView is detached from the window, and the publisher is subscribed again when it is
+ * attached again, e.g. when a fragment view is recreated with the same adapter, unless the publisher has completed. Binding ends when
+ * {@link #dispose()} is called or the publisher fails. Reactive Streams library is not a dependency of this library, so it has to be
+ * added by the app which uses this class.
+ *
+ * @param <E> type of items.
+ */
+public final class MjolnirPublisherBinding<E> {
+
+    private final MjolnirRecyclerAdapter<E> adapter;
+
+    private final View view;
+
+    private final Publisher<? extends Collection<E>> publisher;
+
+    private final OnErrorListener errorListener;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Subscriber of the current attachment, or null if the view is detached. Accessed only on the main thread.
+     */
+    private ItemsSubscriber subscriber;
+
+    private boolean isCompleted;
+
+    private boolean isDisposed;
+
+    private final View.OnAttachStateChangeListener attachStateListener = new View.OnAttachStateChangeListener() {
+        @Override
+        public void onViewAttachedToWindow(View view) {
+            if (subscriber == null && !isCompleted) {
+                subscribe();
+            }
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View view) {
+            unsubscribe();
+        }
+    };
+
+    private final Runnable dispatchListener = new Runnable() {
+        @Override
+        public void run() {
+            if (subscriber != null) {
+                subscriber.requestNextIfDispatched();
+            }
+        }
+    };
+
+    private MjolnirPublisherBinding(MjolnirRecyclerView recyclerView, MjolnirRecyclerAdapter<E> adapter,
+            Publisher<? extends Collection<E>> publisher, @Nullable OnErrorListener errorListener) {
+        this.view = recyclerView;
+        this.adapter = adapter;
+        this.publisher = publisher;
+        this.errorListener = errorListener;
+    }
+
+    public static <E> MjolnirPublisherBinding<E> bind(@NonNull MjolnirRecyclerView recyclerView,
+            @NonNull MjolnirRecyclerAdapter<E> adapter, @NonNull Publisher<? extends Collection<E>> publisher) {
+        return bind(recyclerView, adapter, publisher, null);
+    }
+
+    /**
+     * Subscribes {@param adapter} to {@param publisher} while {@param recyclerView} is attached to the window. Has to be called on the
+     * main thread. Adapter can be bound to a single publisher at the time.
+     *
+     * @param errorListener listener which is notified about the error of {@param publisher} on the main thread, or null if the error
+     *                      should be thrown on the main thread.
+     * @return binding, which can be disposed before the view is detached.
+     */
+    public static <E> MjolnirPublisherBinding<E> bind(@NonNull MjolnirRecyclerView recyclerView,
+            @NonNull MjolnirRecyclerAdapter<E> adapter, @NonNull Publisher<? extends Collection<E>> publisher,
+            @Nullable OnErrorListener errorListener) {
+        MjolnirPublisherBinding<E> binding = new MjolnirPublisherBinding<>(recyclerView, adapter, publisher, errorListener);
+        adapter.setOnUpdatesDispatchedListener(binding.dispatchListener);
+        recyclerView.addOnAttachStateChangeListener(binding.attachStateListener);
+        // subscription is created while the view is attached or about to be attached
+        binding.subscribe();
+        return binding;
+    }
+
+    /**
+     * Cancels the subscription for good and drops the list which wasn't passed to the adapter yet. Has to be called on the main
+     * thread.
+     */
+    public void dispose() {
+        if (isDisposed) {
+            return;
+        }
+
+        isDisposed = true;
+        view.removeOnAttachStateChangeListener(attachStateListener);
+        adapter.setOnUpdatesDispatchedListener(null);
+        unsubscribe();
+    }
+
+    public boolean isDisposed() {
+        return isDisposed;
+    }
+
+    private void subscribe() {
+        subscriber = new ItemsSubscriber();
+        publisher.subscribe(subscriber);
+    }
+
+    private void unsubscribe() {
+        if (subscriber != null) {
+            subscriber.cancel();
+            subscriber = null;
+        }
+    }
+
+    public interface OnErrorListener {
+
+        void onError(Throwable error);
+    }
+
+    /**
+     * Subscriber of a single attachment. Reactive Streams don't allow a subscriber to be subscribed more than once, so a new one is
+     * created every time the view is attached.
+     */
+    private final class ItemsSubscriber implements Subscriber<Collection<E>> {
+
+        private final AtomicReference<Subscription> subscription = new AtomicReference<>();
+
+        /**
+         * Latest emitted list, which wasn't passed to the adapter yet, or null.
+         */
+        private final AtomicReference<Collection<E>> pendingItems = new AtomicReference<>();
+
+        private volatile boolean isCancelled;
+
+        /**
+         * True if a list was passed to the adapter, and the next one is requested once it is dispatched. Accessed only on the main
+         * thread.
+         */
+        private boolean isWaitingForDispatch;
+
+        private final Runnable deliverRunnable = new Runnable() {
+            @Override
+            public void run() {
+                Collection<E> items = pendingItems.getAndSet(null);
+                if (items != null && !isCancelled) {
+                    adapter.update(items);
+                    isWaitingForDispatch = true;
+                    requestNextIfDispatched();
+                }
+            }
+        };
+
+        /**
+         * Requests the next list if the last one was dispatched. Has to be called on the main thread.
+         */
+        void requestNextIfDispatched() {
+            if (isWaitingForDispatch && !adapter.hasPendingUpdates()) {
+                isWaitingForDispatch = false;
+                Subscription current = subscription.get();
+                if (current != null) {
+                    current.request(1);
+                }
+            }
+        }
+
+        /**
+         * Cancels the subscription and drops the list which wasn't passed to the adapter yet. Has to be called on the main thread.
+         */
+        void cancel() {
+            isCancelled = true;
+            handler.removeCallbacks(deliverRunnable);
+            pendingItems.set(null);
+
+            Subscription current = subscription.getAndSet(null);
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        @Override
+        public void onSubscribe(Subscription newSubscription) {
+            if (isCancelled || !subscription.compareAndSet(null, newSubscription)) {
+                // subscriber was cancelled before the publisher subscribed it, or it is already subscribed
+                newSubscription.cancel();
+                return;
+            }
+
+            // cancel() might have run between the check and the assignment
+            if (isCancelled && subscription.compareAndSet(newSubscription, null)) {
+                newSubscription.cancel();
+                return;
+            }
+            newSubscription.request(1);
+        }
+
+        @Override
+        public void onNext(Collection<E> items) {
+            if (!isCancelled && pendingItems.getAndSet(items) == null) {
+                handler.post(deliverRunnable);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            subscription.set(null);
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (isCancelled) {
+                        return;
+                    }
+
+                    dispose();
+                    if (errorListener != null) {
+                        errorListener.onError(error);
+                    } else {
+                        throw new IllegalStateException("Publisher of items has failed!", error);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void onComplete() {
+            // last list is still delivered, adapter keeps displaying it even after the view is attached again
+            subscription.set(null);
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!isCancelled) {
+                        isCompleted = true;
+                    }
+                }
+            });
+        }
+    }
+}
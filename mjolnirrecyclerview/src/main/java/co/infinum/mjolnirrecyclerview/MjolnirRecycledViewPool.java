@@ -0,0 +1,149 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+
+/**
+ * RecycledViewPool which can be shared between multiple {@link MjolnirRecyclerView}s, e.g. between horizontal carousels nested in a
+ * vertical list, and which sizes itself from usage statistics.
+ * <p>
+ * Every {@link MjolnirRecyclerView} which uses this pool reports views which are attached to and detached from it, so the pool knows
+ * the peak number of views of each type which were in use at the same time, across all RecyclerViews. That many views can end up in the
+ * pool at once, e.g. when a whole carousel is scrolled off the screen, so maximum number of recycled views of each type is raised to
+ * its peak usage, instead of throwing views away and inflating them again. Views can also be created ahead of first display with
+ * {@link #prefill(RecyclerView, int, int)}.
+ * <p>
+ * Adapters which share the pool must use different view types for views which are not interchangeable. Pool is used only on the main
+ * thread.
+ */
+public class MjolnirRecycledViewPool extends RecyclerView.RecycledViewPool {
+
+    /**
+     * Default maximum number of recycled views of each type, same as in RecycledViewPool.
+     */
+    public static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+
+    /**
+     * Maximum number of recycled views of each type is never raised above this limit, so a spike in usage doesn't keep too many views
+     * in memory.
+     */
+    public static final int DEFAULT_MAX_RECYCLED_VIEWS_LIMIT = 50;
+
+    private final int maxRecycledViewsLimit;
+
+    private final SparseIntArray attachedCounts = new SparseIntArray();
+
+    private final SparseIntArray peakCounts = new SparseIntArray();
+
+    private final SparseIntArray maxRecycledViews = new SparseIntArray();
+
+    public MjolnirRecycledViewPool() {
+        this(DEFAULT_MAX_RECYCLED_VIEWS_LIMIT);
+    }
+
+    /**
+     * @param maxRecycledViewsLimit maximum number of recycled views of each type, up to which the pool grows with peak usage.
+     */
+    public MjolnirRecycledViewPool(int maxRecycledViewsLimit) {
+        if (maxRecycledViewsLimit < DEFAULT_MAX_RECYCLED_VIEWS) {
+            throw new IllegalArgumentException("Limit has to be at least " + DEFAULT_MAX_RECYCLED_VIEWS + "!");
+        }
+        this.maxRecycledViewsLimit = maxRecycledViewsLimit;
+    }
+
+    @Override
+    public void setMaxRecycledViews(int viewType, int max) {
+        super.setMaxRecycledViews(viewType, max);
+        maxRecycledViews.put(viewType, max);
+    }
+
+    /**
+     * @return maximum number of recycled views with {@param viewType}, which are kept in the pool.
+     */
+    public int getMaxRecycledViews(int viewType) {
+        return maxRecycledViews.get(viewType, DEFAULT_MAX_RECYCLED_VIEWS);
+    }
+
+    /**
+     * @return number of views with {@param viewType}, which are attached to RecyclerViews using this pool at the moment.
+     */
+    public int getAttachedCount(int viewType) {
+        return attachedCounts.get(viewType);
+    }
+
+    /**
+     * @return peak number of views with {@param viewType}, which were attached to RecyclerViews using this pool at the same time.
+     */
+    public int getPeakCount(int viewType) {
+        return peakCounts.get(viewType);
+    }
+
+    /**
+     * Creates views with {@param viewType} with the adapter of {@param recyclerView} and puts them in the pool, until there are
+     * {@param count} of them, e.g. while the screen is loading, so first display doesn't have to inflate them. Maximum number of recycled
+     * views is raised, if needed, so none of them are thrown away.
+     * <p>
+     * {@param recyclerView} has to use this pool.
+     */
+    public void prefill(RecyclerView recyclerView, int viewType, int count) {
+        if (recyclerView.getRecycledViewPool() != this) {
+            throw new IllegalStateException("RecyclerView has to use this pool!");
+        }
+        if (recyclerView.getAdapter() == null) {
+            throw new IllegalStateException("RecyclerView has no adapter!");
+        }
+
+        count = Math.min(count, maxRecycledViewsLimit);
+        if (count > getMaxRecycledViews(viewType)) {
+            setMaxRecycledViews(viewType, count);
+        }
+        for (int i = getRecycledViewCount(viewType); i < count; i++) {
+            putRecycledView(recyclerView.getAdapter().createViewHolder(recyclerView, viewType));
+        }
+    }
+
+    /**
+     * Configures {@param carousel}, which is nested in another RecyclerView, to use this pool. Its layout manager prefetches
+     * {@param initialPrefetchItemCount} items while the carousel is scrolled into view, and recycles its views into this pool when it is
+     * detached, so other carousels can reuse them.
+     * <p>
+     * {@param carousel} has to have a {@link LinearLayoutManager} already.
+     *
+     * @param initialPrefetchItemCount number of items which are visible when the carousel is first displayed.
+     */
+    public void setupNestedCarousel(RecyclerView carousel, int initialPrefetchItemCount) {
+        if (!(carousel.getLayoutManager() instanceof LinearLayoutManager)) {
+            throw new IllegalStateException("Carousel has to use LinearLayoutManager!");
+        }
+
+        LinearLayoutManager layoutManager = (LinearLayoutManager) carousel.getLayoutManager();
+        layoutManager.setInitialPrefetchItemCount(initialPrefetchItemCount);
+        layoutManager.setRecycleChildrenOnDetach(true);
+        carousel.setRecycledViewPool(this);
+    }
+
+    /**
+     * Called by {@link MjolnirRecyclerView} when a view with {@param viewType} is attached to it.
+     */
+    void onViewAttached(int viewType) {
+        int attachedCount = attachedCounts.get(viewType) + 1;
+        attachedCounts.put(viewType, attachedCount);
+
+        if (attachedCount > peakCounts.get(viewType)) {
+            peakCounts.put(viewType, attachedCount);
+
+            int max = Math.min(attachedCount, maxRecycledViewsLimit);
+            if (max > getMaxRecycledViews(viewType)) {
+                setMaxRecycledViews(viewType, max);
+            }
+        }
+    }
+
+    /**
+     * Called by {@link MjolnirRecyclerView} when a view with {@param viewType} is detached from it.
+     */
+    void onViewDetached(int viewType) {
+        attachedCounts.put(viewType, Math.max(0, attachedCounts.get(viewType) - 1));
+    }
+}
@@ -3,29 +3,32 @@ package co.infinum.mjolnirrecyclerview;
 import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
-import java.util.ArrayDeque;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 
 /**
  * Custom implementation of RecyclerView.Adapter, which has following features:
- * 1. Header and footer support
+ * 1. Headers, footers and sections support
  * 2. DiffUtil support
  * 3. ArrayAdapter methods
  * <p>
@@ -35,56 +38,330 @@ import java.util.concurrent.Executors;
  */
 public abstract class MjolnirRecyclerAdapter<E> extends RecyclerView.Adapter<MjolnirViewHolder> {
 
+    private static final String TAG = "MjolnirRecyclerAdapter";
+
     public static final int TYPE_HEADER = 111;
 
     public static final int TYPE_FOOTER = 222;
 
     public static final int TYPE_ITEM = 333;
 
+    public static final int TYPE_PLACEHOLDER = 444;
+
+    public static final int DEFAULT_MAX_NEXT_PAGE_OFFSET = 100;
+
+    /**
+     * View types of headers, footers and sections which are added with {@link #addHeader(View)}, {@link #addFooter(View)} and
+     * {@link #addSection(View, int)} start with this value. Don't use view types which are equal or higher for items.
+     */
+    public static final int TYPE_DECORATION_BASE = 1000000;
+
+    /**
+     * Stable ids of headers, footers, sections and placeholders are lower than this value, so item keys which are used as stable ids
+     * have to be equal or higher.
+     */
+    public static final long MIN_ITEM_KEY = Long.MIN_VALUE + (1L << 32);
+
+    /**
+     * Placeholders of items which are not loaded yet get stable ids from this value on, by their positions.
+     */
+    private static final long PLACEHOLDER_ID_BASE = Long.MIN_VALUE + (1L << 31);
+
     protected OnClickListener<E> listener;
 
+    protected OnLongClickListener<E> longClickListener;
+
     protected OnNextPageListener nextPageListener;
 
+    private boolean isClickDispatchEnabled;
+
+    /**
+     * Requests the next page. It is allocated once, so binding items close to the end doesn't allocate a new runnable every time.
+     */
+    private final Runnable nextPageRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (nextPageListener != null) {
+                nextPageListener.onScrolledToNextPage();
+            }
+        }
+    };
+
     private Context context;
 
-    protected List<E> items;
+    /**
+     * Persistent list of items, which can be snapshotted in O(1) for diff calculations and {@link #getAll()}.
+     */
+    private final PersistentItemList<E> items;
 
     private int nextPageOffset = 1;
 
+    private int maxNextPageOffset = DEFAULT_MAX_NEXT_PAGE_OFFSET;
+
+    private boolean isNextPageOffsetAdaptive;
+
+    private final PrefetchEstimator prefetchEstimator = new PrefetchEstimator();
+
     private View footerView;
 
     private View headerView;
 
+    /**
+     * Headers, footers and sections which were added in addition to the header and footer view, by their view types.
+     */
+    private final SparseArray<View> decorationViews = new SparseArray<>();
+
+    private int nextDecorationType = TYPE_DECORATION_BASE;
+
     private Handler handler = new Handler(Looper.getMainLooper());
 
+    private final Executor mainThreadExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            handler.post(command);
+        }
+    };
+
     protected boolean isCancelled = false;
 
     protected boolean isLoading = false;
 
-    protected Queue<Collection<E>> pendingUpdates = new ArrayDeque<>();
+    private MjolnirDiffEngine<E> diffEngine;
+
+    /**
+     * Index of item positions by their keys, or null if key extractor wasn't set.
+     */
+    private KeyPositionIndex<E> keyIndex;
+
+    /**
+     * External source of items, which is used instead of {@link #items} if it was set. Volatile, so mutations which are posted from
+     * other threads can be validated.
+     */
+    private volatile MjolnirItemSource<E> itemSource;
+
+    /**
+     * Receives changes from {@link #itemSource} and dispatches them like changes of {@link #items}.
+     */
+    private final ListUpdateCallback itemSourceCallback = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            onItemsArrived();
+            getItemNotifier().onInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            getItemNotifier().onRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            getItemNotifier().onMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            getItemNotifier().onChanged(position, count, payload);
+        }
+    };
+
+    private final UpdatePipeline<E> updatePipeline = new UpdatePipeline<>(new UpdatePipeline.Target<E>() {
+        @Override
+        public List<E> getItemsSnapshot() {
+            return items.snapshot();
+        }
+
+        @Override
+        public long getItemsVersion() {
+            return items.getVersion();
+        }
+
+        @Override
+        public Executor getDiffExecutor() {
+            return MjolnirRecyclerAdapter.this.getDiffExecutor();
+        }
+
+        @Override
+        public MjolnirMetrics getMetrics() {
+            return metrics;
+        }
+
+        @Override
+        public void applyUpdate(List<E> newItems, MjolnirDiffResult result) {
+            long start = metrics != null ? System.nanoTime() : 0;
+            items.setAll(newItems);
+            invalidateKeyIndex();
+            result.dispatchUpdatesTo(getItemNotifier());
+
+            if (metrics != null) {
+                metrics.recordDiffDispatch(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void replaceItems(List<E> newItems) {
+            MjolnirRecyclerAdapter.this.replaceItems(newItems);
+        }
+    }, mainThreadExecutor);
+
+    /**
+     * Maps item positions to adapter positions. It receives update operations in item positions, keeps sections in front of their
+     * items and notifies adapter about the operations in adapter positions.
+     */
+    private final AdapterPositionMap positionMap = new AdapterPositionMap(new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            notifyItemRangeChanged(position, count, payload);
+        }
+    });
+
+    /**
+     * Operations recorded since {@link #beginBatch()}, or null if there is no open batch.
+     */
+    private UpdateOperations batchOperations;
+
+    /**
+     * Number of nested {@link #beginBatch()} calls, which weren't committed yet.
+     */
+    private int batchDepth;
+
+    /**
+     * True if a change during the open batch requires notifyDataSetChanged() instead of recorded operations.
+     */
+    private boolean isBatchInvalidated;
 
-    private ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    /**
+     * Executor which was set with {@link #setDiffExecutor(Executor)}, or null if shared {@link MjolnirDiffScheduler} is used.
+     */
+    private Executor customDiffExecutor;
 
     private RecyclerView.LayoutManager layoutManager;
 
+    /**
+     * Views which were inflated in the background with {@link #preInflate(ViewGroup, int, int)}.
+     */
+    private final ViewPreInflater preInflater = new ViewPreInflater();
+
+    /**
+     * Metrics which were set with {@link #setMetrics(MjolnirMetrics)}, or null if they are disabled.
+     */
+    private MjolnirMetrics metrics;
+
+    private MjolnirItemFilter<E> itemFilter;
+
+    /**
+     * Current filter query, or null if items are not filtered.
+     */
+    private String filterQuery;
+
+    /**
+     * All items while they are filtered, of which {@link #items} are a subsequence, or null if items are not filtered. Volatile, so
+     * mutations which are posted from other threads can be validated.
+     */
+    private volatile List<E> unfilteredItems;
+
+    /**
+     * Items of the latest diff update, which is still being calculated, so filtering doesn't start from outdated items.
+     */
+    private List<E> pendingItems;
+
+    /**
+     * Filters items on the diff thread and reuses the result of the last query.
+     */
+    private final IncrementalFilter<E> incrementalFilter = new IncrementalFilter<>(updatePipeline);
+
+    /**
+     * Comparator which keeps items sorted, or null if items are kept in the order in which they were added.
+     */
+    private Comparator<? super E> comparator;
+
+    /**
+     * Mutations which were posted from any thread, applied on the main thread once per frame.
+     */
+    private final MutationQueue<E> mutationQueue = new MutationQueue<>(new MutationQueue.Target<E>() {
+        @Override
+        public void applyMutations(List<MutationQueue.Mutation<E>> mutations) {
+            MjolnirRecyclerAdapter.this.applyMutations(mutations);
+        }
+
+        @Override
+        public boolean mayContain(E item) {
+            if (itemSource != null || unfilteredItems != null) {
+                return true;
+            } else if (keyIndex != null) {
+                return keyIndex.indexOf(keyIndex.getKeyExtractor().getKey(item)) >= 0;
+            } else if (comparator != null) {
+                return SortedItems.indexOf(items, comparator, item) >= 0;
+            }
+            // finding an item with equals() takes O(n), which is not worth it for cancelling a single mutation
+            return true;
+        }
+    }, mainThreadExecutor);
+
     public MjolnirRecyclerAdapter(Context context, Collection<E> list) {
         this.context = context;
-        this.items = new ArrayList<>(list);
+        this.items = new PersistentItemList<>(list);
     }
 
     @Override
     public MjolnirViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        if (metrics == null) {
+            return createViewHolderOfType(parent, viewType);
+        }
+
+        long start = System.nanoTime();
+        MjolnirViewHolder holder = createViewHolderOfType(parent, viewType);
+        metrics.recordCreate(viewType, System.nanoTime() - start);
+        return holder;
+    }
+
+    private MjolnirViewHolder createViewHolderOfType(ViewGroup parent, int viewType) {
         // Check if we have to inflate ItemViewHolder of HeaderFooterHolder
         switch (viewType) {
             case TYPE_HEADER:
                 return onCreateHeaderViewHolder();
             case TYPE_FOOTER:
                 return onCreateFooterViewHolder();
+            case TYPE_PLACEHOLDER:
+                return onCreatePlaceholderViewHolder(parent);
             default:
-                return onCreateItemViewHolder(parent, viewType);
+                View decorationView = decorationViews.get(viewType);
+                if (decorationView != null) {
+                    return onCreateDecorationViewHolder(decorationView);
+                }
+                MjolnirViewHolder holder = onCreateItemViewHolder(parent, viewType);
+                if (isClickDispatchEnabled) {
+                    holder.registerClickDispatcher(this);
+                }
+                return holder;
         }
     }
 
+    /**
+     * Override if you need a custom implementation.
+     *
+     * @param view header, footer or section view, which was added with {@link #addHeader(View)}, {@link #addFooter(View)} or
+     *             {@link #addSection(View, int)}.
+     */
+    protected MjolnirViewHolder onCreateDecorationViewHolder(View view) {
+        return new MjolnirHeaderFooterViewHolder(view);
+    }
+
     /**
      * Override if you need a custom implementation.
      */
@@ -100,243 +377,1179 @@ public abstract class MjolnirRecyclerAdapter<E> extends RecyclerView.Adapter<Mjo
 
     }
 
-    protected abstract MjolnirViewHolder onCreateItemViewHolder(ViewGroup parent, int viewType);
+    /**
+     * Creates view holder for items of {@link MjolnirItemSource}, which are not loaded yet. By default, an empty view is used -
+     * override this method to display a placeholder with the size of the item.
+     */
+    protected MjolnirViewHolder onCreatePlaceholderViewHolder(ViewGroup parent) {
+        View view = new View(parent.getContext());
+        setDefaultLayoutParams(view);
+        return new MjolnirHeaderFooterViewHolder(view);
+    }
+
+    protected abstract MjolnirViewHolder onCreateItemViewHolder(ViewGroup parent, int viewType);
+
+    /**
+     * Inflates {@param count} views with {@param layoutRes} on a background thread ahead of time, e.g. before the first page of items
+     * is loaded, so view holders can be created without inflating layouts on the main thread. Views are inflated on a dedicated
+     * thread, not on the diff executor, so pre-inflation doesn't delay diffs. Use {@link #inflate(int, ViewGroup)} in
+     * {@link #onCreateItemViewHolder(ViewGroup, int)} to use the pre-inflated views.
+     *
+     * @param parent    RecyclerView to which views will be added, which is used to create their layout params.
+     * @param layoutRes layout of the views, usually one per view type.
+     * @param count     number of views to inflate, e.g. number of views of this type which fit on the screen.
+     */
+    public void preInflate(ViewGroup parent, @LayoutRes int layoutRes, int count) {
+        // LayoutInflater is not thread safe, so the background inflation gets its own, like in AsyncLayoutInflater
+        preInflater.preInflate(LayoutInflater.from(getContext()).cloneInContext(getContext()), parent, layoutRes, count);
+    }
+
+    /**
+     * Returns a view with {@param layoutRes}, which was inflated with {@link #preInflate(ViewGroup, int, int)}. If there is none, the
+     * view is inflated on the main thread.
+     */
+    protected View inflate(@LayoutRes int layoutRes, ViewGroup parent) {
+        return preInflater.inflate(LayoutInflater.from(getContext()), parent, layoutRes);
+    }
+
+    /**
+     * @return number of views returned by {@link #inflate(int, ViewGroup)}, which were inflated ahead of time.
+     */
+    public int getPreInflatedHitCount() {
+        return preInflater.getHitCount();
+    }
+
+    /**
+     * @return number of views returned by {@link #inflate(int, ViewGroup)}, which had to be inflated on the main thread.
+     */
+    public int getPreInflatedMissCount() {
+        return preInflater.getMissCount();
+    }
+
+    /**
+     * @return number of views with {@param layoutRes}, which were inflated ahead of time and weren't used yet.
+     */
+    public int getPreInflatedViewCount(@LayoutRes int layoutRes) {
+        return preInflater.getAvailableCount(layoutRes);
+    }
+
+    @Override
+    public void onBindViewHolder(MjolnirViewHolder holder, int position) {
+        onBindViewHolder(holder, position, Collections.emptyList());
+    }
+
+    @Override
+    public void onBindViewHolder(MjolnirViewHolder holder, int position, List<Object> payloads) {
+        position = resolvePosition(position);
+
+        // headers, footers and sections are not bound, for now
+        if (position < 0) {
+            return;
+        }
+
+        E item;
+        if (itemSource != null) {
+            itemSource.onItemAccessed(position);
+            item = itemSource.get(position);
+
+            // placeholders are not bound
+            if (item == null) {
+                return;
+            }
+        } else {
+            item = items.get(position);
+        }
+
+        holder.setChangedFields(MjolnirChangePayload.mergeChangedFields(payloads));
+        if (metrics == null) {
+            holder.bind(item, position, payloads);
+        } else {
+            long start = System.nanoTime();
+            holder.bind(item, position, payloads);
+            metrics.recordBind(holder.getItemViewType(), System.nanoTime() - start);
+        }
+
+        if (nextPageListener != null && !isLoading
+                && position >= getCollectionCount() - getPrefetchDistance() && !isCancelled) {
+            isLoading = true;
+            prefetchEstimator.onLoadStarted(SystemClock.uptimeMillis());
+
+            // If RecyclerView is currently computing a layout, it's in a lockdown state and any
+            // attempt to update adapter contents will result in an exception. In these cases, we need to postpone the change
+            // using a Handler.
+            handler.post(nextPageRunnable);
+        }
+    }
+
+    /**
+     * Item count is calculated as sum of items, headers, sections and footers size.
+     *
+     * @return Adapter item count.
+     */
+    @Override
+    public int getItemCount() {
+        return positionMap.getTotalCount(getCollectionCount());
+    }
+
+    /**
+     * Returns items size. In case if there are no headers, sections or footers, the result will be the same as for getItemCount()
+     * method.
+     */
+    public int getCollectionCount() {
+        return itemSource != null ? itemSource.size() : items.size();
+    }
+
+    /**
+     * Sets the listener, which is notified when an item view is clicked, if click dispatch was enabled with
+     * {@link #setClickDispatchEnabled(boolean)}. Otherwise view holders have to notify {@link #listener} themselves.
+     */
+    public void setOnClickListener(OnClickListener<E> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the listener, which is notified when an item view is long clicked, if click dispatch was enabled with
+     * {@link #setClickDispatchEnabled(boolean)}.
+     */
+    public void setOnLongClickListener(OnLongClickListener<E> longClickListener) {
+        this.longClickListener = longClickListener;
+    }
+
+    /**
+     * Enables dispatching of item view clicks and long clicks to the listeners of this adapter. Dispatchers are registered on the item
+     * view of each view holder once, when it is created, and the clicked item is resolved from the holder's adapter position at the
+     * time of the click, so view holders don't have to create click listeners in bind(). Listeners can be set at any time.
+     * <p>
+     * Dispatchers replace click listeners which view holders set on their item views, so it is disabled by default. It has to be
+     * enabled before view holders are created, e.g. in the constructor of the adapter.
+     */
+    public void setClickDispatchEnabled(boolean enabled) {
+        isClickDispatchEnabled = enabled;
+    }
+
+    public boolean isClickDispatchEnabled() {
+        return isClickDispatchEnabled;
+    }
+
+    /**
+     * Notifies click listener about a click on the view holder at {@param adapterPosition}. Clicks on headers, footers, sections and
+     * placeholders are ignored.
+     */
+    void dispatchClick(int adapterPosition) {
+        int position = resolvePosition(adapterPosition);
+        E item = position >= 0 ? get(position) : null;
+        if (listener != null && item != null) {
+            listener.onClick(position, item);
+        }
+    }
+
+    /**
+     * @return true if long click listener consumed the long click on the view holder at {@param adapterPosition}.
+     */
+    boolean dispatchLongClick(int adapterPosition) {
+        int position = resolvePosition(adapterPosition);
+        E item = position >= 0 ? get(position) : null;
+        return longClickListener != null && item != null && longClickListener.onLongClick(position, item);
+    }
+
+    public void setOnNextPageListener(OnNextPageListener listener, int nextPageOffset) {
+        this.nextPageOffset = nextPageOffset;
+        setOnNextPageListener(listener);
+    }
+
+    public void setOnNextPageListener(OnNextPageListener nextPageListener) {
+        this.nextPageListener = nextPageListener;
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    /**
+     * Sets the isCancelled flag to true, which will cancel DiffUtil.DiffResult update dispatch to the adapter. Call this method when
+     * your activity or fragment is about to be destroyed.
+     */
+    public void cancel() {
+        isCancelled = true;
+        updatePipeline.cancel();
+    }
+
+    /**
+     * Sets the isCancelled flag to false, which will enable DiffUtil.DiffResult update dispatch to the adapter.
+     */
+    public void reset() {
+        isCancelled = false;
+        updatePipeline.reset();
+    }
+
+    /**
+     * Sets the executor on which DiffUtil.DiffResult is calculated. By default, adapter uses a process-wide {@link MjolnirDiffScheduler},
+     * so there is no need to call this method unless you want to run diff calculations on your own threads.
+     *
+     * @param executor Executor used for diff calculations, or null to use the shared {@link MjolnirDiffScheduler}.
+     */
+    public void setDiffExecutor(@Nullable Executor executor) {
+        this.customDiffExecutor = executor;
+    }
+
+    /**
+     * @return executor on which DiffUtil.DiffResult is calculated.
+     */
+    protected Executor getDiffExecutor() {
+        return customDiffExecutor != null ? customDiffExecutor : MjolnirDiffScheduler.getInstance();
+    }
+
+    /**
+     * Acquires the shared {@link MjolnirDiffScheduler}, so its idle worker threads are kept alive while adapter is attached. Every
+     * acquire is paired with the release in {@link #onDetachedFromRecyclerView(RecyclerView)}.
+     */
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        MjolnirDiffScheduler.getInstance().acquire();
+    }
+
+    /**
+     * Releases the shared {@link MjolnirDiffScheduler}, so its idle worker threads can be stopped once no adapter is attached. Views
+     * which were pre-inflated and not used are dropped.
+     */
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        preInflater.clear();
+        MjolnirDiffScheduler.getInstance().release();
+    }
+
+    /**
+     * Enables recording of create and bind latencies per view type, and of diff latencies, into {@param metrics}. Metrics are disabled
+     * by default.
+     *
+     * @param metrics metrics, which can be shared by multiple adapters, or null to disable them.
+     */
+    public void setMetrics(@Nullable MjolnirMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Nullable
+    public MjolnirMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isLoading() {
+        return isLoading;
+    }
+
+    public void setLoading(boolean loading) {
+        isLoading = loading;
+    }
+
+    /**
+     * Ends the page load latency sample, if the next page was requested. Called only when collection items are added or updated, and
+     * not on other changes which clear the loading state, e.g. of headers, footers, sections or filtered items.
+     */
+    private void onItemsArrived() {
+        prefetchEstimator.onLoadFinished(SystemClock.uptimeMillis());
+    }
+
+    // region Batch updates
+
+    /**
+     * Starts a batch of changes. Until the matching {@link #commitBatch()} is called, ArrayAdapter like methods and updates only record
+     * their notifications - adjacent ranges are merged and the smallest set of notifications is dispatched once the batch is committed.
+     * Batches can be nested, in which case notifications are dispatched when the outermost batch is committed.
+     * <p>
+     * RecyclerView is not aware of the changes until the batch is committed, so the batch should be committed before the main thread
+     * returns to the layout pass.
+     */
+    public void beginBatch() {
+        if (batchDepth++ == 0) {
+            batchOperations = new UpdateOperations();
+            isBatchInvalidated = false;
+        }
+    }
+
+    /**
+     * Commits the batch, which was started with {@link #beginBatch()}, and dispatches recorded notifications.
+     */
+    public void commitBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("There is no batch to commit!");
+        }
+
+        if (--batchDepth == 0) {
+            flushBatch();
+            batchOperations = null;
+        }
+    }
+
+    /**
+     * Runs {@param changes} in a single batch. See {@link #beginBatch()} for details.
+     */
+    public void performBatch(@NonNull Runnable changes) {
+        beginBatch();
+        try {
+            changes.run();
+        } finally {
+            commitBatch();
+        }
+    }
+
+    /**
+     * @return true if there is a batch, which was started with {@link #beginBatch()} and wasn't committed yet.
+     */
+    public boolean isInBatch() {
+        return batchDepth > 0;
+    }
+
+    /**
+     * @return callback which either records notifications in the open batch, or dispatches them right away.
+     */
+    private ListUpdateCallback getItemNotifier() {
+        return batchOperations != null ? batchOperations : positionMap;
+    }
+
+    /**
+     * Notifies adapter that the whole data set has changed, or postpones the notification until the open batch is committed.
+     */
+    private void notifyItemsReplaced() {
+        invalidateKeyIndex();
+        if (batchOperations != null) {
+            isBatchInvalidated = true;
+            batchOperations.clear();
+        } else {
+            positionMap.onItemsReplaced(getCollectionCount());
+            notifyDataSetChanged();
+        }
+    }
+
+    private void dispatchInserted(int position, int count) {
+        if (keyIndex != null) {
+            keyIndex.onInserted(position, count);
+        }
+        getItemNotifier().onInserted(position, count);
+    }
+
+    private void dispatchRemoved(int position, int count) {
+        if (keyIndex != null) {
+            keyIndex.onRemoved(position, count);
+        }
+        getItemNotifier().onRemoved(position, count);
+    }
+
+    /**
+     * Dispatches the move of a changed item, which was removed from {@param fromPosition} and inserted at {@param toPosition}.
+     */
+    private void dispatchMoved(int fromPosition, int toPosition) {
+        if (keyIndex != null) {
+            keyIndex.onRemoved(fromPosition, 1);
+            keyIndex.onInserted(toPosition, 1);
+        }
+        getItemNotifier().onMoved(fromPosition, toPosition);
+        getItemNotifier().onChanged(toPosition, 1, null);
+    }
+
+    private void dispatchChanged(int position) {
+        if (keyIndex != null) {
+            keyIndex.onChanged(position);
+        }
+        getItemNotifier().onChanged(position, 1, null);
+    }
+
+    private void invalidateKeyIndex() {
+        if (keyIndex != null) {
+            keyIndex.invalidate();
+        }
+    }
+
+    /**
+     * Dispatches notifications, which were recorded in the open batch so far. Called before header, footer or section changes,
+     * because recorded item positions are mapped to adapter positions with the current decorations.
+     */
+    private void flushBatch() {
+        if (batchOperations == null) {
+            return;
+        }
+
+        if (isBatchInvalidated) {
+            isBatchInvalidated = false;
+            positionMap.onItemsReplaced(getCollectionCount());
+            notifyDataSetChanged();
+        } else {
+            batchOperations.dispatchUpdatesTo(positionMap);
+        }
+        batchOperations.clear();
+    }
+
+    // endregion
+
+    // region Mutations from any thread
+
+    /**
+     * Adds {@param item} like {@link #add(Object)}, but can be called from any thread. Posted mutations are applied on the main thread
+     * in the next frame, all at once in a single batch, and mutations which cancel out, like adding and then removing an item which
+     * isn't displayed, are dropped before they are applied. Mutations which are posted from the same thread are applied in the order
+     * of posting.
+     * <p>
+     * Like {@link #add(Object)}, it throws IllegalStateException if items are filtered or provided by an item source. If that happens
+     * only after the mutation was posted, the mutation is dropped when it is applied.
+     */
+    public void postAdd(E item) {
+        checkItemsModifiable();
+        mutationQueue.post(MutationQueue.TYPE_ADD, item, null);
+    }
+
+    /**
+     * Adds items of {@param collection} like {@link #addAll(Collection)}, but can be called from any thread. See {@link #postAdd(Object)}.
+     */
+    public void postAddAll(Collection<E> collection) {
+        checkItemsModifiable();
+        mutationQueue.post(MutationQueue.TYPE_ADD_ALL, null, new ArrayList<>(collection));
+    }
+
+    /**
+     * Removes {@param item} like {@link #remove(Object)}, but can be called from any thread. See {@link #postAdd(Object)}.
+     */
+    public void postRemove(E item) {
+        checkItemsModifiable();
+        mutationQueue.post(MutationQueue.TYPE_REMOVE, item, null);
+    }
+
+    /**
+     * Replaces the item with the same key as {@param item}, like {@link #updateByKey(long, Object)}, but can be called from any thread.
+     * Positions change while mutations are queued, so items are replaced by their keys instead. Key extractor is read only on the main
+     * thread, so if it is not set when the mutation is applied, the mutation is dropped. See {@link #postAdd(Object)}.
+     */
+    public void postSet(E item) {
+        checkItemsModifiable();
+        mutationQueue.post(MutationQueue.TYPE_SET, item, null);
+    }
+
+    /**
+     * Updates items like {@link #update(Collection)}, but can be called from any thread. Mutations which were posted before it and not
+     * applied yet are dropped. See {@link #postAdd(Object)}.
+     */
+    public void postUpdate(Collection<E> newItems) {
+        checkNoItemSource();
+        mutationQueue.post(MutationQueue.TYPE_UPDATE, null, new ArrayList<>(newItems));
+    }
+
+    private void applyMutations(List<MutationQueue.Mutation<E>> mutations) {
+        if (isCancelled) {
+            return;
+        }
+
+        beginBatch();
+        try {
+            for (int i = 0, size = mutations.size(); i < size; i++) {
+                MutationQueue.Mutation<E> mutation = mutations.get(i);
+                // items could have become filtered or provided by an item source after the mutation was posted
+                if (itemSource != null || (unfilteredItems != null && mutation.type != MutationQueue.TYPE_UPDATE)) {
+                    Log.w(TAG, "Posted mutation was dropped, because items can't be modified anymore.");
+                    continue;
+                }
+
+                switch (mutation.type) {
+                    case MutationQueue.TYPE_ADD:
+                        add(mutation.item);
+                        break;
+                    case MutationQueue.TYPE_ADD_ALL:
+                        addAll(mutation.collection);
+                        break;
+                    case MutationQueue.TYPE_REMOVE:
+                        remove(mutation.item);
+                        break;
+                    case MutationQueue.TYPE_SET:
+                        if (keyIndex != null) {
+                            updateByKey(keyIndex.getKeyExtractor().getKey(mutation.item), mutation.item);
+                        } else {
+                            Log.w(TAG, "Posted set was dropped, because key extractor is not set.");
+                        }
+                        break;
+                    case MutationQueue.TYPE_UPDATE:
+                        update(mutation.collection);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown mutation type " + mutation.type + "!");
+                }
+            }
+        } finally {
+            commitBatch();
+        }
+    }
+
+    // endregion
+
+    // region ArrayAdapter methods
+
+    /**
+     * Adds {@param item} to the end, or at its sorted position if comparator was set with {@link #setComparator(Comparator)}.
+     */
+    public void add(E item) {
+        checkItemsModifiable();
+        onItemsArrived();
+        int position = comparator != null ? SortedItems.findInsertPosition(items, comparator, item, 0) : items.size();
+        items.add(position, item);
+        dispatchInserted(position, 1);
+    }
+
+    /**
+     * Adds items of {@param collection} to the end, or at their sorted positions if comparator was set with
+     * {@link #setComparator(Comparator)}, in which case items which end up next to each other are dispatched as a single range.
+     */
+    public void addAll(Collection<E> collection) {
+        checkItemsModifiable();
+        onItemsArrived();
+        if (comparator != null) {
+            addAllSorted(sortedCopy(collection));
+            return;
+        }
+
+        int position = items.size();
+        items.addAll(collection);
+        dispatchInserted(position, collection.size());
+    }
+
+    public void add(E item, int index) {
+        checkItemsModifiable();
+        checkNotSorted();
+        if (index > items.size()) {
+            throw new IllegalStateException("Index is defined in wrong range!");
+        } else {
+            onItemsArrived();
+            items.add(index, item);
+            dispatchInserted(index, 1);
+        }
+    }
+
+    public void addAll(@NonNull Collection<E> collection, int index) {
+        checkItemsModifiable();
+        checkNotSorted();
+        if (index >= items.size()) {
+            throw new IllegalStateException("Index is defined in wrong range!");
+        } else {
+            onItemsArrived();
+            items.addAll(index, collection);
+            dispatchInserted(index, collection.size());
+        }
+    }
+
+    /**
+     * Removes {@param item}. If key extractor was set with {@link #setKeyExtractor(KeyExtractor)}, item with the same key is found in
+     * O(log n). Otherwise items are compared with equals(), only among items which are equal by the comparator if it was set with
+     * {@link #setComparator(Comparator)}.
+     */
+    public void remove(@NonNull E item) {
+        checkItemsModifiable();
+        int position;
+        if (keyIndex != null) {
+            position = keyIndex.indexOf(keyIndex.getKeyExtractor().getKey(item));
+        } else if (comparator != null) {
+            position = SortedItems.indexOf(items, comparator, item);
+        } else {
+            position = items.indexOf(item);
+        }
+        if (position >= 0) {
+            items.remove(position);
+            dispatchRemoved(position, 1);
+        }
+    }
+
+    /**
+     * Removes all items contained in {@param collection} in a single pass. Removed items are dispatched as range removals, so the
+     * remaining items keep their view holders and removals are animated.
+     * <p>
+     * If key extractor was set with {@link #setKeyExtractor(KeyExtractor)}, items with the same keys as items of {@param collection}
+     * are removed in O(n). Otherwise items are found with contains() of {@param collection}, so pass a set for O(1) lookups if items
+     * implement hashCode().
+     */
+    public void removeAll(@NonNull Collection<E> collection) {
+        checkItemsModifiable();
+        boolean isModified;
+        if (keyIndex != null && !collection.isEmpty()) {
+            final KeyExtractor<E> keyExtractor = keyIndex.getKeyExtractor();
+            final LongIntHashMap keys = new LongIntHashMap(collection.size());
+            for (E item : collection) {
+                keys.put(keyExtractor.getKey(item), 0);
+            }
+            isModified = items.removeMatching(new PersistentItemList.ItemMatcher<E>() {
+                @Override
+                public boolean matches(E item) {
+                    return keys.containsKey(keyExtractor.getKey(item));
+                }
+            }, getItemNotifier());
+        } else {
+            isModified = items.removeAll(collection, getItemNotifier());
+        }
+
+        if (isModified) {
+            invalidateKeyIndex();
+        }
+    }
+
+    public void remove(int index) {
+        checkItemsModifiable();
+        if (index >= items.size()) {
+            throw new IllegalStateException("Index is defined in wrong range!");
+        } else {
+            items.remove(index);
+            dispatchRemoved(index, 1);
+        }
+    }
+
+    /**
+     * @return item at {@param index}, or null if item source is set and the item is not loaded yet.
+     */
+    public E get(int index) {
+        if (index >= getCollectionCount()) {
+            throw new IllegalStateException("Index is defined in wrong range!");
+        }
+        return itemSource != null ? itemSource.get(index) : items.get(index);
+    }
+
+    /**
+     * @return immutable snapshot of current items, which is not affected by later changes of the adapter. Snapshot is taken in O(1).
+     * If item source is set, a read-only view of its items is returned instead.
+     */
+    public Collection<E> getAll() {
+        if (itemSource != null) {
+            final MjolnirItemSource<E> source = itemSource;
+            return new AbstractList<E>() {
+                @Override
+                public E get(int index) {
+                    return source.get(index);
+                }
+
+                @Override
+                public int size() {
+                    return source.size();
+                }
+            };
+        }
+        return items.snapshot();
+    }
+
+    /**
+     * Sets the external source of items, e.g. {@link PagedItemSource}, which is displayed instead of the items of this adapter. Items
+     * of the source can't be modified through the adapter - methods which modify items throw IllegalStateException while item source
+     * is set. Items which are not loaded yet are displayed as placeholders, see {@link #onCreatePlaceholderViewHolder(ViewGroup)}.
+     *
+     * @param itemSource item source, or null to display the items of this adapter again.
+     */
+    public void setItemSource(@Nullable MjolnirItemSource<E> itemSource) {
+        if (this.itemSource != null) {
+            this.itemSource.detach();
+        }
+
+        this.itemSource = itemSource;
+        updatePipeline.clear();
+        pendingItems = null;
+        clearFilter();
+        notifyItemsReplaced();
+
+        if (itemSource != null) {
+            itemSource.attach(itemSourceCallback);
+        }
+    }
+
+    @Nullable
+    public MjolnirItemSource<E> getItemSource() {
+        return itemSource;
+    }
+
+    private void checkNoItemSource() {
+        if (itemSource != null) {
+            throw new IllegalStateException("Items are provided by the item source and can't be modified through the adapter!");
+        }
+    }
+
+    private void checkItemsModifiable() {
+        checkNoItemSource();
+        if (unfilteredItems != null) {
+            throw new IllegalStateException("Items are filtered and can only be modified with update()!");
+        }
+    }
+
+    /**
+     * Replaces the item at {@param index} with {@param item}. If comparator was set with {@link #setComparator(Comparator)} and the
+     * new item belongs to a different position, it is moved there and the move is dispatched along with the change.
+     */
+    public void set(E item, int index) {
+        checkItemsModifiable();
+        if (comparator != null && !SortedItems.isSortedAt(items, comparator, item, index)) {
+            items.remove(index);
+            int newIndex = SortedItems.findInsertPosition(items, comparator, item, 0);
+            items.add(newIndex, item);
+            dispatchMoved(index, newIndex);
+            return;
+        }
+
+        items.set(index, item);
+        dispatchChanged(index);
+    }
+
+    /**
+     * Sets the extractor of item keys, which enables {@link #indexOf(long)}, {@link #contains(long)}, {@link #updateByKey(long, Object)}
+     * and {@link #removeByKey(long)} and makes {@link #remove(Object)} find items by their keys. Positions of keys are indexed and the
+     * index is kept up to date as items change, so all of these methods run in O(log n). Keys should be unique.
+     * <p>
+     * Keys are also used as stable ids, once they are enabled with {@link #setHasStableIds(boolean)}.
+     *
+     * @param keyExtractor key extractor, or null to disable the index.
+     */
+    public void setKeyExtractor(@Nullable KeyExtractor<E> keyExtractor) {
+        if (keyExtractor == null && hasStableIds()) {
+            throw new IllegalStateException("Key extractor is needed for stable ids!");
+        }
+        keyIndex = keyExtractor != null ? new KeyPositionIndex<>(items, keyExtractor) : null;
+    }
+
+    /**
+     * Enables stable ids, which are item keys from the key extractor that was set with {@link #setKeyExtractor(KeyExtractor)}. With
+     * stable ids, RecyclerView keeps view holders of items which are still present after notifyDataSetChanged(), e.g. after
+     * {@link #clear()} or {@link #update(Collection)} without a diff engine, and can animate their changes. Item keys have to be unique,
+     * equal or higher than {@link #MIN_ITEM_KEY} and different from {@link RecyclerView#NO_ID}.
+     * <p>
+     * Stable ids have to be enabled before adapter is set to RecyclerView.
+     */
+    @Override
+    public void setHasStableIds(boolean hasStableIds) {
+        if (hasStableIds && keyIndex == null) {
+            throw new IllegalStateException("Key extractor is needed for stable ids!");
+        }
+        super.setHasStableIds(hasStableIds);
+    }
+
+    /**
+     * @return key of the item at {@param position}, if key extractor was set. Headers, footers and sections get ids from their view
+     * types and placeholders from their positions, all of them lower than {@link #MIN_ITEM_KEY}. Item keys which are lower than
+     * {@link #MIN_ITEM_KEY} could be equal to those ids, and {@link RecyclerView#NO_ID} would be treated as a missing id, so both throw.
+     */
+    @Override
+    public long getItemId(int position) {
+        if (keyIndex == null) {
+            return RecyclerView.NO_ID;
+        }
+
+        int itemPosition = resolvePosition(position);
+        if (itemPosition < 0) {
+            return Long.MIN_VALUE + getItemViewType(position);
+        }
+
+        E item = get(itemPosition);
+        if (item == null) {
+            return PLACEHOLDER_ID_BASE + itemPosition;
+        }
+
+        long key = keyIndex.getKeyExtractor().getKey(item);
+        if (key < MIN_ITEM_KEY || key == RecyclerView.NO_ID) {
+            throw new IllegalStateException("Key " + key + " of item at position " + itemPosition
+                    + " can't be used as stable id, keys have to be equal or higher than MIN_ITEM_KEY and different from NO_ID!");
+        }
+        return key;
+    }
+
+    @Nullable
+    public KeyExtractor<E> getKeyExtractor() {
+        return keyIndex != null ? keyIndex.getKeyExtractor() : null;
+    }
+
+    /**
+     * @return position of the item with {@param key}, or -1 if there is no such item.
+     */
+    public int indexOf(long key) {
+        return requireKeyIndex().indexOf(key);
+    }
+
+    public boolean contains(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Replaces the item with {@param key} with {@param item}.
+     *
+     * @return true if item with {@param key} was found, false otherwise.
+     */
+    public boolean updateByKey(long key, E item) {
+        int position = indexOf(key);
+        if (position < 0) {
+            return false;
+        }
+        set(item, position);
+        return true;
+    }
+
+    /**
+     * Removes the item with {@param key}.
+     *
+     * @return true if item with {@param key} was found, false otherwise.
+     */
+    public boolean removeByKey(long key) {
+        int position = indexOf(key);
+        if (position < 0) {
+            return false;
+        }
+        remove(position);
+        return true;
+    }
+
+    private KeyPositionIndex<E> requireKeyIndex() {
+        checkNoItemSource();
+        if (keyIndex == null) {
+            throw new IllegalStateException("Key extractor is not set!");
+        }
+        return keyIndex;
+    }
+
+    /**
+     * Clears current items. If items are filtered, filter is cleared as well.
+     */
+    public void clear() {
+        checkNoItemSource();
+        items.clear();
+        updatePipeline.clear();
+        pendingItems = null;
+        clearFilter();
+        notifyItemsReplaced();
+    }
+
+    /**
+     * Update the current adapter state. If {@param callback} is provided, an updated data set is calculated with DiffUtil, otherwise
+     * current data set is clear and {@param newItems} are added to the internal items collection.
+     * <p>
+     * Diff updates are coalesced - if this method is called again while a diff is calculated, only the latest {@param newItems} are
+     * dispatched. Because {@param callback} is bound to a single pair of old and new items, consider using
+     * {@link #setDiffEngine(MjolnirDiffEngine)} and {@link #update(Collection)} instead, so that each update gets its own callback.
+     * <p>
+     * If items are filtered or sorted, {@param callback} can't be used, because it is bound to the order of {@param newItems}. New
+     * items are filtered, sorted and diffed like in {@link #update(Collection)} instead.
+     *
+     * @param newItems Collection of new items, which are added to adapter.
+     * @param callback DiffUtil callback, which is used to update the items.
+     */
+    public void update(Collection<E> newItems, @Nullable final DiffUtil.Callback callback) {
+        checkNoItemSource();
+        onItemsArrived();
+        if (unfilteredItems != null || comparator != null) {
+            update(newItems);
+        } else if (callback != null) {
+            List<E> updatedItems = new ArrayList<>(newItems);
+            pendingItems = updatedItems;
+            // callback is bound to current items, so it is not recalculated if they change in the meantime
+            updatePipeline.submitOnce(updatedItems, new MjolnirDiffEngine<E>() {
+                @Override
+                public MjolnirDiffResult calculateDiff(List<E> oldList, List<E> newList) {
+                    return DiffUtilDiffEngine.calculateDiff(callback, true);
+                }
+            });
+        } else {
+            replaceItems(newItems);
+        }
+    }
+
+    /**
+     * Update the current adapter state. If diff engine was set with {@link #setDiffEngine(MjolnirDiffEngine)}, an updated data set is
+     * calculated on the background thread and only the latest of the queued updates is dispatched. Otherwise current data set is
+     * cleared and {@param newItems} are added to the internal items collection.
+     * <p>
+     * In both cases, items which are shared at the start and at the end of current and new items are not diffed, so appending or
+     * prepending a page results in a single range notification.
+     * <p>
+     * If items are filtered, {@param newItems} replace the unfiltered items and are filtered with the current query on the diff
+     * executor, before they are diffed. If comparator was set with {@link #setComparator(Comparator)}, {@param newItems} are sorted
+     * first.
+     *
+     * @param newItems Collection of new items, which are added to adapter.
+     */
+    public void update(Collection<E> newItems) {
+        checkNoItemSource();
+        onItemsArrived();
+        if (unfilteredItems != null) {
+            updateFiltered(newItems);
+        } else if (diffEngine != null) {
+            submitUpdate(sortedCopy(newItems), diffEngine);
+        } else {
+            replaceItems(newItems);
+        }
+    }
+
+    private void submitUpdate(List<E> newItems, MjolnirDiffEngine<E> engine) {
+        pendingItems = newItems;
+        updatePipeline.submit(newItems, engine);
+    }
+
+    private void updateFiltered(Collection<E> newItems) {
+        unfilteredItems = Collections.unmodifiableList(sortedCopy(newItems));
+        // filtered items are not a subsequence of new items, so the diff engine is used if it was set
+        submitFilter(diffEngine != null ? diffEngine : new SubsequenceDiffEngine<>(unfilteredItems));
+    }
+
+    /**
+     * Sets the diff engine, which is used by {@link #update(Collection)}. Use {@link DiffUtilDiffEngine} to calculate diffs with
+     * DiffUtil.
+     *
+     * @param diffEngine diff engine, or null if items should be replaced without diffing.
+     */
+    public void setDiffEngine(@Nullable MjolnirDiffEngine<E> diffEngine) {
+        this.diffEngine = diffEngine;
+    }
 
-    @Override
-    public void onBindViewHolder(MjolnirViewHolder holder, int position) {
-        onBindViewHolder(holder, position, Collections.emptyList());
+    public MjolnirDiffEngine<E> getDiffEngine() {
+        return diffEngine;
     }
 
-    @Override
-    public void onBindViewHolder(MjolnirViewHolder holder, int position, List<Object> payloads) {
+    /**
+     * @return number of updates, which were dropped without being dispatched because a newer update was submitted in the meantime.
+     */
+    public int getSkippedUpdateCount() {
+        return updatePipeline.getSkippedCount();
+    }
 
-        //check what type of view our position is
-        switch (getItemViewType(position)) {
-            case TYPE_HEADER:
-            case TYPE_FOOTER:
-                //Nothing, for now.
-                break;
-            default:
-                position = calculateIndex(position, true);
-                E item = items.get(position);
-                holder.bind(item, position, payloads);
-
-                if (nextPageListener != null && !isLoading
-                        && position >= getCollectionCount() - getNextPageOffset() && !isCancelled) {
-                    isLoading = true;
-
-                    // If RecyclerView is currently computing a layout, it's in a lockdown state and any
-                    // attempt to update adapter contents will result in an exception. In these cases, we need to postpone the change
-                    // using a Handler.
-                    handler.post(new Runnable() {
-                        @Override
-                        public void run() {
-                            nextPageListener.onScrolledToNextPage();
-                        }
-                    });
-                }
-                break;
+    /**
+     * Replaces items without diffing. If new items only add or remove items in one place, e.g. a new page was appended, a single range
+     * notification is dispatched instead of notifyDataSetChanged().
+     */
+    private void replaceItems(Collection<E> newItems) {
+        updatePipeline.clear();
+        pendingItems = null;
+        List<E> oldItems = items.snapshot();
+        items.setAll(comparator != null ? sortedCopy(newItems) : newItems);
+        invalidateKeyIndex();
+
+        DiffUtil.Callback callback = new DiffTrimming.EqualityCallback<>(oldItems, items.snapshot());
+        int prefix = DiffTrimming.commonPrefix(callback);
+        int suffix = DiffTrimming.commonSuffix(callback, prefix);
+
+        if (oldItems.size() < items.size() && prefix + suffix == oldItems.size()) {
+            getItemNotifier().onInserted(prefix, items.size() - oldItems.size());
+        } else if (oldItems.size() > items.size() && prefix + suffix == items.size()) {
+            getItemNotifier().onRemoved(prefix, oldItems.size() - items.size());
+        } else {
+            notifyItemsReplaced();
         }
     }
 
     /**
-     * Item count is calculated as sum of items, headers and footers size.
+     * Calculates the item index, because RecyclerView doesn't distinguish between header, section, footer and item rows.
      *
-     * @return Adapter item count.
+     * @param adapterPosition RecyclerView row index.
+     * @return item index, or a negative value if there is a header, section or footer at {@param adapterPosition}.
      */
-    @Override
-    public int getItemCount() {
+    private int resolvePosition(int adapterPosition) {
+        if (adapterPosition >= getItemCount()) {
+            throw new IllegalStateException("Index is defined in wrong range!");
+        }
+        return positionMap.resolve(adapterPosition, getCollectionCount());
+    }
 
-        int itemCount = items != null ? items.size() : 0;
+    // region Filtering
 
-        if (hasFooter()) {
-            itemCount++;
-        }
+    /**
+     * Sets the filter, which is used by {@link #filter(CharSequence)}. If items are filtered, they are filtered again with the new
+     * filter.
+     */
+    public void setItemFilter(@Nullable MjolnirItemFilter<E> itemFilter) {
+        this.itemFilter = itemFilter;
+        incrementalFilter.clear();
 
-        if (hasHeader()) {
-            itemCount++;
+        if (unfilteredItems != null) {
+            if (itemFilter != null) {
+                submitFilter(new SubsequenceDiffEngine<>(unfilteredItems));
+            } else {
+                filter(null);
+            }
         }
+    }
 
-        return itemCount;
-
+    @Nullable
+    public MjolnirItemFilter<E> getItemFilter() {
+        return itemFilter;
     }
 
     /**
-     * Returns items size. In case if there are no headers or footers, the result will be the same as for getItemCount() method.
+     * Filters items with the filter which was set with {@link #setItemFilter(MjolnirItemFilter)}, e.g. as the user types into a search
+     * field. Items are filtered on the diff executor and only the result of the latest query is dispatched - filtering of older queries
+     * stops as soon as a new query is submitted. If the new query narrows the previous one, only items which matched the previous query
+     * are filtered again.
+     * <p>
+     * Filtered items are dispatched as removals and insertions, so headers, footers and sections stay in place and the remaining items
+     * keep their view holders. While items are filtered, {@link #getAll()} returns filtered items and they can only be changed with
+     * {@link #update(Collection)}, which filters the new items as well, or {@link #clear()}, which also clears the filter.
+     *
+     * @param query query, or null or an empty query to display all items again.
      */
-    public int getCollectionCount() {
-        return items.size();
-    }
+    public void filter(@Nullable CharSequence query) {
+        checkNoItemSource();
+        String newQuery = query != null ? query.toString() : "";
+
+        if (newQuery.isEmpty()) {
+            if (unfilteredItems != null) {
+                List<E> allItems = unfilteredItems;
+                clearFilter();
+                submitUpdate(allItems, new SubsequenceDiffEngine<>(allItems));
+            }
+            return;
+        }
 
-    public void setOnClickListener(OnClickListener<E> listener) {
-        this.listener = listener;
-    }
+        if (itemFilter == null) {
+            throw new IllegalStateException("Item filter is not set!");
+        }
+        if (newQuery.equals(filterQuery)) {
+            return;
+        }
 
-    public void setOnNextPageListener(OnNextPageListener listener, int nextPageOffset) {
-        this.nextPageOffset = nextPageOffset;
-        setOnNextPageListener(listener);
+        if (unfilteredItems == null) {
+            unfilteredItems = getLatestItems();
+        }
+        filterQuery = newQuery;
+        submitFilter(new SubsequenceDiffEngine<>(unfilteredItems));
     }
 
-    public void setOnNextPageListener(OnNextPageListener nextPageListener) {
-        this.nextPageListener = nextPageListener;
+    /**
+     * @return current filter query, or null if items are not filtered.
+     */
+    @Nullable
+    public String getFilterQuery() {
+        return filterQuery;
     }
 
-    public Context getContext() {
-        return context;
+    public boolean isFiltered() {
+        return unfilteredItems != null;
     }
 
     /**
-     * Sets the isCancelled flag to true, which will cancel DiffUtil.DiffResult update dispatch to the adapter. Call this method when
-     * your activity or fragment is about to be destroyed.
+     * @return true if an update is being diffed or is waiting for a diff.
      */
-    public void cancel() {
-        isCancelled = true;
+    boolean hasPendingUpdates() {
+        return updatePipeline.isBusy();
     }
 
     /**
-     * Sets the isCancelled flag to false, which will enable DiffUtil.DiffResult update dispatch to the adapter.
+     * Sets {@param listener}, which is run on the main thread once all updates which were being diffed are dispatched, or null.
      */
-    public void reset() {
-        isCancelled = false;
+    void setOnUpdatesDispatchedListener(@Nullable Runnable listener) {
+        updatePipeline.setIdleListener(listener);
     }
 
-    public boolean isLoading() {
-        return isLoading;
+    /**
+     * @return items of the update which is still being diffed, because it would be superseded by the next update, or current items.
+     */
+    private List<E> getLatestItems() {
+        return updatePipeline.isBusy() && pendingItems != null ? pendingItems : items.snapshot();
     }
 
-    public void setLoading(boolean loading) {
-        isLoading = loading;
+    private void clearFilter() {
+        unfilteredItems = null;
+        filterQuery = null;
+        incrementalFilter.clear();
     }
 
-    // region ArrayAdapter methods
-
-    public void add(E item) {
-        int position = items.size();
-        items.add(item);
-        notifyItemInserted(calculateIndex(position, false));
-    }
+    /**
+     * Submits filtering of unfiltered items with the current query, whose result is diffed against displayed items with {@param engine}.
+     */
+    private void submitFilter(MjolnirDiffEngine<E> engine) {
+        final List<E> source = unfilteredItems;
+        final String query = filterQuery;
+        final MjolnirItemFilter<E> filter = itemFilter;
 
-    public void addAll(Collection<E> collection) {
-        int position = items.size();
-        items.addAll(collection);
-        notifyItemRangeInserted(calculateIndex(position, false), collection.size());
+        pendingItems = null;
+        updatePipeline.submit(new UpdatePipeline.ItemsProducer<E>() {
+            @Override
+            public List<E> produce(long updateGeneration) {
+                return incrementalFilter.filter(source, filter, query, updateGeneration);
+            }
+        }, engine);
     }
 
-    public void add(E item, int index) {
-        if (index > items.size()) {
-            throw new IllegalStateException("Index is defined in wrong range!");
-        } else {
-            items.add(index, item);
-            notifyItemInserted(calculateIndex(index, false));
-        }
-    }
+    // endregion
 
-    public void addAll(@NonNull Collection<E> collection, int index) {
-        if (index >= items.size()) {
-            throw new IllegalStateException("Index is defined in wrong range!");
-        } else {
-            items.addAll(index, collection);
-            notifyItemRangeInserted(calculateIndex(index, false), collection.size());
-        }
-    }
+    // region Sorting
 
-    public void remove(@NonNull E item) {
-        int position = items.indexOf(item);
-        if (items.remove(item)) {
-            notifyItemRemoved(calculateIndex(position, false));
-        }
-    }
+    /**
+     * Keeps items sorted by {@param comparator}, similar to SortedList. Current items are sorted right away, through
+     * {@link #update(Collection)}. Afterwards, {@link #add(Object)} and {@link #addAll(Collection)} insert items at their sorted positions,
+     * found with binary search in O(log n), and {@link #set(Object, int)} moves the item only if its position has changed. Adding items
+     * at an index is not allowed while items are sorted.
+     *
+     * @param comparator comparator, or null to keep items in the order in which they are added.
+     */
+    public void setComparator(@Nullable Comparator<? super E> comparator) {
+        checkNoItemSource();
+        this.comparator = comparator;
 
-    public void removeAll(@NonNull Collection<E> collection) {
-        if (items.removeAll(collection)) {
-            notifyDataSetChanged();
+        if (comparator != null) {
+            update(unfilteredItems != null ? unfilteredItems : getLatestItems());
         }
     }
 
-    public void remove(int index) {
-        if (index >= items.size()) {
-            throw new IllegalStateException("Index is defined in wrong range!");
-        } else if (items.remove(index) != null) {
-            notifyItemRemoved(calculateIndex(index, false));
-        }
+    @Nullable
+    public Comparator<? super E> getComparator() {
+        return comparator;
     }
 
-    public E get(int index) {
-        if (index >= items.size()) {
-            throw new IllegalStateException("Index is defined in wrong range!");
+    private void checkNotSorted() {
+        if (comparator != null) {
+            throw new IllegalStateException("Items are sorted and can't be added at an index!");
         }
-        return items.get(index);
-    }
-
-    public Collection<E> getAll() {
-        return new ArrayList<>(items);
-    }
-
-    public void set(E item, int index) {
-        items.set(index, item);
-        notifyItemChanged(calculateIndex(index, false));
     }
 
     /**
-     * Clears current items.
+     * @return copy of {@param collection}, which is sorted if comparator was set. Sort is stable, so equal items keep their order.
      */
-    public void clear() {
-        items.clear();
-        notifyDataSetChanged();
+    private List<E> sortedCopy(Collection<E> collection) {
+        List<E> copy = new ArrayList<>(collection);
+        if (comparator != null) {
+            Collections.sort(copy, comparator);
+        }
+        return copy;
     }
 
     /**
-     * Update the current adapter state. If {@param callback} is provided, an updated data set is calculated with DiffUtil, otherwise
-     * current data set is clear and {@param newItems} are added to the internal items collection.
-     *
-     * @param newItems Collection of new items, which are added to adapter.
-     * @param callback DiffUtil callback, which is used to update the items.
+     * Inserts {@param sortedItems} at their sorted positions. Positions of sorted items only grow, so each search starts after the
+     * previous item, and items which are inserted next to each other are dispatched as a single range.
      */
-    public void update(Collection<E> newItems, @Nullable DiffUtil.Callback callback) {
-        if (callback != null) {
-            pendingUpdates.add(newItems);
-            if (pendingUpdates.size() == 1) {
-                updateData(newItems, callback);
+    private void addAllSorted(List<E> sortedItems) {
+        if (sortedItems.isEmpty()) {
+            return;
+        }
+
+        if (sortedItems.size() >= items.size()) {
+            mergeSorted(sortedItems);
+            return;
+        }
+
+        int rangeStart = 0;
+        int rangeCount = 0;
+        for (int i = 0, size = sortedItems.size(); i < size; i++) {
+            E item = sortedItems.get(i);
+            int position = SortedItems.findInsertPosition(items, comparator, item, rangeStart + rangeCount);
+            if (position != rangeStart + rangeCount) {
+                if (rangeCount > 0) {
+                    dispatchInserted(rangeStart, rangeCount);
+                }
+                rangeStart = position;
+                rangeCount = 0;
             }
-        } else {
-            items.clear();
-            items.addAll(newItems);
-            notifyDataSetChanged();
+            items.add(position, item);
+            rangeCount++;
         }
+        dispatchInserted(rangeStart, rangeCount);
     }
 
     /**
-     * Calculate the correct item index because RecyclerView doesn't distinguish
-     * between header rows and item rows.
-     *
-     * We have 2 possible cases, which are defined with {@param isViewBinding} value:
-     *
-     * 1. If we are trying to bind the view, than the index value has to be decremented by 1 if adapter contains header
-     * view.
-     *
-     * 2. If we are trying to perform some action on the adapter, that the index value has to be incremented by 1
-     * if adapter contains header view.
-     *
-     * @param index         RecyclerView row index.
-     * @param isViewBinding boolean value, which indicates whether we are trying to bind the view or perform some action on adapter.
-     * @return correct item index.
+     * Merges {@param sortedItems} with current items and rebuilds items in O(n), which is cheaper than inserting them one by one when
+     * there are more new items than current ones.
      */
-    private int calculateIndex(int index, boolean isViewBinding) {
-        if (isViewBinding) {
-            index = index - (hasHeader() ? 1 : 0);
-
-            if (index >= items.size()) {
-                throw new IllegalStateException("Index is defined in wrong range!");
-            } else {
-                return index;
-            }
-        } else {
-            index = index + (hasHeader() ? 1 : 0);
-            return index;
-        }
+    private void mergeSorted(List<E> sortedItems) {
+        // adjacent insertions are merged into ranges while they are recorded
+        UpdateOperations insertions = new UpdateOperations();
+        items.setAll(SortedItems.merge(items.snapshot(), sortedItems, comparator, insertions));
+        invalidateKeyIndex();
+        insertions.dispatchUpdatesTo(getItemNotifier());
     }
 
-    // region Headers and Footers
+    // endregion
+
+    // region Headers, Footers and Sections
 
     /**
      * Add a footer view to this adapter. If footer already exists, it will be replaced.
@@ -364,16 +1577,16 @@ public abstract class MjolnirRecyclerAdapter<E> extends RecyclerView.Adapter<Mjo
      * @return true if footer was added/replaced, false otherwise.
      */
     public void setFooter(View footerView) {
+        flushBatch();
         boolean hadFooterBefore = hasFooter();
 
-        int position = getCollectionCount() + (hasHeader() ? 1 : 0);
         this.footerView = footerView;
         setDefaultLayoutParams(this.footerView);
 
         if (hadFooterBefore) {
-            notifyItemChanged(position);
+            notifyItemChanged(positionMap.getTotalCount(getCollectionCount()) - positionMap.getFooterCount());
         } else {
-            notifyItemInserted(position);
+            notifyItemInserted(positionMap.addFooter(0, TYPE_FOOTER, getCollectionCount()));
         }
     }
 
@@ -401,6 +1614,7 @@ public abstract class MjolnirRecyclerAdapter<E> extends RecyclerView.Adapter<Mjo
      * @param headerView layout view
      */
     public void setHeader(View headerView) {
+        flushBatch();
         boolean hadHeaderBefore = hasHeader();
 
         this.headerView = headerView;
@@ -409,10 +1623,131 @@ public abstract class MjolnirRecyclerAdapter<E> extends RecyclerView.Adapter<Mjo
         if (hadHeaderBefore) {
             notifyItemChanged(0);
         } else {
-            notifyItemInserted(0);
+            notifyItemInserted(positionMap.addHeader(0, TYPE_HEADER));
+        }
+    }
+
+    /**
+     * Adds a header view after the existing headers. Unlike {@link #setHeader(View)}, this method can be called multiple times, every
+     * view gets its own view type and is created with {@link #onCreateDecorationViewHolder(View)}.
+     *
+     * @param headerView layout view
+     */
+    public void addHeader(View headerView) {
+        flushBatch();
+        int type = addDecorationView(headerView);
+        notifyItemInserted(positionMap.addHeader(positionMap.getHeaderCount(), type));
+    }
+
+    /**
+     * Removes {@param headerView}, which was added with {@link #setHeader(View)} or {@link #addHeader(View)}.
+     */
+    public void removeHeader(View headerView) {
+        if (headerView == this.headerView) {
+            removeHeader();
+            return;
+        }
+
+        flushBatch();
+        int index = decorationViews.indexOfValue(headerView);
+        if (index >= 0) {
+            int position = positionMap.removeHeader(decorationViews.keyAt(index));
+            if (position >= 0) {
+                decorationViews.removeAt(index);
+                notifyItemRemoved(position);
+            }
+        }
+    }
+
+    /**
+     * Adds a footer view after the existing footers. Unlike {@link #setFooter(View)}, this method can be called multiple times, every
+     * view gets its own view type and is created with {@link #onCreateDecorationViewHolder(View)}.
+     *
+     * @param footerView layout view
+     */
+    public void addFooter(View footerView) {
+        flushBatch();
+        int type = addDecorationView(footerView);
+        notifyItemInserted(positionMap.addFooter(positionMap.getFooterCount(), type, getCollectionCount()));
+    }
+
+    /**
+     * Removes {@param footerView}, which was added with {@link #setFooter(View)} or {@link #addFooter(View)}.
+     */
+    public void removeFooter(View footerView) {
+        if (footerView == this.footerView) {
+            removeFooter();
+            return;
+        }
+
+        flushBatch();
+        int index = decorationViews.indexOfValue(footerView);
+        if (index >= 0) {
+            int position = positionMap.removeFooter(decorationViews.keyAt(index), getCollectionCount());
+            if (position >= 0) {
+                decorationViews.removeAt(index);
+                notifyItemRemoved(position);
+            }
+        }
+    }
+
+    /**
+     * Adds a section view in front of the item at {@param itemPosition}, e.g. a banner between items. Section stays in front of the
+     * same item as items are added, removed or moved. If the item is removed, section is moved in front of the next item. Sections can
+     * also be added at the end of items, by using the item count as {@param itemPosition}.
+     *
+     * @param sectionView  layout view
+     * @param itemPosition position of the item in front of which section is displayed.
+     */
+    public void addSection(View sectionView, int itemPosition) {
+        if (itemPosition < 0 || itemPosition > getCollectionCount()) {
+            throw new IllegalStateException("Index is defined in wrong range!");
+        }
+
+        flushBatch();
+        int type = addDecorationView(sectionView);
+        notifyItemInserted(positionMap.addSection(itemPosition, type));
+    }
+
+    /**
+     * Removes {@param sectionView}, which was added with {@link #addSection(View, int)}.
+     */
+    public void removeSection(View sectionView) {
+        flushBatch();
+        int index = decorationViews.indexOfValue(sectionView);
+        if (index >= 0) {
+            int position = positionMap.removeSection(decorationViews.keyAt(index));
+            if (position >= 0) {
+                decorationViews.removeAt(index);
+                notifyItemRemoved(position);
+            }
         }
     }
 
+    public int getHeaderCount() {
+        return positionMap.getHeaderCount();
+    }
+
+    public int getFooterCount() {
+        return positionMap.getFooterCount();
+    }
+
+    public int getSectionCount() {
+        return positionMap.getSectionCount();
+    }
+
+    /**
+     * Sets default layout params to {@param view} and assigns it a new view type.
+     *
+     * @return view type of {@param view}.
+     */
+    private int addDecorationView(View view) {
+        setDefaultLayoutParams(view);
+        int type = nextDecorationType++;
+        decorationViews.put(type, view);
+        return type;
+    }
+
     /**
      * Sets the default layout params to the provided {@param view} if they are not yet set. Default params are MATCH_PARENT for layout
      * width and WRAP_CONTENT for layout height.
@@ -439,9 +1774,10 @@ public abstract class MjolnirRecyclerAdapter<E> extends RecyclerView.Adapter<Mjo
      * Removes header view from the RecyclerView (if existing).
      */
     public void removeHeader() {
+        flushBatch();
         if (hasHeader()) {
             headerView = null;
-            notifyItemRemoved(0);
+            notifyItemRemoved(positionMap.removeHeader(TYPE_HEADER));
         }
     }
 
@@ -449,11 +1785,10 @@ public abstract class MjolnirRecyclerAdapter<E> extends RecyclerView.Adapter<Mjo
      * Removes footer view from the RecyclerView (if existing).
      */
     public void removeFooter() {
+        flushBatch();
         if (hasFooter()) {
             footerView = null;
-
-            int position = getCollectionCount() + (hasHeader() ? 1 : 0);
-            notifyItemRemoved(position);
+            notifyItemRemoved(positionMap.removeFooter(TYPE_FOOTER, getCollectionCount()));
         }
     }
 
@@ -475,14 +1810,21 @@ public abstract class MjolnirRecyclerAdapter<E> extends RecyclerView.Adapter<Mjo
      * @return true if item at {@param postion} is footer
      */
     protected boolean isFooter(int position) {
-        return hasFooter() && position == getItemCount() - 1;
+        return position >= getItemCount() - positionMap.getFooterCount();
     }
 
     /**
      * @return true if item at {@param postion} is header
      */
     protected boolean isHeader(int position) {
-        return hasHeader() && position == 0;
+        return position < positionMap.getHeaderCount();
+    }
+
+    /**
+     * @return true if item at {@param postion} is header, footer or section
+     */
+    protected boolean isDecoration(int position) {
+        return resolvePosition(position) < 0;
     }
 
     public View getFooterView() {
@@ -501,6 +1843,70 @@ public abstract class MjolnirRecyclerAdapter<E> extends RecyclerView.Adapter<Mjo
         this.nextPageOffset = nextPageOffset;
     }
 
+    /**
+     * Enables or disables adaptive next page offset. If enabled, next page is requested when the user is as many items away from the end
+     * of items as will be scrolled through while the page is loading. This number is estimated from the current scroll velocity and the
+     * moving average of recent page load latencies, and is kept between {@link #getNextPageOffset()} and
+     * {@link #getMaxNextPageOffset()}.
+     * <p>
+     * Scroll velocity is measured by {@link MjolnirRecyclerView} with LinearLayoutManager or GridLayoutManager. Page load latency is
+     * measured from the {@link OnNextPageListener#onScrolledToNextPage()} call until items are changed.
+     */
+    public void setAdaptiveNextPageOffset(boolean adaptive) {
+        this.isNextPageOffsetAdaptive = adaptive;
+    }
+
+    public boolean isNextPageOffsetAdaptive() {
+        return isNextPageOffsetAdaptive;
+    }
+
+    public int getMaxNextPageOffset() {
+        return maxNextPageOffset;
+    }
+
+    public void setMaxNextPageOffset(int maxNextPageOffset) {
+        this.maxNextPageOffset = maxNextPageOffset;
+    }
+
+    /**
+     * @return number of items from the end of items at which the next page is requested at the moment. It equals
+     * {@link #getNextPageOffset()}, unless adaptive next page offset is enabled.
+     */
+    public int getPrefetchDistance() {
+        if (!isNextPageOffsetAdaptive) {
+            return nextPageOffset;
+        }
+        return prefetchEstimator.getDistance(nextPageOffset, Math.max(nextPageOffset, maxNextPageOffset), SystemClock.uptimeMillis());
+    }
+
+    /**
+     * @return duration of the last page load in milliseconds.
+     */
+    public long getLastPageLoadLatency() {
+        return prefetchEstimator.getLastLatency();
+    }
+
+    /**
+     * @return moving average of page load durations in milliseconds.
+     */
+    public long getAveragePageLoadLatency() {
+        return prefetchEstimator.getAverageLatency();
+    }
+
+    /**
+     * @return current scroll velocity towards the end of items, in items per second.
+     */
+    public float getScrollVelocity() {
+        return prefetchEstimator.getVelocity(SystemClock.uptimeMillis());
+    }
+
+    /**
+     * Called by {@link MjolnirRecyclerView} whenever it is scrolled, to measure scroll velocity.
+     */
+    void onScrolled(int firstVisiblePosition) {
+        prefetchEstimator.onScrolled(firstVisiblePosition, SystemClock.uptimeMillis());
+    }
+
     public RecyclerView.LayoutManager getLayoutManager() {
         return layoutManager;
     }
@@ -516,8 +1922,8 @@ public abstract class MjolnirRecyclerAdapter<E> extends RecyclerView.Adapter<Mjo
 
     /**
      * If adapter is using GridLayoutManager, we have to register custom SpanSizeLookup listener and manipulate with span size - if current
-     * item is either header or footer, we return {@param layoutManager} span count as span size in order to position header or footer view
-     * in it's own column.
+     * item is header, footer or section, we return {@param layoutManager} span count as span size in order to position header, footer or
+     * section view in it's own column.
      *
      * @param layoutManager GridLayoutManager for which we attach SpanSizeLookup listener.
      */
@@ -525,7 +1931,7 @@ public abstract class MjolnirRecyclerAdapter<E> extends RecyclerView.Adapter<Mjo
         layoutManager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
             @Override
             public int getSpanSize(int position) {
-                if (isHeader(position) || isFooter(position)) {
+                if (isDecoration(position)) {
                     return layoutManager.getSpanCount();
                 } else {
                     return 1;
@@ -542,20 +1948,21 @@ public abstract class MjolnirRecyclerAdapter<E> extends RecyclerView.Adapter<Mjo
      */
     @Override
     public int getItemViewType(int position) {
-        //check what type our position is, based on the assumption that the order is headers > items > footers
-        if (isHeader(position)) {
-            return TYPE_HEADER;
-        } else if (isFooter(position)) {
-            return TYPE_FOOTER;
+        //check what type our position is, based on the assumption that the order is headers > items and sections > footers
+        int itemPosition = resolvePosition(position);
+        if (itemPosition < 0) {
+            return positionMap.getDecorationType(-1 - itemPosition);
+        } else if (itemSource != null && itemSource.get(itemPosition) == null) {
+            return TYPE_PLACEHOLDER;
         }
 
-        return getAdditionalItemViewType(position, calculateIndex(position, true));
+        return getAdditionalItemViewType(position, itemPosition);
     }
 
     /**
      * Override this method if you are using custom ItemViewType and provide correct implementation.
      * @param adapterPosition current adapter position
-     * @param itemPosition current item positions, which is different from {@param adapterPosition} if adapter has header view.
+     * @param itemPosition current item positions, which is different from {@param adapterPosition} if adapter has headers or sections.
      * @return item view type.
      */
     protected int getAdditionalItemViewType(int adapterPosition, int itemPosition) {
@@ -567,52 +1974,19 @@ public abstract class MjolnirRecyclerAdapter<E> extends RecyclerView.Adapter<Mjo
         void onClick(int index, E item);
     }
 
-    public interface OnNextPageListener {
+    public interface OnLongClickListener<E> {
 
-        void onScrolledToNextPage();
+        /**
+         * @return true if the long click was consumed.
+         */
+        boolean onLongClick(int index, E item);
     }
 
-    // endregion
+    public interface OnNextPageListener {
 
-    /**
-     * Calculates provided {@param callback} DiffResult by using DiffUtils.
-     *
-     * @param newItems Collection of new items, with which our current items collection is updated.
-     * @param callback DiffUtil.Callback on which DiffResult is calculated.
-     */
-    private void updateData(final Collection<E> newItems, final DiffUtil.Callback callback) {
-        executorService.execute(new Runnable() {
-            @Override
-            public void run() {
-                DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(callback);
-                postDiffResults(newItems, diffResult, callback);
-            }
-        });
+        void onScrolledToNextPage();
     }
 
-    /**
-     * Dispatched {@param diffResult} DiffResults to the adapter if adapter has not been cancelled. If there are any queued pending updates,
-     * it will peek the latest new items collection and once again update the adapter content.
-     *
-     * @param newItems   Collection of new items, with which our current items collection is updated.
-     * @param diffResult DiffUtil.DiffResult which was calculated for {@param callback}.
-     * @param callback   DiffUtil.Callback on which DiffResult was calculated.
-     */
-    private void postDiffResults(final Collection<E> newItems, final DiffUtil.DiffResult diffResult, final DiffUtil.Callback callback) {
-        if (!isCancelled) {
-            handler.post(new Runnable() {
-                @Override
-                public void run() {
-                    pendingUpdates.remove();
-                    diffResult.dispatchUpdatesTo(MjolnirRecyclerAdapter.this);
-                    items.clear();
-                    items.addAll(newItems);
-
-                    if (pendingUpdates.size() > 0) {
-                        updateData(pendingUpdates.peek(), callback);
-                    }
-                }
-            });
-        }
-    }
+
+    // endregion
 }
@@ -1,10 +1,14 @@
 package co.infinum.mjolnirrecyclerview;
 
 import android.content.Context;
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
 import android.view.View;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Custom implementation of RecyclerView, which has support for Empty view.
  *
@@ -16,6 +20,33 @@ public class MjolnirRecyclerView extends RecyclerView {
 
     private boolean showEmptyViewIfAdapterNotSet = false;
 
+    /**
+     * Shared pool, which is notified about attached and detached views, so it can size itself from peak usage.
+     */
+    private MjolnirRecycledViewPool managedPool;
+
+    /**
+     * View types of children which were reported to {@link #managedPool} as attached. RecyclerView doesn't notify about children which
+     * are still attached when it is detached from the window or when its pool is replaced, so their usage is released from here, and
+     * each child is reported only once.
+     */
+    private final Map<View, Integer> reportedViewTypes = new HashMap<>();
+
+    private final OnChildAttachStateChangeListener childAttachStateListener = new OnChildAttachStateChangeListener() {
+        @Override
+        public void onChildViewAttachedToWindow(View view) {
+            reportAttachedChild(view);
+        }
+
+        @Override
+        public void onChildViewDetachedFromWindow(View view) {
+            Integer viewType = reportedViewTypes.remove(view);
+            if (viewType != null && managedPool != null) {
+                managedPool.onViewDetached(viewType);
+            }
+        }
+    };
+
     /**
      * Custom AdapterDataObserver observer, which has two functions:
      * 1. Update the empty view visibility depending on adapter's content.
@@ -72,6 +103,19 @@ public class MjolnirRecyclerView extends RecyclerView {
         }
     }
 
+    /**
+     * Reports position of the first visible item to the adapter, which uses it to measure scroll velocity for the adaptive next page
+     * offset.
+     */
+    @Override
+    public void onScrolled(int dx, int dy) {
+        super.onScrolled(dx, dy);
+
+        if (getAdapter() instanceof MjolnirRecyclerAdapter && getLayoutManager() instanceof LinearLayoutManager) {
+            ((MjolnirRecyclerAdapter) getAdapter()).onScrolled(((LinearLayoutManager) getLayoutManager()).findFirstVisibleItemPosition());
+        }
+    }
+
     @Override
     public void setLayoutManager(LayoutManager layout) {
         super.setLayoutManager(layout);
@@ -101,9 +145,68 @@ public class MjolnirRecyclerView extends RecyclerView {
             ((MjolnirRecyclerAdapter) getAdapter()).setLayoutManager(getLayoutManager());
         }
 
+        // usage is reported again only for children which are still attached after the views of the old adapter were removed
+        releaseAttachedChildren();
+        reportAttachedChildren();
         checkIfEmpty();
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // children which were kept while the view was detached are in use again
+        reportAttachedChildren();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // children which weren't removed, e.g. because the layout manager doesn't recycle children on detach, are no longer in use
+        releaseAttachedChildren();
+    }
+
+    /**
+     * Sets the pool of recycled views. If {@param pool} is a {@link MjolnirRecycledViewPool}, it is notified about views which are
+     * attached to and detached from this RecyclerView, so it can be shared with other RecyclerViews and size itself from peak usage.
+     */
+    @Override
+    public void setRecycledViewPool(RecycledViewPool pool) {
+        // views which are currently attached move their usage from the old pool to the new one
+        releaseAttachedChildren();
+        super.setRecycledViewPool(pool);
+
+        if (managedPool == null && pool instanceof MjolnirRecycledViewPool) {
+            addOnChildAttachStateChangeListener(childAttachStateListener);
+        } else if (managedPool != null && !(pool instanceof MjolnirRecycledViewPool)) {
+            removeOnChildAttachStateChangeListener(childAttachStateListener);
+        }
+        managedPool = pool instanceof MjolnirRecycledViewPool ? (MjolnirRecycledViewPool) pool : null;
+        reportAttachedChildren();
+    }
+
+    private void reportAttachedChild(View view) {
+        if (managedPool != null && !reportedViewTypes.containsKey(view)) {
+            int viewType = getChildViewHolder(view).getItemViewType();
+            reportedViewTypes.put(view, viewType);
+            managedPool.onViewAttached(viewType);
+        }
+    }
+
+    private void reportAttachedChildren() {
+        for (int i = 0; i < getChildCount(); i++) {
+            reportAttachedChild(getChildAt(i));
+        }
+    }
+
+    private void releaseAttachedChildren() {
+        if (managedPool != null) {
+            for (int viewType : reportedViewTypes.values()) {
+                managedPool.onViewDetached(viewType);
+            }
+        }
+        reportedViewTypes.clear();
+    }
+
     /**
      * Sets the empty view. RecyclerView can have only one empty view at the time.
      *
@@ -7,9 +7,69 @@ import java.util.List;
 
 public abstract class MjolnirViewHolder<E> extends RecyclerView.ViewHolder {
 
+    /**
+     * Adapter to which clicks are dispatched, or null if click dispatch is not enabled.
+     */
+    private MjolnirRecyclerAdapter<E> clickAdapter;
+
+    private int changedFields = MjolnirChangePayload.ALL_FIELDS;
+
+    /**
+     * Dispatches clicks on the item view to the adapter, which resolves the clicked item with {@link #getAdapterPosition()} at the time
+     * of the click. It is registered once, when the holder is created, so binding doesn't allocate a click listener for every position.
+     */
+    private final ClickDispatcher clickDispatcher = new ClickDispatcher();
+
     public MjolnirViewHolder(View itemView) {
         super(itemView);
     }
 
     protected abstract void bind(E item, int position, List<Object> payloads);
+
+    /**
+     * @return bitmask of fields which have changed since the last bind, merged from all {@link MjolnirChangePayload}s of this bind, or
+     * {@link MjolnirChangePayload#ALL_FIELDS} if the whole item has to be bound. Valid only during {@link #bind(Object, int, List)}.
+     */
+    protected final int getChangedFields() {
+        return changedFields;
+    }
+
+    /**
+     * @return true if any of the fields in {@param fieldMask} has changed since the last bind.
+     */
+    protected final boolean hasChanged(int fieldMask) {
+        return (changedFields & fieldMask) != 0;
+    }
+
+    void setChangedFields(int changedFields) {
+        this.changedFields = changedFields;
+    }
+
+    /**
+     * Registers click and long click dispatchers on the item view. Listeners of the adapter are looked up at the time of the click, so
+     * they can be set or replaced after the holder was created.
+     */
+    void registerClickDispatcher(MjolnirRecyclerAdapter<E> adapter) {
+        clickAdapter = adapter;
+        itemView.setOnClickListener(clickDispatcher);
+        itemView.setOnLongClickListener(clickDispatcher);
+    }
+
+    private final class ClickDispatcher implements View.OnClickListener, View.OnLongClickListener {
+
+        @Override
+        public void onClick(View view) {
+            // position is NO_POSITION while the holder is being removed or its adapter is changing
+            int adapterPosition = getAdapterPosition();
+            if (adapterPosition != RecyclerView.NO_POSITION) {
+                clickAdapter.dispatchClick(adapterPosition);
+            }
+        }
+
+        @Override
+        public boolean onLongClick(View view) {
+            int adapterPosition = getAdapterPosition();
+            return adapterPosition != RecyclerView.NO_POSITION && clickAdapter.dispatchLongClick(adapterPosition);
+        }
+    }
 }
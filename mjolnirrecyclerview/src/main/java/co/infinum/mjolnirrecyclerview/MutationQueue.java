@@ -0,0 +1,209 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Queue of item mutations, which can be posted from any thread and are applied on the main thread, once per frame.
+ * <p>
+ * Producers push mutations onto a lock-free stack with a single compare-and-set, so they never block each other or the main thread.
+ * The producer which pushes onto an empty stack schedules the next drain, which takes all mutations at once on the main thread, in
+ * the next Choreographer frame. Mutations which cancel out before they are applied, like adding and then removing an item which
+ * isn't displayed yet, are dropped, and the remaining ones are handed to the target in the order in which they were posted.
+ *
+ * @param <E> type of items.
+ */
+final class MutationQueue<E> {
+
+    static final int TYPE_ADD = 1;
+
+    static final int TYPE_ADD_ALL = 2;
+
+    static final int TYPE_REMOVE = 3;
+
+    static final int TYPE_SET = 4;
+
+    static final int TYPE_UPDATE = 5;
+
+    private final Target<E> target;
+
+    private final Executor mainThreadExecutor;
+
+    /**
+     * Most recently posted mutation, which links to the older ones, or null if the queue is empty.
+     */
+    private final AtomicReference<Mutation<E>> head = new AtomicReference<>();
+
+    /**
+     * Schedules the drain on the main thread, where Choreographer is available.
+     */
+    private final Runnable frameScheduler = new Runnable() {
+        @Override
+        public void run() {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                if (frameCallback == null) {
+                    frameCallback = new DrainFrameCallback();
+                }
+                Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) frameCallback);
+            } else {
+                // there is no Choreographer, so mutations are applied in the next message instead
+                drain();
+            }
+        }
+    };
+
+    /**
+     * Created only on API 16 and higher, where Choreographer is available.
+     */
+    private Object frameCallback;
+
+    MutationQueue(Target<E> target, Executor mainThreadExecutor) {
+        this.target = target;
+        this.mainThreadExecutor = mainThreadExecutor;
+    }
+
+    /**
+     * Posts a mutation. Can be called from any thread.
+     *
+     * @param type       one of the TYPE_ constants.
+     * @param item       item of the mutation, or null if it has items.
+     * @param collection items of the mutation, or null if it has a single item.
+     */
+    void post(int type, E item, Collection<E> collection) {
+        Mutation<E> mutation = new Mutation<>(type, item, collection);
+        Mutation<E> next;
+        do {
+            next = head.get();
+            mutation.next = next;
+        } while (!head.compareAndSet(next, mutation));
+
+        if (next == null) {
+            mainThreadExecutor.execute(frameScheduler);
+        }
+    }
+
+    /**
+     * Takes all posted mutations and applies those which don't cancel out. Has to be called on the main thread.
+     */
+    void drain() {
+        Mutation<E> mutation = head.getAndSet(null);
+        if (mutation == null) {
+            return;
+        }
+
+        List<Mutation<E>> mutations = new ArrayList<>();
+        for (; mutation != null; mutation = mutation.next) {
+            mutations.add(mutation);
+        }
+
+        target.applyMutations(merge(mutations));
+    }
+
+    /**
+     * Drops mutations which don't change the result. {@param mutations} are in the reverse order of posting, returned ones are in the
+     * order of posting.
+     * <p>
+     * Adding and removing an item cancel out only if no equal item can be displayed or added in the meantime, because removal removes
+     * the first equal item, which could be a different one than the added item, e.g. on [x, y], adding and removing x results in
+     * [y, x].
+     */
+    private List<Mutation<E>> merge(List<Mutation<E>> mutations) {
+        List<Mutation<E>> merged = new ArrayList<>(mutations.size());
+        // positions of added items in merged mutations, which can still be cancelled by removing the same item
+        Map<E, Integer> addedItems = new HashMap<>();
+
+        for (int i = mutations.size() - 1; i >= 0; i--) {
+            Mutation<E> mutation = mutations.get(i);
+            mutation.next = null;
+
+            switch (mutation.type) {
+                case TYPE_UPDATE:
+                    // update replaces all items, so mutations before it have no effect
+                    merged.clear();
+                    addedItems.clear();
+                    break;
+                case TYPE_ADD:
+                    if (addedItems.containsKey(mutation.item)) {
+                        // removal would remove the earlier of equal items, so neither of them can be cancelled
+                        addedItems.put(mutation.item, null);
+                    } else if (!target.mayContain(mutation.item)) {
+                        addedItems.put(mutation.item, merged.size());
+                    }
+                    break;
+                case TYPE_REMOVE:
+                    Integer position = addedItems.get(mutation.item);
+                    if (position != null) {
+                        addedItems.remove(mutation.item);
+                        merged.set(position, null);
+                        continue;
+                    }
+                    break;
+                case TYPE_ADD_ALL:
+                case TYPE_SET:
+                    // equal items might be added, or added items replaced, so removals can't be matched with additions anymore
+                    addedItems.clear();
+                    break;
+                default:
+                    break;
+            }
+            merged.add(mutation);
+        }
+
+        List<Mutation<E>> result = new ArrayList<>(merged.size());
+        for (Mutation<E> mutation : merged) {
+            if (mutation != null) {
+                result.add(mutation);
+            }
+        }
+        return result;
+    }
+
+    static final class Mutation<E> {
+
+        final int type;
+
+        final E item;
+
+        final Collection<E> collection;
+
+        Mutation<E> next;
+
+        Mutation(int type, E item, Collection<E> collection) {
+            this.type = type;
+            this.item = item;
+            this.collection = collection;
+        }
+    }
+
+    interface Target<E> {
+
+        /**
+         * Applies {@param mutations} in the given order on the main thread.
+         */
+        void applyMutations(List<Mutation<E>> mutations);
+
+        /**
+         * @return false only if no item which is equal to {@param item} is displayed, true if it is or if that can't be checked
+         * quickly, in which case adding and removing it is not cancelled.
+         */
+        boolean mayContain(E item);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private final class DrainFrameCallback implements Choreographer.FrameCallback {
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            drain();
+        }
+    }
+}
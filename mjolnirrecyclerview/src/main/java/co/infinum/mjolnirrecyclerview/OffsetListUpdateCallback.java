@@ -0,0 +1,38 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.ListUpdateCallback;
+
+/**
+ * ListUpdateCallback, which shifts all positions by a fixed offset before passing them to the wrapped callback.
+ */
+final class OffsetListUpdateCallback implements ListUpdateCallback {
+
+    private final ListUpdateCallback callback;
+
+    private final int offset;
+
+    OffsetListUpdateCallback(ListUpdateCallback callback, int offset) {
+        this.callback = callback;
+        this.offset = offset;
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+        callback.onInserted(position + offset, count);
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        callback.onRemoved(position + offset, count);
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        callback.onMoved(fromPosition + offset, toPosition + offset);
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+        callback.onChanged(position + offset, count, payload);
+    }
+}
@@ -0,0 +1,389 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link MjolnirItemSource} which loads items in pages and keeps only a limited number of pages in memory.
+ * <p>
+ * Pages are loaded in both directions around the item which was bound last, and items of pages which are not loaded yet are
+ * displayed as placeholders. Once there are more than the maximum number of resident pages, pages which are the farthest from the
+ * last bound item are evicted - their items turn back into placeholders and they are loaded again when the user scrolls back to them.
+ * Total number of items is reported by the loader, so adapter positions stay the same no matter which pages are loaded.
+ *
+ * @param <E> type of items.
+ */
+public class PagedItemSource<E> implements MjolnirItemSource<E> {
+
+    public static final int DEFAULT_MAX_RESIDENT_PAGES = 5;
+
+    private static final int STATE_NOT_LOADED = 0;
+
+    private static final int STATE_LOADING = 1;
+
+    private static final int STATE_LOADED = 2;
+
+    private final PageLoader<E> loader;
+
+    private final int pageSize;
+
+    private final int maxResidentPages;
+
+    /**
+     * Executor on which loaded pages are handed to the main thread.
+     */
+    private final Executor mainThreadExecutor;
+
+    private Object[][] pages = new Object[0][];
+
+    private int[] pageStates = new int[0];
+
+    private int totalCount;
+
+    private boolean isCountKnown;
+
+    private int residentPageCount;
+
+    private int prefetchDistance = 1;
+
+    private int lastAccessedPage;
+
+    /**
+     * Incremented when pages are dropped, so results of loads which were started before are ignored.
+     */
+    private int generation;
+
+    private ListUpdateCallback callback;
+
+    public PagedItemSource(PageLoader<E> loader, int pageSize) {
+        this(loader, pageSize, DEFAULT_MAX_RESIDENT_PAGES, 0);
+    }
+
+    /**
+     * @param loader           loader of pages.
+     * @param pageSize         number of items in a page.
+     * @param maxResidentPages maximum number of pages which are kept in memory.
+     * @param initialPosition  position of the item which is loaded first, e.g. to open the list in the middle.
+     */
+    public PagedItemSource(PageLoader<E> loader, int pageSize, int maxResidentPages, int initialPosition) {
+        this(loader, pageSize, maxResidentPages, initialPosition, createMainThreadExecutor());
+    }
+
+    PagedItemSource(PageLoader<E> loader, int pageSize, int maxResidentPages, int initialPosition, Executor mainThreadExecutor) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size has to be at least 1!");
+        }
+        if (maxResidentPages < prefetchDistance * 2 + 1) {
+            throw new IllegalArgumentException("There has to be enough resident pages for the prefetched pages on both sides!");
+        }
+        this.loader = loader;
+        this.pageSize = pageSize;
+        this.maxResidentPages = maxResidentPages;
+        this.lastAccessedPage = initialPosition / pageSize;
+        this.mainThreadExecutor = mainThreadExecutor;
+    }
+
+    private static Executor createMainThreadExecutor() {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        return new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                handler.post(command);
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return totalCount;
+    }
+
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int position) {
+        if (position < 0 || position >= totalCount) {
+            throw new IllegalStateException("Index is defined in wrong range!");
+        }
+
+        Object[] page = pages[position / pageSize];
+        int offset = position % pageSize;
+        return page != null && offset < page.length ? (E) page[offset] : null;
+    }
+
+    @Override
+    public void onItemAccessed(int position) {
+        lastAccessedPage = position / pageSize;
+        loadAround(lastAccessedPage);
+    }
+
+    @Override
+    public void attach(ListUpdateCallback callback) {
+        this.callback = callback;
+
+        // nothing is bound until the item count is known, so the first page is loaded right away
+        if (!isCountKnown) {
+            loadAround(lastAccessedPage);
+        }
+    }
+
+    @Override
+    public void detach() {
+        callback = null;
+    }
+
+    /**
+     * Sets the number of pages which are loaded in each direction from the page of the last bound item. Maximum number of resident
+     * pages has to be at least twice as big, so prefetched pages are not evicted right away.
+     */
+    public void setPrefetchDistance(int prefetchDistance) {
+        if (prefetchDistance < 0 || maxResidentPages < prefetchDistance * 2 + 1) {
+            throw new IllegalArgumentException("Prefetch distance is defined in wrong range!");
+        }
+        this.prefetchDistance = prefetchDistance;
+        loadAround(lastAccessedPage);
+    }
+
+    public int getPrefetchDistance() {
+        return prefetchDistance;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getMaxResidentPages() {
+        return maxResidentPages;
+    }
+
+    /**
+     * @return number of pages which are currently kept in memory.
+     */
+    public int getResidentPageCount() {
+        return residentPageCount;
+    }
+
+    /**
+     * Drops all loaded pages and loads pages around the last bound item again, e.g. after data has changed on the server. Items are
+     * displayed as placeholders until their pages are loaded.
+     */
+    public void refresh() {
+        generation++;
+        Arrays.fill(pages, null);
+        Arrays.fill(pageStates, STATE_NOT_LOADED);
+        residentPageCount = 0;
+
+        if (callback != null && totalCount > 0) {
+            callback.onChanged(0, totalCount, null);
+        }
+        loadAround(lastAccessedPage);
+    }
+
+    /**
+     * Loads all resident pages again, e.g. after items were changed in the database, while their current items stay displayed. Once a
+     * page is loaded, only items which are not equal to the displayed ones are dispatched as changed, and a changed total count is
+     * dispatched as items inserted or removed at the end.
+     */
+    public void reload() {
+        generation++;
+        for (int i = 0; i < pageStates.length; i++) {
+            if (pages[i] != null) {
+                load(i);
+            } else {
+                // results of loads which were started before are ignored from now on
+                pageStates[i] = STATE_NOT_LOADED;
+            }
+        }
+
+        if (!isCountKnown) {
+            loadAround(lastAccessedPage);
+        }
+    }
+
+    private void loadAround(int page) {
+        if (!isCountKnown) {
+            if (pageStates.length == 0) {
+                ensurePageCount(page + 1);
+            }
+            if (page < pageStates.length && pageStates[page] == STATE_NOT_LOADED) {
+                load(page);
+            }
+            return;
+        }
+
+        int last = Math.min(page + prefetchDistance, pageStates.length - 1);
+        for (int i = Math.max(0, page - prefetchDistance); i <= last; i++) {
+            if (pageStates[i] == STATE_NOT_LOADED) {
+                load(i);
+            }
+        }
+    }
+
+    private void load(final int page) {
+        pageStates[page] = STATE_LOADING;
+        final int loadGeneration = generation;
+
+        loader.loadPage(page, pageSize, new PageCallback<E>() {
+            @Override
+            public void onPageLoaded(final List<E> items, final int totalCount) {
+                mainThreadExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (loadGeneration == generation) {
+                            onLoaded(page, items.toArray(), totalCount);
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void onPageFailed() {
+                mainThreadExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        // page is loaded again the next time one of its items is bound, reloaded page keeps its items until then
+                        if (loadGeneration == generation && page < pageStates.length && pageStates[page] == STATE_LOADING) {
+                            pageStates[page] = pages[page] != null ? STATE_LOADED : STATE_NOT_LOADED;
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void onLoaded(int page, Object[] items, int newTotalCount) {
+        int oldTotalCount = totalCount;
+        int pageCount = (newTotalCount + pageSize - 1) / pageSize;
+        ensurePageCount(pageCount);
+        if (page >= pageCount) {
+            updateTotalCount(oldTotalCount, newTotalCount);
+            return;
+        }
+
+        Object[] oldItems = pages[page];
+        if (oldItems == null) {
+            residentPageCount++;
+        }
+        pages[page] = items;
+        pageStates[page] = STATE_LOADED;
+        updateTotalCount(oldTotalCount, newTotalCount);
+
+        // items which were just inserted are already bound with the loaded data, the rest were placeholders or older items
+        int start = page * pageSize;
+        int end = Math.min(Math.min(start + pageSize, oldTotalCount), newTotalCount);
+        if (callback != null && end > start) {
+            if (oldItems == null) {
+                callback.onChanged(start, end - start, null);
+            } else {
+                dispatchChangedItems(start, end, oldItems, items);
+            }
+        }
+
+        evictFarPages();
+        loadAround(lastAccessedPage);
+    }
+
+    /**
+     * Dispatches ranges of items from {@param start} to {@param end}, which differ between {@param oldItems} and {@param newItems} of
+     * the same page.
+     */
+    private void dispatchChangedItems(int start, int end, Object[] oldItems, Object[] newItems) {
+        int rangeStart = -1;
+        for (int position = start; position <= end; position++) {
+            int offset = position - start;
+            boolean isChanged = position < end && (offset >= oldItems.length || offset >= newItems.length
+                    || !(oldItems[offset] == null ? newItems[offset] == null : oldItems[offset].equals(newItems[offset])));
+
+            if (isChanged && rangeStart < 0) {
+                rangeStart = position;
+            } else if (!isChanged && rangeStart >= 0) {
+                callback.onChanged(rangeStart, position - rangeStart, null);
+                rangeStart = -1;
+            }
+        }
+    }
+
+    private void updateTotalCount(int oldTotalCount, int newTotalCount) {
+        isCountKnown = true;
+        int pageCount = (newTotalCount + pageSize - 1) / pageSize;
+        for (int i = pageCount; i < pages.length; i++) {
+            if (pages[i] != null) {
+                residentPageCount--;
+            }
+        }
+        pages = Arrays.copyOf(pages, pageCount);
+        pageStates = Arrays.copyOf(pageStates, pageCount);
+        totalCount = newTotalCount;
+
+        if (callback == null) {
+            return;
+        }
+
+        if (newTotalCount > oldTotalCount) {
+            callback.onInserted(oldTotalCount, newTotalCount - oldTotalCount);
+        } else if (newTotalCount < oldTotalCount) {
+            callback.onRemoved(newTotalCount, oldTotalCount - newTotalCount);
+        }
+    }
+
+    private void ensurePageCount(int pageCount) {
+        if (pageCount > pages.length) {
+            pages = Arrays.copyOf(pages, pageCount);
+            pageStates = Arrays.copyOf(pageStates, pageCount);
+        }
+    }
+
+    /**
+     * Evicts pages which are the farthest from the last bound item, until there are no more than maximum number of resident pages.
+     */
+    private void evictFarPages() {
+        while (residentPageCount > maxResidentPages) {
+            int farthest = -1;
+            for (int i = 0; i < pageStates.length; i++) {
+                if (pages[i] != null
+                        && (farthest < 0 || Math.abs(i - lastAccessedPage) > Math.abs(farthest - lastAccessedPage))) {
+                    farthest = i;
+                }
+            }
+
+            pages[farthest] = null;
+            pageStates[farthest] = STATE_NOT_LOADED;
+            residentPageCount--;
+
+            int start = farthest * pageSize;
+            if (callback != null) {
+                callback.onChanged(start, Math.min(pageSize, totalCount - start), null);
+            }
+        }
+    }
+
+    /**
+     * Loads pages of items.
+     */
+    public interface PageLoader<E> {
+
+        /**
+         * Loads the page with {@param page} index, which contains items from {@param page} * {@param pageSize}. Loading can be
+         * asynchronous - {@param callback} can be called on any thread.
+         */
+        void loadPage(int page, int pageSize, PageCallback<E> callback);
+    }
+
+    public interface PageCallback<E> {
+
+        /**
+         * @param items      items of the page, which has fewer than page size items only if it is the last page.
+         * @param totalCount total number of items in all pages.
+         */
+        void onPageLoaded(List<E> items, int totalCount);
+
+        void onPageFailed();
+    }
+}
@@ -0,0 +1,225 @@
+package co.infinum.mjolnirrecyclerview;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link MjolnirDiffEngine} for very large lists, which splits old and new items into key-aligned chunks and diffs them concurrently
+ * with {@link KeyedDiffEngine}.
+ * <p>
+ * Chunks are aligned so that every item is matched to an item in the same chunk, which means that diffs of the chunks are independent
+ * of each other. Partial results are stitched into a single ordered list of operations: chunks are dispatched from the first to the
+ * last one, and operations of each chunk are shifted by the number of new items in the chunks before it.
+ * <p>
+ * Chunks are processed on the {@link Executor} and on the calling thread - the calling thread takes chunks which were not picked up by
+ * the executor yet, so the diff can't deadlock even if it runs on the same executor. Lists which are smaller than
+ * {@link #DEFAULT_MIN_CHUNK_SIZE} per chunk are diffed on the calling thread only.
+ * <p>
+ * Chunks are not forked into a ForkJoinPool, which isn't available on all supported API levels and would add another pool next to
+ * the diff scheduler. Chunks have a fixed size and don't split further, so a plain executor with work taken over by the calling thread
+ * is enough. By default, chunks run on their own workers rather than on the shared {@link MjolnirDiffScheduler}, so diffs of other
+ * adapters are never queued behind the chunks of a large diff.
+ *
+ * @param <E> type of items.
+ */
+public class ParallelDiffEngine<E> implements MjolnirDiffEngine<E> {
+
+    public static final int DEFAULT_MIN_CHUNK_SIZE = 8192;
+
+    private static final int NO_POSITION = -1;
+
+    /**
+     * Scheduler is never acquired, so its workers stop as soon as there are no chunks left.
+     */
+    private static final MjolnirDiffScheduler CHUNK_SCHEDULER =
+            new MjolnirDiffScheduler(MjolnirDiffScheduler.getInstance().getMaxWorkerCount(), "MjolnirDiffChunk");
+
+    private final KeyedDiffEngine<E> chunkEngine;
+
+    private final Executor executor;
+
+    private final int parallelism;
+
+    private final int minChunkSize;
+
+    /**
+     * Creates engine which diffs the chunks on the calling thread and on workers which are dedicated to chunks and shared by all
+     * engines created this way.
+     */
+    public ParallelDiffEngine(KeyedDiffEngine<E> chunkEngine) {
+        this(chunkEngine, CHUNK_SCHEDULER, CHUNK_SCHEDULER.getMaxWorkerCount() + 1, DEFAULT_MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkEngine  engine which diffs the chunks and provides keys.
+     * @param executor     executor on which chunks are diffed, in addition to the calling thread. If it is the executor on which
+     *                     diffs are calculated, parallelism should be lower than its number of workers, so chunks don't take all of
+     *                     them.
+     * @param parallelism  maximum number of chunks, which are diffed concurrently.
+     * @param minChunkSize minimum number of items in a chunk.
+     */
+    public ParallelDiffEngine(KeyedDiffEngine<E> chunkEngine, Executor executor, int parallelism, int minChunkSize) {
+        if (parallelism < 1 || minChunkSize < 1) {
+            throw new IllegalArgumentException("Parallelism and chunk size have to be at least 1!");
+        }
+        this.chunkEngine = chunkEngine;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.minChunkSize = minChunkSize;
+    }
+
+    @Override
+    public MjolnirDiffResult calculateDiff(List<E> oldItems, List<E> newItems) {
+        int chunkCount = Math.min(parallelism, Math.max(oldItems.size(), newItems.size()) / minChunkSize);
+        if (chunkCount < 2 || changedMiddleSize(oldItems, newItems) < minChunkSize * 2) {
+            return chunkEngine.calculateDiff(oldItems, newItems);
+        }
+
+        List<int[]> bounds = findChunkBounds(oldItems, newItems, chunkCount);
+        UpdateOperations[] chunkOperations = diffChunks(oldItems, newItems, bounds);
+
+        // chunks before the current one are already transformed to new items, so operations are shifted by their new size
+        UpdateOperations operations = new UpdateOperations();
+        for (int chunk = 0; chunk < chunkOperations.length; chunk++) {
+            chunkOperations[chunk].dispatchUpdatesTo(operations, bounds.get(chunk)[1]);
+        }
+        return operations;
+    }
+
+    /**
+     * @return size of the larger middle section, after items with the same keys are skipped at the start and at the end.
+     */
+    private int changedMiddleSize(List<E> oldItems, List<E> newItems) {
+        KeyExtractor<E> keyExtractor = chunkEngine.getKeyExtractor();
+        int length = Math.min(oldItems.size(), newItems.size());
+
+        int prefix = 0;
+        while (prefix < length && keyExtractor.getKey(oldItems.get(prefix)) == keyExtractor.getKey(newItems.get(prefix))) {
+            prefix++;
+        }
+
+        int suffix = 0;
+        while (suffix < length - prefix && keyExtractor.getKey(oldItems.get(oldItems.size() - suffix - 1))
+                == keyExtractor.getKey(newItems.get(newItems.size() - suffix - 1))) {
+            suffix++;
+        }
+        return Math.max(oldItems.size(), newItems.size()) - prefix - suffix;
+    }
+
+    /**
+     * Finds chunk bounds, so that no item is matched to an item in a different chunk.
+     * <p>
+     * Split between old position i and new position j is valid if all new items before j are matched to old items before i, and all
+     * old items before i are matched to new items before j. Both conditions are checked in O(1) with prefix maximums of matched
+     * positions.
+     *
+     * @return list of (old start, new start) pairs, one for each chunk.
+     */
+    private List<int[]> findChunkBounds(List<E> oldItems, List<E> newItems, int chunkCount) {
+        KeyExtractor<E> keyExtractor = chunkEngine.getKeyExtractor();
+        int oldSize = oldItems.size();
+        int newSize = newItems.size();
+
+        LongIntHashMap oldPositions = new LongIntHashMap(oldSize);
+        for (int i = 0; i < oldSize; i++) {
+            oldPositions.putIfAbsent(keyExtractor.getKey(oldItems.get(i)), i);
+        }
+
+        // maxMatchedOld[j] - highest old position matched by new items before j, maxMatchedNew[i] - the same for old items before i
+        int[] maxMatchedOld = new int[newSize + 1];
+        int[] maxMatchedNew = new int[oldSize + 1];
+        int[] oldToNew = new int[oldSize];
+        Arrays.fill(oldToNew, NO_POSITION);
+
+        maxMatchedOld[0] = NO_POSITION;
+        for (int j = 0; j < newSize; j++) {
+            int i = oldPositions.get(keyExtractor.getKey(newItems.get(j)), NO_POSITION);
+            if (i != NO_POSITION && oldToNew[i] == NO_POSITION) {
+                oldToNew[i] = j;
+            } else {
+                i = NO_POSITION;
+            }
+            maxMatchedOld[j + 1] = Math.max(maxMatchedOld[j], i);
+        }
+
+        maxMatchedNew[0] = NO_POSITION;
+        for (int i = 0; i < oldSize; i++) {
+            maxMatchedNew[i + 1] = Math.max(maxMatchedNew[i], oldToNew[i]);
+        }
+
+        List<int[]> bounds = new ArrayList<>(chunkCount);
+        bounds.add(new int[]{0, 0});
+
+        int previousOld = 0;
+        int previousNew = 0;
+        for (int chunk = 1; chunk < chunkCount; chunk++) {
+            int target = (int) ((long) newSize * chunk / chunkCount);
+            int limit = (int) ((long) newSize * (chunk + 1) / chunkCount);
+
+            for (int j = Math.max(target, previousNew + 1); j < limit; j++) {
+                int i = Math.max(previousOld + 1, maxMatchedOld[j] + 1);
+                if (i < oldSize && maxMatchedNew[i] < j) {
+                    bounds.add(new int[]{i, j});
+                    previousOld = i;
+                    previousNew = j;
+                    break;
+                }
+            }
+        }
+        return bounds;
+    }
+
+    private UpdateOperations[] diffChunks(final List<E> oldItems, final List<E> newItems, final List<int[]> bounds) {
+        final int chunkCount = bounds.size();
+        final UpdateOperations[] chunkOperations = new UpdateOperations[chunkCount];
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final CountDownLatch completed = new CountDownLatch(chunkCount);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int chunk = nextChunk.getAndIncrement();
+                while (chunk < chunkCount) {
+                    try {
+                        int oldEnd = chunk + 1 < chunkCount ? bounds.get(chunk + 1)[0] : oldItems.size();
+                        int newEnd = chunk + 1 < chunkCount ? bounds.get(chunk + 1)[1] : newItems.size();
+
+                        UpdateOperations operations = new UpdateOperations();
+                        chunkEngine.calculateDiff(oldItems.subList(bounds.get(chunk)[0], oldEnd),
+                                newItems.subList(bounds.get(chunk)[1], newEnd), operations);
+                        chunkOperations[chunk] = operations;
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        completed.countDown();
+                    }
+                    chunk = nextChunk.getAndIncrement();
+                }
+            }
+        };
+
+        for (int i = 1; i < Math.min(parallelism, chunkCount); i++) {
+            executor.execute(worker);
+        }
+        worker.run();
+
+        // all chunks were claimed at this point, so we only wait for the ones which are already running on other threads
+        try {
+            completed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parallel diff was interrupted!", e);
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return chunkOperations;
+    }
+}
@@ -0,0 +1,770 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Mutable list backed by a persistent, structurally shared tree, which is used as the item storage of {@link MjolnirRecyclerAdapter}.
+ * <p>
+ * Items are stored in leaves of up to 32 items, which are joined by branches of up to 32 children. Taking a {@link #snapshot()} is
+ * O(1) - it just captures the current root, and snapshot stays unchanged no matter how this list is modified afterwards, so it can be
+ * safely handed to a background thread. Mutations cost O(log n): they copy only the nodes on the path to the modified item, and nodes
+ * which were created after the last snapshot are modified in place, so consecutive mutations don't allocate at all.
+ * <p>
+ * This list is not thread safe - it has to be modified from a single thread. Snapshots can be read from any thread.
+ *
+ * @param <E> type of items.
+ */
+public final class PersistentItemList<E> extends AbstractList<E> implements RandomAccess {
+
+    static final int MAX_CHILDREN = 32;
+
+    /**
+     * Nodes which have fewer children than this are merged with their neighbours when items are removed.
+     */
+    private static final int MIN_CHILDREN = MAX_CHILDREN / 4;
+
+    private Node root;
+
+    /**
+     * Nodes owned by the current edit token can be modified in place. Token is replaced once a snapshot is taken, so nodes which are
+     * reachable from the snapshot are copied before they are modified.
+     */
+    private Object editToken = new Object();
+
+    private boolean isShared;
+
+    private long version;
+
+    /**
+     * Right half of a node, which was split during the last insert.
+     */
+    private Node splitNode;
+
+    /**
+     * Item, which was removed or replaced during the last remove or set.
+     */
+    private Object oldValue;
+
+    public PersistentItemList() {
+        root = new Leaf(editToken, new Object[MAX_CHILDREN], 0);
+    }
+
+    public PersistentItemList(Collection<? extends E> items) {
+        Object[] values = items.toArray();
+        root = build(editToken, values, values.length);
+    }
+
+    /**
+     * @return immutable view of the current items, which is not affected by later modifications of this list.
+     */
+    public List<E> snapshot() {
+        isShared = true;
+        return new Snapshot<>(root);
+    }
+
+    /**
+     * @return version of the items, which is incremented on every modification.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public int size() {
+        return root.size();
+    }
+
+    @Override
+    public E get(int index) {
+        checkIndex(index, size());
+        return getItem(root, index);
+    }
+
+    @Override
+    public E set(int index, E item) {
+        checkIndex(index, size());
+        root = set(editable(root), index, item);
+        onModified();
+        return takeOldValue();
+    }
+
+    @Override
+    public void add(int index, E item) {
+        checkIndex(index, size() + 1);
+        Node left = insert(editable(root), index, item);
+
+        if (splitNode != null) {
+            Branch branch = new Branch(editToken, new Node[MAX_CHILDREN], new int[MAX_CHILDREN], 0, 0);
+            branch.insertChild(0, left);
+            branch.insertChild(1, splitNode);
+            splitNode = null;
+            root = branch;
+        } else {
+            root = left;
+        }
+        onModified();
+    }
+
+    @Override
+    public E remove(int index) {
+        checkIndex(index, size());
+        Node node = remove(editable(root), index);
+
+        // collapse branches with a single child, so depth decreases as items are removed
+        while (node instanceof Branch && ((Branch) node).count == 1) {
+            node = ((Branch) node).children[0];
+        }
+        root = node;
+        onModified();
+        return takeOldValue();
+    }
+
+    @Override
+    public boolean addAll(@NonNull Collection<? extends E> collection) {
+        if (isEmpty()) {
+            return setAll(collection);
+        }
+        return super.addAll(collection);
+    }
+
+    /**
+     * Replaces all items in this list with {@param collection}. Tree is built bottom up in O(n).
+     *
+     * @return true if this list was modified.
+     */
+    public boolean setAll(@NonNull Collection<? extends E> collection) {
+        if (isEmpty() && collection.isEmpty()) {
+            return false;
+        }
+        Object[] values = collection.toArray();
+        rebuild(values, values.length);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object item) {
+        int index = indexOf(item);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(@NonNull Collection<?> collection) {
+        return removeAll(collection, null);
+    }
+
+    /**
+     * Removes all items which are contained in {@param collection} in a single pass and reports removed ranges to {@param callback}.
+     * Ranges are reported from the last to the first one, so positions of ranges which weren't reported yet are still valid.
+     * <p>
+     * Items are looked up with {@param collection}'s contains(), like in {@link java.util.ArrayList#removeAll(Collection)}, so pass a
+     * set to remove many items in linear time.
+     *
+     * @return true if this list was modified.
+     */
+    public boolean removeAll(@NonNull final Collection<?> collection, @Nullable ListUpdateCallback callback) {
+        return !collection.isEmpty() && filter(new ItemMatcher<E>() {
+            @Override
+            public boolean matches(E item) {
+                return collection.contains(item);
+            }
+        }, false, callback);
+    }
+
+    /**
+     * Removes all items which match {@param matcher} in a single pass and reports removed ranges to {@param callback} like
+     * {@link #removeAll(Collection, ListUpdateCallback)}.
+     *
+     * @return true if this list was modified.
+     */
+    boolean removeMatching(@NonNull ItemMatcher<? super E> matcher, @Nullable ListUpdateCallback callback) {
+        return filter(matcher, false, callback);
+    }
+
+    @Override
+    public boolean retainAll(@NonNull final Collection<?> collection) {
+        return filter(new ItemMatcher<E>() {
+            @Override
+            public boolean matches(E item) {
+                return collection.contains(item);
+            }
+        }, true, null);
+    }
+
+    @Override
+    public int indexOf(Object item) {
+        int index = 0;
+        for (E value : this) {
+            if (item == null ? value == null : item.equals(value)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    @Override
+    public void clear() {
+        if (!isEmpty()) {
+            renewEditToken();
+            root = new Leaf(editToken, new Object[MAX_CHILDREN], 0);
+            onModified();
+        }
+    }
+
+    @NonNull
+    @Override
+    public Iterator<E> iterator() {
+        return new LeafIterator<>(root);
+    }
+
+    /**
+     * Keeps only the items which ({@param retain} is true) or which don't ({@param retain} is false) match {@param matcher}. Remaining
+     * items are compacted in a single pass and the tree is rebuilt.
+     */
+    private boolean filter(ItemMatcher<? super E> matcher, boolean retain, @Nullable ListUpdateCallback callback) {
+        if (isEmpty()) {
+            return false;
+        }
+
+        Object[] values = new Object[size()];
+        int count = 0;
+
+        // removed ranges as (start, count) pairs in old positions
+        int[] ranges = callback != null ? new int[16] : null;
+        int rangeCount = 0;
+
+        int index = 0;
+        for (E item : this) {
+            if (matcher.matches(item) == retain) {
+                values[count++] = item;
+            } else if (ranges != null) {
+                if (rangeCount > 0 && ranges[rangeCount * 2 - 2] + ranges[rangeCount * 2 - 1] == index) {
+                    ranges[rangeCount * 2 - 1]++;
+                } else {
+                    if (rangeCount * 2 == ranges.length) {
+                        ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                    }
+                    ranges[rangeCount * 2] = index;
+                    ranges[rangeCount * 2 + 1] = 1;
+                    rangeCount++;
+                }
+            }
+            index++;
+        }
+
+        if (count == values.length) {
+            return false;
+        }
+        rebuild(values, count);
+
+        for (int range = rangeCount - 1; range >= 0; range--) {
+            callback.onRemoved(ranges[range * 2], ranges[range * 2 + 1]);
+        }
+        return true;
+    }
+
+    private void rebuild(Object[] values, int count) {
+        renewEditToken();
+        root = build(editToken, values, count);
+        onModified();
+    }
+
+    private void onModified() {
+        version++;
+        modCount++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E takeOldValue() {
+        E value = (E) oldValue;
+        oldValue = null;
+        return value;
+    }
+
+    private void renewEditToken() {
+        if (isShared) {
+            editToken = new Object();
+            isShared = false;
+        }
+    }
+
+    private Node editable(Node node) {
+        renewEditToken();
+
+        if (node.owner == editToken) {
+            return node;
+        }
+        return node.copy(editToken);
+    }
+
+    private Node set(Node node, int index, E item) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            oldValue = leaf.values[index];
+            leaf.values[index] = item;
+            return leaf;
+        }
+
+        Branch branch = (Branch) node;
+        int childIndex = branch.childIndexOf(index);
+        int localIndex = index - branch.offsetOf(childIndex);
+        branch.children[childIndex] = set(editable(branch.children[childIndex]), localIndex, item);
+        return branch;
+    }
+
+    private Node insert(Node node, int index, E item) {
+        if (node instanceof Leaf) {
+            return insertIntoLeaf((Leaf) node, index, item);
+        }
+
+        Branch branch = (Branch) node;
+        int childIndex = index == branch.size ? branch.count - 1 : branch.childIndexOf(index);
+        int localIndex = index - branch.offsetOf(childIndex);
+
+        Node child = insert(editable(branch.children[childIndex]), localIndex, item);
+        branch.children[childIndex] = child;
+        branch.childSizes[childIndex] = child.size();
+        branch.size++;
+
+        if (splitNode != null) {
+            Node right = splitNode;
+            splitNode = null;
+            branch.size -= right.size();
+            return insertChild(branch, childIndex + 1, right);
+        }
+        return branch;
+    }
+
+    private Leaf insertIntoLeaf(Leaf leaf, int index, E item) {
+        if (leaf.count < MAX_CHILDREN) {
+            leaf.insert(index, item);
+            return leaf;
+        }
+
+        Leaf right = new Leaf(editToken, new Object[MAX_CHILDREN], 0);
+        if (index == MAX_CHILDREN) {
+            // appending - keep the left leaf full, so that pagination doesn't leave half empty leaves behind
+            right.insert(0, item);
+        } else if (index == 0) {
+            // prepending - same as above, but in the other direction
+            System.arraycopy(leaf.values, 0, right.values, 0, MAX_CHILDREN);
+            right.count = MAX_CHILDREN;
+            leaf.clearFrom(0);
+            leaf.insert(0, item);
+        } else {
+            int half = MAX_CHILDREN / 2;
+            System.arraycopy(leaf.values, half, right.values, 0, MAX_CHILDREN - half);
+            right.count = MAX_CHILDREN - half;
+            leaf.clearFrom(half);
+
+            if (index <= half) {
+                leaf.insert(index, item);
+            } else {
+                right.insert(index - half, item);
+            }
+        }
+
+        splitNode = right;
+        return leaf;
+    }
+
+    /**
+     * Inserts {@param child} into {@param branch}, which already has its size updated. If branch is full, it is split.
+     */
+    private Branch insertChild(Branch branch, int childIndex, Node child) {
+        if (branch.count < MAX_CHILDREN) {
+            branch.insertChild(childIndex, child);
+            return branch;
+        }
+
+        Branch right = new Branch(editToken, new Node[MAX_CHILDREN], new int[MAX_CHILDREN], 0, 0);
+        if (childIndex == MAX_CHILDREN) {
+            right.insertChild(0, child);
+        } else if (childIndex == 0) {
+            branch.moveChildrenTo(right, 0);
+            branch.insertChild(0, child);
+        } else {
+            int half = MAX_CHILDREN / 2;
+            branch.moveChildrenTo(right, half);
+
+            if (childIndex <= half) {
+                branch.insertChild(childIndex, child);
+            } else {
+                right.insertChild(childIndex - half, child);
+            }
+        }
+
+        splitNode = right;
+        return branch;
+    }
+
+    private Node remove(Node node, int index) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            oldValue = leaf.values[index];
+            leaf.remove(index);
+            return leaf;
+        }
+
+        Branch branch = (Branch) node;
+        int childIndex = branch.childIndexOf(index);
+        int localIndex = index - branch.offsetOf(childIndex);
+
+        Node child = remove(editable(branch.children[childIndex]), localIndex);
+        branch.children[childIndex] = child;
+        branch.childSizes[childIndex] = child.size();
+        branch.size--;
+
+        if (child.size() == 0) {
+            branch.removeChild(childIndex);
+        } else if (child.count < MIN_CHILDREN) {
+            mergeWithNeighbour(branch, childIndex);
+        }
+        return branch;
+    }
+
+    /**
+     * Merges underfull child at {@param childIndex} with one of its neighbours, if their children fit into a single node.
+     */
+    private void mergeWithNeighbour(Branch branch, int childIndex) {
+        int leftIndex;
+        if (childIndex > 0 && branch.children[childIndex - 1].count + branch.children[childIndex].count <= MAX_CHILDREN) {
+            leftIndex = childIndex - 1;
+        } else if (childIndex < branch.count - 1
+                && branch.children[childIndex + 1].count + branch.children[childIndex].count <= MAX_CHILDREN) {
+            leftIndex = childIndex;
+        } else {
+            return;
+        }
+
+        Node left = editable(branch.children[leftIndex]);
+        left.append(branch.children[leftIndex + 1]);
+        branch.children[leftIndex] = left;
+        branch.childSizes[leftIndex] = left.size();
+        branch.removeChild(leftIndex + 1);
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> E getItem(Node root, int index) {
+        Node node = root;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int childIndex = 0;
+            while (index >= branch.childSizes[childIndex]) {
+                index -= branch.childSizes[childIndex];
+                childIndex++;
+            }
+            node = branch.children[childIndex];
+        }
+        return (E) ((Leaf) node).values[index];
+    }
+
+    /**
+     * Builds a tree of full nodes from the given {@param items}.
+     */
+    private static Node build(Object owner, Object[] items, int itemCount) {
+        int leafCount = Math.max(1, (itemCount + MAX_CHILDREN - 1) / MAX_CHILDREN);
+        Node[] level = new Node[leafCount];
+
+        for (int i = 0; i < leafCount; i++) {
+            int start = i * MAX_CHILDREN;
+            int count = Math.min(MAX_CHILDREN, itemCount - start);
+            Object[] values = new Object[MAX_CHILDREN];
+            System.arraycopy(items, start, values, 0, count);
+            level[i] = new Leaf(owner, values, count);
+        }
+
+        while (level.length > 1) {
+            Node[] parents = new Node[(level.length + MAX_CHILDREN - 1) / MAX_CHILDREN];
+            for (int i = 0; i < parents.length; i++) {
+                Branch branch = new Branch(owner, new Node[MAX_CHILDREN], new int[MAX_CHILDREN], 0, 0);
+                int end = Math.min(level.length, (i + 1) * MAX_CHILDREN);
+                for (int j = i * MAX_CHILDREN; j < end; j++) {
+                    branch.insertChild(branch.count, level[j]);
+                }
+                parents[i] = branch;
+            }
+            level = parents;
+        }
+        return level[0];
+    }
+
+    abstract static class Node {
+
+        final Object owner;
+
+        /**
+         * Number of items in a leaf, or number of children in a branch.
+         */
+        int count;
+
+        Node(Object owner, int count) {
+            this.owner = owner;
+            this.count = count;
+        }
+
+        abstract int size();
+
+        abstract Node copy(Object newOwner);
+
+        /**
+         * Appends all items or children of {@param node}, which is of the same type as this node.
+         */
+        abstract void append(Node node);
+    }
+
+    static final class Leaf extends Node {
+
+        final Object[] values;
+
+        Leaf(Object owner, Object[] values, int count) {
+            super(owner, count);
+            this.values = values;
+        }
+
+        @Override
+        int size() {
+            return count;
+        }
+
+        @Override
+        Node copy(Object newOwner) {
+            Object[] newValues = new Object[MAX_CHILDREN];
+            System.arraycopy(values, 0, newValues, 0, count);
+            return new Leaf(newOwner, newValues, count);
+        }
+
+        @Override
+        void append(Node node) {
+            Leaf leaf = (Leaf) node;
+            System.arraycopy(leaf.values, 0, values, count, leaf.count);
+            count += leaf.count;
+        }
+
+        void insert(int index, Object value) {
+            System.arraycopy(values, index, values, index + 1, count - index);
+            values[index] = value;
+            count++;
+        }
+
+        void remove(int index) {
+            System.arraycopy(values, index + 1, values, index, count - index - 1);
+            count--;
+            values[count] = null;
+        }
+
+        void clearFrom(int index) {
+            for (int i = index; i < count; i++) {
+                values[i] = null;
+            }
+            count = index;
+        }
+    }
+
+    static final class Branch extends Node {
+
+        final Node[] children;
+
+        final int[] childSizes;
+
+        int size;
+
+        Branch(Object owner, Node[] children, int[] childSizes, int count, int size) {
+            super(owner, count);
+            this.children = children;
+            this.childSizes = childSizes;
+            this.size = size;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        Node copy(Object newOwner) {
+            Node[] newChildren = new Node[MAX_CHILDREN];
+            int[] newChildSizes = new int[MAX_CHILDREN];
+            System.arraycopy(children, 0, newChildren, 0, count);
+            System.arraycopy(childSizes, 0, newChildSizes, 0, count);
+            return new Branch(newOwner, newChildren, newChildSizes, count, size);
+        }
+
+        @Override
+        void append(Node node) {
+            Branch branch = (Branch) node;
+            System.arraycopy(branch.children, 0, children, count, branch.count);
+            System.arraycopy(branch.childSizes, 0, childSizes, count, branch.count);
+            count += branch.count;
+            size += branch.size;
+        }
+
+        int childIndexOf(int index) {
+            int childIndex = 0;
+            while (index >= childSizes[childIndex]) {
+                index -= childSizes[childIndex];
+                childIndex++;
+            }
+            return childIndex;
+        }
+
+        int offsetOf(int childIndex) {
+            int offset = 0;
+            for (int i = 0; i < childIndex; i++) {
+                offset += childSizes[i];
+            }
+            return offset;
+        }
+
+        void insertChild(int index, Node child) {
+            System.arraycopy(children, index, children, index + 1, count - index);
+            System.arraycopy(childSizes, index, childSizes, index + 1, count - index);
+            children[index] = child;
+            childSizes[index] = child.size();
+            size += child.size();
+            count++;
+        }
+
+        /**
+         * Removes child at {@param index}, without changing size of this branch. Child has to be either empty or merged into its
+         * neighbour.
+         */
+        void removeChild(int index) {
+            System.arraycopy(children, index + 1, children, index, count - index - 1);
+            System.arraycopy(childSizes, index + 1, childSizes, index, count - index - 1);
+            count--;
+            children[count] = null;
+            childSizes[count] = 0;
+        }
+
+        /**
+         * Moves children starting at {@param from} to the empty {@param target} branch.
+         */
+        void moveChildrenTo(Branch target, int from) {
+            for (int i = from; i < count; i++) {
+                target.insertChild(target.count, children[i]);
+                size -= childSizes[i];
+                children[i] = null;
+                childSizes[i] = 0;
+            }
+            count = from;
+        }
+    }
+
+    /**
+     * Immutable view of the tree at the time when snapshot was taken.
+     */
+    /**
+     * Decides which items are removed by {@link #removeMatching(ItemMatcher, ListUpdateCallback)}.
+     */
+    interface ItemMatcher<E> {
+
+        boolean matches(E item);
+    }
+
+    private static final class Snapshot<E> extends AbstractList<E> implements RandomAccess {
+
+        private final Node root;
+
+        Snapshot(Node root) {
+            this.root = root;
+        }
+
+        @Override
+        public E get(int index) {
+            checkIndex(index, root.size());
+            return getItem(root, index);
+        }
+
+        @Override
+        public int size() {
+            return root.size();
+        }
+
+        @NonNull
+        @Override
+        public Iterator<E> iterator() {
+            return new LeafIterator<>(root);
+        }
+    }
+
+    /**
+     * Iterates over items leaf by leaf, so the tree is descended only once per leaf instead of once per item.
+     */
+    private static final class LeafIterator<E> implements Iterator<E> {
+
+        private final Node root;
+
+        private final int size;
+
+        private Leaf leaf;
+
+        private int leafStart;
+
+        private int index;
+
+        LeafIterator(Node root) {
+            this.root = root;
+            this.size = root.size();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public E next() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+
+            if (leaf == null || index - leafStart >= leaf.count) {
+                findLeaf();
+            }
+            return (E) leaf.values[index++ - leafStart];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void findLeaf() {
+            Node node = root;
+            int offset = index;
+            while (node instanceof Branch) {
+                Branch branch = (Branch) node;
+                int childIndex = 0;
+                while (offset >= branch.childSizes[childIndex]) {
+                    offset -= branch.childSizes[childIndex];
+                    childIndex++;
+                }
+                node = branch.children[childIndex];
+            }
+            leaf = (Leaf) node;
+            leafStart = index - offset;
+        }
+    }
+}
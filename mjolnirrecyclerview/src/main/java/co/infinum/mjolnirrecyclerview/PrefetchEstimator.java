@@ -0,0 +1,93 @@
+package co.infinum.mjolnirrecyclerview;
+
+/**
+ * Estimates how far from the end of items the next page has to be requested, so it arrives just before the user scrolls to the end.
+ * <p>
+ * Scroll velocity is measured in items per millisecond from positions of the first visible item, and page load latency is measured
+ * from the moment next page was requested until items were added or updated. Both are smoothed with exponential moving averages, and the
+ * distance is the number of items which are scrolled through while a page is loading, with some safety margin.
+ */
+final class PrefetchEstimator {
+
+    private static final float VELOCITY_SMOOTHING = 0.5f;
+
+    private static final float LATENCY_SMOOTHING = 0.3f;
+
+    /**
+     * Page is requested a bit earlier than needed, so latency spikes don't reach the end of items.
+     */
+    private static final float SAFETY_FACTOR = 1.5f;
+
+    /**
+     * Velocity is considered to be zero if there were no scroll events for this long, e.g. because scrolling has stopped.
+     */
+    private static final long VELOCITY_TIMEOUT_MILLIS = 300;
+
+    private static final long NOT_LOADING = -1;
+
+    private int lastPosition = -1;
+
+    private long lastScrollTime;
+
+    /**
+     * Forward scroll velocity in items per millisecond.
+     */
+    private float velocity;
+
+    private long loadStartTime = NOT_LOADING;
+
+    private long lastLatency;
+
+    private float averageLatency;
+
+    void onScrolled(int firstVisiblePosition, long uptimeMillis) {
+        if (lastPosition >= 0 && uptimeMillis > lastScrollTime) {
+            // only scrolling towards the end of items brings the next page closer
+            float sample = Math.max(0, firstVisiblePosition - lastPosition) / (float) (uptimeMillis - lastScrollTime);
+            velocity = uptimeMillis - lastScrollTime > VELOCITY_TIMEOUT_MILLIS
+                    ? sample
+                    : velocity + VELOCITY_SMOOTHING * (sample - velocity);
+        }
+        lastPosition = firstVisiblePosition;
+        lastScrollTime = uptimeMillis;
+    }
+
+    void onLoadStarted(long uptimeMillis) {
+        loadStartTime = uptimeMillis;
+    }
+
+    void onLoadFinished(long uptimeMillis) {
+        if (loadStartTime == NOT_LOADING) {
+            return;
+        }
+
+        lastLatency = uptimeMillis - loadStartTime;
+        averageLatency = averageLatency == 0 ? lastLatency : averageLatency + LATENCY_SMOOTHING * (lastLatency - averageLatency);
+        loadStartTime = NOT_LOADING;
+    }
+
+    /**
+     * @return forward scroll velocity in items per second.
+     */
+    float getVelocity(long uptimeMillis) {
+        return uptimeMillis - lastScrollTime > VELOCITY_TIMEOUT_MILLIS ? 0 : velocity * 1000;
+    }
+
+    long getLastLatency() {
+        return lastLatency;
+    }
+
+    long getAverageLatency() {
+        return Math.round(averageLatency);
+    }
+
+    /**
+     * @return number of items from the end of items at which the next page should be requested, between {@param minDistance} and
+     * {@param maxDistance}.
+     */
+    int getDistance(int minDistance, int maxDistance, long uptimeMillis) {
+        float itemsPerMillisecond = getVelocity(uptimeMillis) / 1000;
+        int distance = (int) Math.ceil(itemsPerMillisecond * averageLatency * SAFETY_FACTOR);
+        return Math.max(minDistance, Math.min(maxDistance, distance));
+    }
+}
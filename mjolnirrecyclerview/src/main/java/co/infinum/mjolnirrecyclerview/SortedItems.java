@@ -0,0 +1,91 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Binary searches and merges of items which are sorted by a comparator, used by the sorted mode of {@link MjolnirRecyclerAdapter}.
+ * Equal items are kept in the order in which they were added, so new items are always inserted after the items which are equal to
+ * them.
+ */
+final class SortedItems {
+
+    private SortedItems() {
+    }
+
+    /**
+     * @return position after the last item which is not greater than {@param item}, searched from {@param fromPosition}.
+     */
+    static <E> int findInsertPosition(List<E> items, Comparator<? super E> comparator, E item, int fromPosition) {
+        int low = fromPosition;
+        int high = items.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparator.compare(items.get(middle), item) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return position of the item which equals {@param item}, searched only among items which are equal by the comparator, or -1.
+     */
+    static <E> int indexOf(List<E> items, Comparator<? super E> comparator, E item) {
+        int low = 0;
+        int high = items.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparator.compare(items.get(middle), item) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        for (int i = low, size = items.size(); i < size && comparator.compare(items.get(i), item) == 0; i++) {
+            if (items.get(i).equals(item)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if {@param item} can replace the item at {@param index} without breaking the order.
+     */
+    static <E> boolean isSortedAt(List<E> items, Comparator<? super E> comparator, E item, int index) {
+        return (index == 0 || comparator.compare(items.get(index - 1), item) <= 0)
+                && (index == items.size() - 1 || comparator.compare(item, items.get(index + 1)) <= 0);
+    }
+
+    /**
+     * Merges {@param sortedItems} into {@param items} in O(n) and reports each inserted item to {@param callback}, in the order of
+     * positions, so adjacent insertions can be merged into ranges.
+     *
+     * @return merged items.
+     */
+    static <E> List<E> merge(List<E> items, List<E> sortedItems, Comparator<? super E> comparator, ListUpdateCallback callback) {
+        int size = items.size();
+        int newSize = sortedItems.size();
+        List<E> mergedItems = new ArrayList<>(size + newSize);
+
+        int index = 0;
+        int newIndex = 0;
+        while (newIndex < newSize) {
+            if (index < size && comparator.compare(items.get(index), sortedItems.get(newIndex)) <= 0) {
+                mergedItems.add(items.get(index++));
+            } else {
+                callback.onInserted(mergedItems.size(), 1);
+                mergedItems.add(sortedItems.get(newIndex++));
+            }
+        }
+        mergedItems.addAll(items.subList(index, size));
+        return mergedItems;
+    }
+}
@@ -0,0 +1,62 @@
+package co.infinum.mjolnirrecyclerview;
+
+import java.util.List;
+
+/**
+ * {@link MjolnirDiffEngine} for lists which are both subsequences of the same source list, e.g. results of two filters of the same
+ * items, or filtered and unfiltered items.
+ * <p>
+ * Source items are walked once and matched with old and new items by identity, so the diff is calculated in O(source size), without
+ * comparing items with each other. Items which are only in the old list are removed and items which are only in the new list are
+ * inserted, so items which are in both keep their view holders. If either list is not a subsequence of the source, all items are
+ * replaced.
+ *
+ * @param <E> type of items.
+ */
+final class SubsequenceDiffEngine<E> implements MjolnirDiffEngine<E> {
+
+    private final List<E> source;
+
+    SubsequenceDiffEngine(List<E> source) {
+        this.source = source;
+    }
+
+    @Override
+    public MjolnirDiffResult calculateDiff(List<E> oldItems, List<E> newItems) {
+        UpdateOperations operations = new UpdateOperations();
+        int oldIndex = 0;
+        int newIndex = 0;
+        int position = 0;
+
+        for (int i = 0, size = source.size(); i < size; i++) {
+            E item = source.get(i);
+            boolean isOld = oldIndex < oldItems.size() && oldItems.get(oldIndex) == item;
+            boolean isNew = newIndex < newItems.size() && newItems.get(newIndex) == item;
+
+            if (isOld) {
+                oldIndex++;
+            }
+            if (isNew) {
+                newIndex++;
+            }
+
+            if (isOld && isNew) {
+                position++;
+            } else if (isOld) {
+                operations.onRemoved(position, 1);
+            } else if (isNew) {
+                operations.onInserted(position, 1);
+                position++;
+            }
+        }
+
+        if (oldIndex == oldItems.size() && newIndex == newItems.size()) {
+            return operations;
+        }
+
+        operations = new UpdateOperations();
+        operations.onRemoved(0, oldItems.size());
+        operations.onInserted(0, newItems.size());
+        return operations;
+    }
+}
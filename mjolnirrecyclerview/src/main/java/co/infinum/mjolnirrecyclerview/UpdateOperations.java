@@ -0,0 +1,153 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.Arrays;
+
+/**
+ * Records list update operations, so they can be calculated on one thread and dispatched on another. Adjacent operations of the same
+ * type are merged while recording, the same way as BatchingListUpdateCallback merges them, so dispatching them results in the smallest
+ * number of notifications.
+ */
+final class UpdateOperations implements ListUpdateCallback, MjolnirDiffResult {
+
+    static final int TYPE_INSERT = 1;
+
+    static final int TYPE_REMOVE = 2;
+
+    static final int TYPE_MOVE = 3;
+
+    static final int TYPE_CHANGE = 4;
+
+    private static final int FIELDS = 3;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Operations stored as (type, position or from position, count or to position) triples.
+     */
+    private int[] operations = new int[INITIAL_CAPACITY * FIELDS];
+
+    private Object[] payloads = new Object[INITIAL_CAPACITY];
+
+    private int size;
+
+    @Override
+    public void onInserted(int position, int count) {
+        if (count <= 0) {
+            return;
+        }
+
+        int last = (size - 1) * FIELDS;
+        if (size > 0 && operations[last] == TYPE_INSERT
+                && position >= operations[last + 1] && position <= operations[last + 1] + operations[last + 2]) {
+            operations[last + 2] += count;
+        } else {
+            append(TYPE_INSERT, position, count, null);
+        }
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        if (count <= 0) {
+            return;
+        }
+
+        int last = (size - 1) * FIELDS;
+        if (size > 0 && operations[last] == TYPE_REMOVE
+                && operations[last + 1] >= position && operations[last + 1] <= position + count) {
+            operations[last + 1] = position;
+            operations[last + 2] += count;
+        } else {
+            append(TYPE_REMOVE, position, count, null);
+        }
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        if (fromPosition != toPosition) {
+            append(TYPE_MOVE, fromPosition, toPosition, null);
+        }
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+        if (count <= 0) {
+            return;
+        }
+
+        int last = (size - 1) * FIELDS;
+        if (size > 0 && operations[last] == TYPE_CHANGE && payloads[size - 1] == payload
+                && position <= operations[last + 1] + operations[last + 2] && position + count >= operations[last + 1]) {
+            int end = Math.max(operations[last + 1] + operations[last + 2], position + count);
+            operations[last + 1] = Math.min(operations[last + 1], position);
+            operations[last + 2] = end - operations[last + 1];
+        } else if (size > 0 && operations[last] == TYPE_CHANGE && operations[last + 1] == position && operations[last + 2] == count
+                && payloads[size - 1] instanceof MjolnirChangePayload && payload instanceof MjolnirChangePayload) {
+            // the same items were changed again, so their changed fields are merged
+            payloads[size - 1] = ((MjolnirChangePayload) payloads[size - 1]).merge((MjolnirChangePayload) payload);
+        } else {
+            append(TYPE_CHANGE, position, count, payload);
+        }
+    }
+
+    @Override
+    public void dispatchUpdatesTo(ListUpdateCallback callback) {
+        dispatchUpdatesTo(callback, 0);
+    }
+
+    /**
+     * Dispatches recorded operations with all positions shifted by {@param offset}.
+     */
+    void dispatchUpdatesTo(ListUpdateCallback callback, int offset) {
+        for (int i = 0; i < size; i++) {
+            int type = operations[i * FIELDS];
+            int first = operations[i * FIELDS + 1];
+            int second = operations[i * FIELDS + 2];
+
+            switch (type) {
+                case TYPE_INSERT:
+                    callback.onInserted(first + offset, second);
+                    break;
+                case TYPE_REMOVE:
+                    callback.onRemoved(first + offset, second);
+                    break;
+                case TYPE_MOVE:
+                    callback.onMoved(first + offset, second + offset);
+                    break;
+                default:
+                    callback.onChanged(first + offset, second, payloads[i]);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return number of recorded operations, after merging.
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        Arrays.fill(payloads, 0, size, null);
+        size = 0;
+    }
+
+    private void append(int type, int first, int second, Object payload) {
+        if ((size + 1) * FIELDS > operations.length) {
+            operations = Arrays.copyOf(operations, operations.length * 2);
+            payloads = Arrays.copyOf(payloads, payloads.length * 2);
+        }
+
+        operations[size * FIELDS] = type;
+        operations[size * FIELDS + 1] = first;
+        operations[size * FIELDS + 2] = second;
+        payloads[size] = payload;
+        size++;
+    }
+}
@@ -0,0 +1,299 @@
+package co.infinum.mjolnirrecyclerview;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Latest-wins queue of diff updates.
+ * <p>
+ * At most one diff is calculated at the time and at most one update is waiting for it. Every submitted update gets a new generation
+ * number, so once a newer update is submitted, the older one is dropped - either before its diff is calculated, or before its result is
+ * dispatched. The newest update is always diffed against the items which are displayed at the moment when the diff starts, and if
+ * displayed items change while diff is calculated, the diff is calculated again instead of dispatching a stale result.
+ * <p>
+ * All methods have to be called on the main thread.
+ *
+ * @param <E> type of items.
+ */
+class UpdatePipeline<E> {
+
+    private final Target<E> target;
+
+    private final Executor mainThreadExecutor;
+
+    /**
+     * Generation of the latest submitted update. Read from the diff threads to skip updates which were superseded in the meantime.
+     */
+    private volatile long generation;
+
+    private PendingUpdate<E> pending;
+
+    private boolean isRunning;
+
+    private boolean isCancelled;
+
+    private int skippedCount;
+
+    private Runnable idleListener;
+
+    UpdatePipeline(Target<E> target, Executor mainThreadExecutor) {
+        this.target = target;
+        this.mainThreadExecutor = mainThreadExecutor;
+    }
+
+    /**
+     * Submits new items, which will be diffed against the displayed items with {@param engine}. If an older update is still waiting,
+     * it is dropped.
+     */
+    void submit(List<E> newItems, MjolnirDiffEngine<E> engine) {
+        submit(newItems, null, engine, true);
+    }
+
+    /**
+     * Submits new items like {@link #submit(List, MjolnirDiffEngine)}, but for an {@param engine} which is bound to the displayed items
+     * at the time of submitting, e.g. a DiffUtil.Callback of a specific pair of lists. Such diff can't be calculated again, so if
+     * displayed items are modified after the update was submitted, either while it waits or while its diff is calculated, new items
+     * replace them without diffing.
+     */
+    void submitOnce(List<E> newItems, MjolnirDiffEngine<E> engine) {
+        submit(newItems, null, engine, false);
+    }
+
+    /**
+     * Submits an update, whose new items are produced by {@param producer} on the diff thread, right before they are diffed with
+     * {@param engine}.
+     */
+    void submit(ItemsProducer<E> producer, MjolnirDiffEngine<E> engine) {
+        submit(null, producer, engine, true);
+    }
+
+    private void submit(List<E> newItems, ItemsProducer<E> producer, MjolnirDiffEngine<E> engine, boolean canRecalculate) {
+        if (isCancelled) {
+            return;
+        }
+
+        if (pending != null) {
+            skippedCount++;
+        }
+        pending = new PendingUpdate<>(newItems, producer, engine, canRecalculate, target.getItemsVersion(), ++generation);
+
+        if (!isRunning) {
+            startNext();
+        }
+    }
+
+    /**
+     * Drops waiting update and result of the diff which is currently calculated. All further updates are ignored until
+     * {@link #reset()} is called.
+     */
+    void cancel() {
+        isCancelled = true;
+        pending = null;
+        generation++;
+    }
+
+    void reset() {
+        isCancelled = false;
+    }
+
+    /**
+     * Drops waiting update and result of the diff which is currently calculated, e.g. because displayed items were replaced without
+     * diffing.
+     */
+    void clear() {
+        if (pending != null) {
+            skippedCount++;
+            pending = null;
+        }
+        generation++;
+    }
+
+    /**
+     * @return true if a newer update was submitted after the update with {@param updateGeneration}, or updates were cleared. Can be
+     * called from any thread, e.g. to stop producing items which won't be displayed.
+     */
+    boolean isSuperseded(long updateGeneration) {
+        return updateGeneration != generation;
+    }
+
+    /**
+     * @return true if there is a diff being calculated or an update waiting for it.
+     */
+    boolean isBusy() {
+        return isRunning || pending != null;
+    }
+
+    /**
+     * Sets {@param listener}, which is run once a diff is finished and no other update is waiting for it, or null.
+     */
+    void setIdleListener(Runnable listener) {
+        this.idleListener = listener;
+    }
+
+    /**
+     * @return number of updates, which were dropped because a newer update was submitted before they were dispatched.
+     */
+    int getSkippedCount() {
+        return skippedCount;
+    }
+
+    private void startNext() {
+        final PendingUpdate<E> update = pending;
+        pending = null;
+
+        if (!update.canRecalculate && update.submittedVersion != target.getItemsVersion()) {
+            // displayed items were modified while the update was waiting, so its engine can't diff them anymore
+            target.replaceItems(update.items);
+            return;
+        }
+        isRunning = true;
+
+        final List<E> oldItems = target.getItemsSnapshot();
+        final long version = target.getItemsVersion();
+        final MjolnirMetrics metrics = target.getMetrics();
+
+        target.getDiffExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                // there is no point in diffing an update which has already been superseded
+                List<E> items = null;
+                MjolnirDiffResult diffResult = null;
+                Throwable diffError = null;
+                try {
+                    if (update.generation == generation) {
+                        items = update.items != null ? update.items : update.producer.produce(update.generation);
+                    }
+                    if (items != null && update.generation == generation) {
+                        long start = metrics != null ? System.nanoTime() : 0;
+                        diffResult = update.engine.calculateDiff(oldItems, items);
+                        if (metrics != null) {
+                            metrics.recordDiffCalculation(System.nanoTime() - start);
+                        }
+                    }
+                } catch (Throwable error) {
+                    // e.g. a failing DiffUtil.Callback or comparator, pipeline is still released so that next updates are diffed
+                    diffError = error;
+                }
+                final List<E> newItems = items;
+                final MjolnirDiffResult result = diffResult;
+                final Throwable error = diffError;
+
+                mainThreadExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onDiffCalculated(update, version, newItems, result);
+                        if (error != null) {
+                            throw new IllegalStateException("Diff calculation has failed!", error);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void onDiffCalculated(PendingUpdate<E> update, long version, List<E> newItems, MjolnirDiffResult result) {
+        isRunning = false;
+
+        if (update.generation != generation || result == null) {
+            if (!isCancelled) {
+                skippedCount++;
+            }
+        } else if (version != target.getItemsVersion()) {
+            // displayed items were modified while diff was calculated, so the result doesn't apply to them anymore
+            if (update.canRecalculate) {
+                pending = update;
+            } else {
+                target.replaceItems(newItems);
+            }
+        } else {
+            target.applyUpdate(newItems, result);
+        }
+
+        if (pending != null) {
+            startNext();
+        }
+
+        if (!isBusy() && idleListener != null) {
+            idleListener.run();
+        }
+    }
+
+    /**
+     * Adapter, which displays the items.
+     */
+    interface Target<E> {
+
+        /**
+         * @return immutable snapshot of currently displayed items.
+         */
+        List<E> getItemsSnapshot();
+
+        /**
+         * @return version of displayed items, which changes every time items are modified.
+         */
+        long getItemsVersion();
+
+        Executor getDiffExecutor();
+
+        /**
+         * @return metrics into which diff latencies are recorded, or null if they are disabled.
+         */
+        MjolnirMetrics getMetrics();
+
+        /**
+         * Replaces displayed items with {@param newItems} and dispatches {@param result} notifications.
+         */
+        void applyUpdate(List<E> newItems, MjolnirDiffResult result);
+
+        /**
+         * Replaces displayed items with {@param newItems} without diffing.
+         */
+        void replaceItems(List<E> newItems);
+    }
+
+    /**
+     * Produces new items of an update on the diff thread, e.g. by filtering items.
+     */
+    interface ItemsProducer<E> {
+
+        /**
+         * @param updateGeneration generation of the update, which can be checked with {@link #isSuperseded(long)} to stop early.
+         * @return new items, or null if the update was superseded while they were produced.
+         */
+        List<E> produce(long updateGeneration);
+    }
+
+    private static class PendingUpdate<E> {
+
+        /**
+         * New items, or null if they are produced by {@link #producer}.
+         */
+        final List<E> items;
+
+        final ItemsProducer<E> producer;
+
+        final MjolnirDiffEngine<E> engine;
+
+        /**
+         * False if {@link #engine} can only diff the items which were displayed when the update was submitted.
+         */
+        final boolean canRecalculate;
+
+        /**
+         * Version of displayed items when the update was submitted, which {@link #engine} is bound to if it can't recalculate.
+         */
+        final long submittedVersion;
+
+        final long generation;
+
+        PendingUpdate(List<E> items, ItemsProducer<E> producer, MjolnirDiffEngine<E> engine, boolean canRecalculate,
+                long submittedVersion, long generation) {
+            this.items = items;
+            this.producer = producer;
+            this.engine = engine;
+            this.canRecalculate = canRecalculate;
+            this.submittedVersion = submittedVersion;
+            this.generation = generation;
+        }
+    }
+}
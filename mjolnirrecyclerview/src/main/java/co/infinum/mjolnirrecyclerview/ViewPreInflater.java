@@ -0,0 +1,130 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Pool of views, which are inflated ahead of time on a background thread, similar to AsyncLayoutInflater.
+ * <p>
+ * Views are inflated with their layout params, but are not attached to the parent. When a view is requested and there is no
+ * pre-inflated view with the same layout, it is inflated on the calling thread instead. Hits and misses of the pool are counted, so
+ * the number of pre-inflated views can be tuned.
+ * <p>
+ * Views are inflated on a single dedicated worker, which is shared by all pools, so pre-inflation never delays diff calculations.
+ * LayoutInflater is not thread safe, so the worker has to be given its own inflater.
+ */
+final class ViewPreInflater {
+
+    /**
+     * Scheduler is never acquired, so its worker thread stops as soon as there are no views left to inflate, and it doesn't take any
+     * resources once views are inflated.
+     */
+    private static final Executor INFLATION_EXECUTOR = new MjolnirDiffScheduler(1, "MjolnirInflate");
+
+    private final Object lock = new Object();
+
+    private final SparseArray<ArrayDeque<View>> views = new SparseArray<>();
+
+    private int hitCount;
+
+    private int missCount;
+
+    /**
+     * Incremented when the pool is cleared, so views which are being inflated at the moment are dropped.
+     */
+    private int generation;
+
+    /**
+     * Inflates {@param count} views with {@param layoutRes} on the inflation worker.
+     *
+     * @param inflater inflater which is used only by the inflation worker, e.g. a clone of the context's inflater.
+     */
+    void preInflate(final LayoutInflater inflater, final ViewGroup parent, final int layoutRes, final int count) {
+        final int preInflateGeneration;
+        synchronized (lock) {
+            preInflateGeneration = generation;
+        }
+
+        INFLATION_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < count; i++) {
+                    View view;
+                    try {
+                        view = inflater.inflate(layoutRes, parent, false);
+                    } catch (RuntimeException e) {
+                        // some views can only be created on the main thread, they are inflated there on demand
+                        return;
+                    }
+
+                    synchronized (lock) {
+                        if (preInflateGeneration != generation) {
+                            return;
+                        }
+                        getViews(layoutRes).add(view);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return pre-inflated view with {@param layoutRes}, or a view which was inflated on the calling thread if there is none.
+     */
+    View inflate(LayoutInflater inflater, ViewGroup parent, int layoutRes) {
+        synchronized (lock) {
+            View view = getViews(layoutRes).poll();
+            if (view != null) {
+                hitCount++;
+                return view;
+            }
+            missCount++;
+        }
+        return inflater.inflate(layoutRes, parent, false);
+    }
+
+    /**
+     * Drops all pre-inflated views, including the ones which are being inflated at the moment.
+     */
+    void clear() {
+        synchronized (lock) {
+            generation++;
+            views.clear();
+        }
+    }
+
+    int getHitCount() {
+        synchronized (lock) {
+            return hitCount;
+        }
+    }
+
+    int getMissCount() {
+        synchronized (lock) {
+            return missCount;
+        }
+    }
+
+    /**
+     * @return number of pre-inflated views with {@param layoutRes}, which are waiting to be used.
+     */
+    int getAvailableCount(int layoutRes) {
+        synchronized (lock) {
+            return getViews(layoutRes).size();
+        }
+    }
+
+    private ArrayDeque<View> getViews(int layoutRes) {
+        ArrayDeque<View> layoutViews = views.get(layoutRes);
+        if (layoutViews == null) {
+            layoutViews = new ArrayDeque<>();
+            views.put(layoutRes, layoutViews);
+        }
+        return layoutViews;
+    }
+}
@@ -0,0 +1,277 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the position map against a model, in which headers, footers and sections are stored in lists together with items. Items are
+ * stored as their ids and decorations as their negative view types.
+ */
+public class AdapterPositionMapTest {
+
+    private static final int OPERATION_COUNT = 5000;
+
+    private final List<Integer> headers = new ArrayList<>();
+
+    private final List<Integer> middle = new ArrayList<>();
+
+    private final List<Integer> footers = new ArrayList<>();
+
+    /**
+     * Adapter entries, to which notifications of the map are applied.
+     */
+    private final List<Integer> notified = new ArrayList<>();
+
+    private final Set<Integer> changedIds = new HashSet<>();
+
+    /**
+     * Ids of items, which are inserted by the next insert notification.
+     */
+    private List<Integer> insertedIds;
+
+    private AdapterPositionMap positionMap;
+
+    private int nextId;
+
+    private int nextType = 1;
+
+    @Before
+    public void setUp() {
+        positionMap = new AdapterPositionMap(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                assertEquals(insertedIds.size(), count);
+                notified.addAll(position, insertedIds);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                for (int i = 0; i < count; i++) {
+                    assertTrue("Removed decoration", notified.remove(position) >= 0);
+                }
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                notified.add(toPosition, notified.remove(fromPosition));
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                for (int i = position; i < position + count; i++) {
+                    assertTrue("Changed decoration", notified.get(i) >= 0);
+                    changedIds.add(notified.get(i));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void randomOperationsMatchModel() {
+        Random random = new Random(5);
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            int itemCount = getItemCount();
+            int operation = random.nextInt(20);
+
+            if (operation < 5 || itemCount == 0) {
+                insertItems(random.nextInt(itemCount + 1), 1 + random.nextInt(4));
+            } else if (operation < 9) {
+                int position = random.nextInt(itemCount);
+                removeItems(position, 1 + random.nextInt(Math.min(4, itemCount - position)));
+            } else if (operation < 11) {
+                moveItem(random.nextInt(itemCount), random.nextInt(itemCount));
+            } else if (operation < 13) {
+                int position = random.nextInt(itemCount);
+                changeItems(position, 1 + random.nextInt(Math.min(10, itemCount - position)));
+            } else if (operation < 15) {
+                addSection(random.nextInt(itemCount + 1));
+            } else if (operation < 16) {
+                removeDecoration(middle, random);
+            } else if (operation < 17) {
+                addHeader(random.nextInt(headers.size() + 1));
+            } else if (operation < 18) {
+                addFooter(random.nextInt(footers.size() + 1));
+            } else if (operation < 19) {
+                removeDecoration(random.nextBoolean() ? headers : footers, random);
+            } else if (random.nextInt(10) == 0) {
+                replaceItems(random.nextInt(itemCount + 1));
+            }
+
+            assertMatchesModel();
+        }
+    }
+
+    private void insertItems(int position, int count) {
+        insertedIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            insertedIds.add(nextId++);
+        }
+        middle.addAll(toInsertIndex(position), insertedIds);
+        positionMap.onInserted(position, count);
+    }
+
+    private void removeItems(int position, int count) {
+        for (int i = 0; i < count; i++) {
+            middle.remove(toMiddleIndex(position));
+        }
+        positionMap.onRemoved(position, count);
+    }
+
+    private void moveItem(int fromPosition, int toPosition) {
+        Integer id = middle.remove(toMiddleIndex(fromPosition));
+        middle.add(toInsertIndex(toPosition), id);
+        positionMap.onMoved(fromPosition, toPosition);
+    }
+
+    private void changeItems(int position, int count) {
+        changedIds.clear();
+        positionMap.onChanged(position, count, null);
+
+        Set<Integer> expected = new HashSet<>();
+        for (int i = position; i < position + count; i++) {
+            expected.add(middle.get(toMiddleIndex(i)));
+        }
+        assertEquals(expected, changedIds);
+    }
+
+    /**
+     * Sections are added in front of the item at {@param anchor}, after sections which are already anchored there.
+     */
+    private void addSection(int anchor) {
+        int type = nextType++;
+        middle.add(anchor < getItemCount() ? toMiddleIndex(anchor) : middle.size(), -type);
+        notified.add(positionMap.addSection(anchor, type), -type);
+    }
+
+    private void addHeader(int index) {
+        int type = nextType++;
+        headers.add(index, -type);
+        notified.add(positionMap.addHeader(index, type), -type);
+    }
+
+    private void addFooter(int index) {
+        int type = nextType++;
+        footers.add(index, -type);
+        notified.add(positionMap.addFooter(index, type, getItemCount()), -type);
+    }
+
+    private void removeDecoration(List<Integer> entries, Random random) {
+        List<Integer> types = new ArrayList<>();
+        for (Integer entry : entries) {
+            if (entry < 0) {
+                types.add(-entry);
+            }
+        }
+        if (types.isEmpty()) {
+            return;
+        }
+
+        int type = types.get(random.nextInt(types.size()));
+        int position;
+        if (entries == headers) {
+            position = positionMap.removeHeader(type);
+        } else if (entries == footers) {
+            position = positionMap.removeFooter(type, getItemCount());
+        } else {
+            position = positionMap.removeSection(type);
+        }
+        entries.remove(Integer.valueOf(-type));
+        assertEquals(Integer.valueOf(-type), notified.remove(position));
+    }
+
+    /**
+     * Replaces all items with {@param itemCount} new items. Sections keep their anchors, unless they are after the last new item.
+     */
+    private void replaceItems(int itemCount) {
+        List<Integer> newMiddle = new ArrayList<>();
+        int anchor = 0;
+        for (Integer entry : middle) {
+            if (entry >= 0) {
+                anchor++;
+                continue;
+            }
+            while (countItems(newMiddle) < Math.min(anchor, itemCount)) {
+                newMiddle.add(nextId++);
+            }
+            newMiddle.add(entry);
+        }
+        while (countItems(newMiddle) < itemCount) {
+            newMiddle.add(nextId++);
+        }
+
+        middle.clear();
+        middle.addAll(newMiddle);
+        positionMap.onItemsReplaced(itemCount);
+        notified.clear();
+        notified.addAll(getEntries());
+    }
+
+    private void assertMatchesModel() {
+        List<Integer> entries = getEntries();
+        assertEquals(entries, notified);
+
+        int itemCount = getItemCount();
+        assertEquals(entries.size(), positionMap.getTotalCount(itemCount));
+
+        int itemPosition = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            int resolved = positionMap.resolve(i, itemCount);
+            if (entries.get(i) >= 0) {
+                assertEquals("Item at " + i, itemPosition, resolved);
+                assertEquals(i, positionMap.toAdapterPosition(itemPosition));
+                itemPosition++;
+            } else {
+                assertTrue("Decoration at " + i, resolved < 0);
+                assertEquals(-entries.get(i), positionMap.getDecorationType(-1 - resolved));
+            }
+        }
+    }
+
+    private List<Integer> getEntries() {
+        List<Integer> entries = new ArrayList<>(headers);
+        entries.addAll(middle);
+        entries.addAll(footers);
+        return entries;
+    }
+
+    private int getItemCount() {
+        return countItems(middle);
+    }
+
+    private static int countItems(List<Integer> entries) {
+        int count = 0;
+        for (Integer entry : entries) {
+            if (entry >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int toMiddleIndex(int itemPosition) {
+        for (int i = 0, position = 0; i < middle.size(); i++) {
+            if (middle.get(i) >= 0 && position++ == itemPosition) {
+                return i;
+            }
+        }
+        throw new IndexOutOfBoundsException("Item position " + itemPosition);
+    }
+
+    /**
+     * Items are inserted right after the previous item, in front of sections which are anchored at {@param itemPosition}.
+     */
+    private int toInsertIndex(int itemPosition) {
+        return itemPosition == 0 ? 0 : toMiddleIndex(itemPosition - 1) + 1;
+    }
+}
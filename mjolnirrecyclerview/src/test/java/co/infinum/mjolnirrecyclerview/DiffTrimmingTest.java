@@ -0,0 +1,137 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.DiffUtil;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DiffTrimmingTest {
+
+    @Test
+    public void allEqualItemsAreOnlyPrefix() {
+        List<TestItem> items = TestItem.createItems(100);
+        KeyCallback callback = new KeyCallback(items, new ArrayList<>(items));
+
+        int prefix = DiffTrimming.commonPrefix(callback);
+        assertEquals(100, prefix);
+        assertEquals(0, DiffTrimming.commonSuffix(callback, prefix));
+
+        UpdateOperations operations = (UpdateOperations) DiffUtilDiffEngine.calculateDiff(callback, true);
+        assertEquals(0, operations.size());
+    }
+
+    @Test
+    public void disjointItemsHaveNoPrefixOrSuffix() {
+        List<TestItem> oldItems = TestItem.createItems(50);
+        List<TestItem> newItems = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            newItems.add(new TestItem(1000 + i, 0));
+        }
+        KeyCallback callback = new KeyCallback(oldItems, newItems);
+
+        assertEquals(0, DiffTrimming.commonPrefix(callback));
+        assertEquals(0, DiffTrimming.commonSuffix(callback, 0));
+        assertDiff(oldItems, newItems);
+    }
+
+    @Test
+    public void suffixDoesNotOverlapPrefix() {
+        // all items have the same key, so every old item could be both in the prefix and in the suffix
+        List<TestItem> oldItems = Arrays.asList(new TestItem(1, 0), new TestItem(1, 0), new TestItem(1, 0));
+        List<TestItem> newItems = Arrays.asList(new TestItem(1, 0), new TestItem(1, 1));
+        KeyCallback callback = new KeyCallback(oldItems, newItems);
+
+        int prefix = DiffTrimming.commonPrefix(callback);
+        assertEquals(2, prefix);
+        assertEquals(0, DiffTrimming.commonSuffix(callback, prefix));
+
+        ReplayingCallback<TestItem> replayed = assertDiff(oldItems, newItems);
+        assertFalse(replayed.isChanged(0));
+        assertTrue(replayed.isChanged(1));
+    }
+
+    @Test
+    public void middleBetweenPrefixAndSuffixIsReplaced() {
+        List<TestItem> oldItems = TestItem.createItems(20);
+        List<TestItem> newItems = new ArrayList<>(oldItems.subList(0, 5));
+        newItems.add(new TestItem(100, 0));
+        newItems.add(new TestItem(101, 0));
+        newItems.addAll(oldItems.subList(12, 20));
+        // shared items which have changed are dispatched as changes at their new positions
+        newItems.set(2, new TestItem(2, 1));
+        newItems.set(newItems.size() - 1, new TestItem(19, 1));
+        KeyCallback callback = new KeyCallback(oldItems, newItems);
+
+        int prefix = DiffTrimming.commonPrefix(callback);
+        assertEquals(5, prefix);
+        assertEquals(8, DiffTrimming.commonSuffix(callback, prefix));
+
+        ReplayingCallback<TestItem> replayed = assertDiff(oldItems, newItems);
+        assertTrue(replayed.isChanged(2));
+        assertTrue(replayed.isChanged(newItems.size() - 1));
+    }
+
+    @Test
+    public void prependedPageIsSingleInsert() {
+        List<TestItem> oldItems = TestItem.createItems(50);
+        List<TestItem> newItems = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            newItems.add(new TestItem(-1 - i, 0));
+        }
+        newItems.addAll(oldItems);
+
+        UpdateOperations operations = (UpdateOperations) DiffUtilDiffEngine.calculateDiff(new KeyCallback(oldItems, newItems), true);
+
+        assertEquals(1, operations.size());
+        assertDiff(oldItems, newItems);
+    }
+
+    private static ReplayingCallback<TestItem> assertDiff(List<TestItem> oldItems, List<TestItem> newItems) {
+        ReplayingCallback<TestItem> callback = new ReplayingCallback<>(oldItems);
+        DiffUtilDiffEngine.calculateDiff(new KeyCallback(oldItems, newItems), true).dispatchUpdatesTo(callback);
+        callback.assertTransformedTo(newItems, TestItem.KEY_EXTRACTOR);
+        return callback;
+    }
+
+    /**
+     * Items are the same if they have the same key, and their contents are the same if they have the same version.
+     */
+    private static final class KeyCallback extends DiffUtil.Callback {
+
+        private final List<TestItem> oldItems;
+
+        private final List<TestItem> newItems;
+
+        KeyCallback(List<TestItem> oldItems, List<TestItem> newItems) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldItems.get(oldItemPosition).key == newItems.get(newItemPosition).key;
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldItems.get(oldItemPosition).equals(newItems.get(newItemPosition));
+        }
+    }
+}
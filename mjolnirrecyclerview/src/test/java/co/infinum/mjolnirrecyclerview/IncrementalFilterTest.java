@@ -0,0 +1,118 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Filter only checks whether updates were superseded, so the pipeline never diffs anything and has no target.
+ */
+public class IncrementalFilterTest {
+
+    private final UpdatePipeline<TestItem> pipeline = new UpdatePipeline<>(null, null);
+
+    private final IncrementalFilter<TestItem> incrementalFilter = new IncrementalFilter<>(pipeline);
+
+    private final List<TestItem> source = TestItem.createItems(100);
+
+    @Test
+    public void narrowedQueryFiltersOnlyPreviouslyMatchedItems() {
+        CountingFilter filter = new CountingFilter();
+        // 1, 10 to 19 and 21, 31, ... 91
+        assertEquals(19, incrementalFilter.filter(source, filter, "1", 0).size());
+
+        filter.matchCount = 0;
+        List<TestItem> filtered = incrementalFilter.filter(source, filter, "12", 0);
+
+        assertEquals(19, filter.matchCount);
+        assertEquals(1, filtered.size());
+        assertEquals(12, filtered.get(0).key);
+    }
+
+    @Test
+    public void widenedQueryFiltersAllItems() {
+        CountingFilter filter = new CountingFilter();
+        incrementalFilter.filter(source, filter, "12", 0);
+
+        filter.matchCount = 0;
+        assertEquals(19, incrementalFilter.filter(source, filter, "1", 0).size());
+        assertEquals(source.size(), filter.matchCount);
+    }
+
+    @Test
+    public void resultOfAnotherFilterIsNotReused() {
+        incrementalFilter.filter(source, new CountingFilter(), "1", 0);
+
+        CountingFilter newFilter = new CountingFilter();
+        List<TestItem> filtered = incrementalFilter.filter(source, newFilter, "12", 0);
+
+        assertEquals(source.size(), newFilter.matchCount);
+        assertEquals(1, filtered.size());
+    }
+
+    @Test
+    public void resultOfAnotherSourceIsNotReused() {
+        CountingFilter filter = new CountingFilter();
+        incrementalFilter.filter(source, filter, "1", 0);
+
+        List<TestItem> newSource = new ArrayList<>(source);
+        newSource.add(new TestItem(112, 0));
+        filter.matchCount = 0;
+        List<TestItem> filtered = incrementalFilter.filter(newSource, filter, "12", 0);
+
+        assertEquals(newSource.size(), filter.matchCount);
+        assertEquals(2, filtered.size());
+    }
+
+    @Test
+    public void clearedResultIsNotReused() {
+        CountingFilter filter = new CountingFilter();
+        incrementalFilter.filter(source, filter, "1", 0);
+        incrementalFilter.clear();
+
+        filter.matchCount = 0;
+        incrementalFilter.filter(source, filter, "12", 0);
+        assertEquals(source.size(), filter.matchCount);
+    }
+
+    @Test
+    public void resultOfSupersededFilterIsDroppedAndNotReused() {
+        CountingFilter filter = new CountingFilter();
+        incrementalFilter.filter(source, filter, "", 0);
+
+        // filter is replaced while the narrowing query is being filtered
+        filter.matchCount = 0;
+        filter.clearPipelineAfter = 10;
+        assertNull(incrementalFilter.filter(source, filter, "1", 0));
+
+        filter.matchCount = 0;
+        filter.clearPipelineAfter = -1;
+        List<TestItem> filtered = incrementalFilter.filter(source, filter, "12", 1);
+
+        // result of the empty query is reused, not the partial result of the superseded one
+        assertEquals(source.size(), filter.matchCount);
+        assertEquals(1, filtered.size());
+    }
+
+    /**
+     * Matches items whose key contains the query, and counts how many items it checked.
+     */
+    private final class CountingFilter extends MjolnirItemFilter<TestItem> {
+
+        int matchCount;
+
+        int clearPipelineAfter = -1;
+
+        @Override
+        public boolean matches(TestItem item, String query) {
+            if (++matchCount == clearPipelineAfter) {
+                pipeline.clear();
+            }
+            return String.valueOf(item.key).contains(query);
+        }
+    }
+}
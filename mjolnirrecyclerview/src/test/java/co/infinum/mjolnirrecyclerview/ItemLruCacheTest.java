@@ -0,0 +1,88 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ItemLruCacheTest {
+
+    private final ItemLruCache<String> cache = new ItemLruCache<>(3);
+
+    @Test
+    public void leastRecentlyPutItemIsEvicted() {
+        cache.put(0, "a");
+        cache.put(1, "b");
+        cache.put(2, "c");
+        cache.put(3, "d");
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get(0));
+        assertEquals("b", cache.get(1));
+        assertEquals("c", cache.get(2));
+        assertEquals("d", cache.get(3));
+    }
+
+    @Test
+    public void readItemIsMostRecentlyUsed() {
+        cache.put(0, "a");
+        cache.put(1, "b");
+        cache.put(2, "c");
+
+        cache.get(0);
+        cache.put(3, "d");
+        assertNull(cache.get(1));
+
+        cache.put(4, "e");
+        assertNull(cache.get(2));
+        assertEquals("a", cache.get(0));
+    }
+
+    @Test
+    public void putOfCachedPositionReplacesItemWithoutEviction() {
+        cache.put(0, "a");
+        cache.put(1, "b");
+        cache.put(2, "c");
+
+        cache.put(0, "a2");
+        assertEquals(3, cache.size());
+        assertEquals("a2", cache.get(0));
+
+        // position 0 was used last, so position 1 is evicted next
+        cache.put(3, "d");
+        assertNull(cache.get(1));
+        assertEquals("a2", cache.get(0));
+    }
+
+    @Test
+    public void clearedCacheIsEmptyAndReusable() {
+        cache.put(0, "a");
+        cache.put(1, "b");
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get(0));
+
+        cache.put(5, "f");
+        cache.put(6, "g");
+        cache.put(7, "h");
+        cache.put(8, "i");
+        assertNull(cache.get(5));
+        assertEquals("i", cache.get(8));
+    }
+
+    @Test
+    public void cacheOfSingleItemKeepsLastItem() {
+        ItemLruCache<String> single = new ItemLruCache<>(1);
+        single.put(0, "a");
+        single.put(1, "b");
+
+        assertNull(single.get(0));
+        assertEquals("b", single.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyCacheCanNotBeCreated() {
+        new ItemLruCache<String>(0);
+    }
+}
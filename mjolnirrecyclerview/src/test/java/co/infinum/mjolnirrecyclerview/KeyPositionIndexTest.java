@@ -0,0 +1,94 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeyPositionIndexTest {
+
+    private static final int OPERATION_COUNT = 5000;
+
+    @Test
+    public void randomOperationsMatchPositionsInList() {
+        Random random = new Random(4);
+        List<TestItem> items = new ArrayList<>(TestItem.createItems(500));
+        KeyPositionIndex<TestItem> index = new KeyPositionIndex<>(items, TestItem.KEY_EXTRACTOR);
+        Set<Long> removedKeys = new HashSet<>();
+        long nextKey = items.size();
+
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 4 || items.isEmpty()) {
+                int position = random.nextInt(items.size() + 1);
+                int count = 1 + random.nextInt(5);
+                for (int j = 0; j < count; j++) {
+                    items.add(position + j, new TestItem(nextKey++, 0));
+                }
+                index.onInserted(position, count);
+            } else if (operation < 8) {
+                int position = random.nextInt(items.size());
+                int count = 1 + random.nextInt(Math.min(5, items.size() - position));
+                for (int j = 0; j < count; j++) {
+                    removedKeys.add(items.remove(position).key);
+                }
+                index.onRemoved(position, count);
+            } else if (operation < 9) {
+                int position = random.nextInt(items.size());
+                removedKeys.add(items.set(position, new TestItem(nextKey++, 0)).key);
+                index.onChanged(position);
+            } else {
+                // bulk changes only invalidate the index
+                List<TestItem> newItems = TestItem.mutate(items, 20, nextKey, random);
+                nextKey += 20;
+                Set<Long> newKeys = new HashSet<>();
+                for (TestItem item : newItems) {
+                    newKeys.add(item.key);
+                }
+                for (TestItem item : items) {
+                    if (!newKeys.contains(item.key)) {
+                        removedKeys.add(item.key);
+                    }
+                }
+                items.clear();
+                items.addAll(newItems);
+                index.invalidate();
+            }
+
+            if (i % 10 == 0) {
+                assertPositions(items, index);
+                for (long key : removedKeys) {
+                    assertEquals(-1, index.indexOf(key));
+                }
+            }
+        }
+        assertPositions(items, index);
+    }
+
+    @Test
+    public void duplicateKeysResolveToFirstItem() {
+        List<TestItem> items = new ArrayList<>(TestItem.createItems(10));
+        KeyPositionIndex<TestItem> index = new KeyPositionIndex<>(items, TestItem.KEY_EXTRACTOR);
+        assertEquals(7, index.indexOf(7));
+
+        items.add(3, new TestItem(7, 1));
+        index.onInserted(3, 1);
+        assertEquals(3, index.indexOf(7));
+        assertEquals(7, index.indexOf(6));
+
+        items.remove(3);
+        index.onRemoved(3, 1);
+        assertPositions(items, index);
+    }
+
+    private static void assertPositions(List<TestItem> items, KeyPositionIndex<TestItem> index) {
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals("Position of " + items.get(i), i, index.indexOf(items.get(i).key));
+        }
+    }
+}
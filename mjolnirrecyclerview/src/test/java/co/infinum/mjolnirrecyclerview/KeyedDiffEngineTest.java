@@ -0,0 +1,98 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeyedDiffEngineTest {
+
+    private static final int ITERATION_COUNT = 500;
+
+    private final KeyedDiffEngine<TestItem> engine = new KeyedDiffEngine<>(TestItem.KEY_EXTRACTOR);
+
+    @Test
+    public void randomChangesAreReplayedToNewItems() {
+        Random random = new Random(6);
+        for (int i = 0; i < ITERATION_COUNT; i++) {
+            List<TestItem> oldItems = TestItem.createItems(random.nextInt(200));
+            List<TestItem> newItems = TestItem.mutate(oldItems, random.nextInt(30), oldItems.size(), random);
+            assertDiff(oldItems, newItems);
+        }
+    }
+
+    @Test
+    public void duplicateKeysAreReplayedToNewItems() {
+        Random random = new Random(7);
+        for (int i = 0; i < ITERATION_COUNT; i++) {
+            List<TestItem> oldItems = new ArrayList<>();
+            List<TestItem> newItems = new ArrayList<>();
+            for (int j = random.nextInt(50); j > 0; j--) {
+                oldItems.add(new TestItem(random.nextInt(10), 0));
+            }
+            for (int j = random.nextInt(50); j > 0; j--) {
+                newItems.add(new TestItem(random.nextInt(10), random.nextInt(2)));
+            }
+            assertDiff(oldItems, newItems);
+        }
+    }
+
+    @Test
+    public void appendedPageIsSingleInsert() {
+        List<TestItem> oldItems = TestItem.createItems(100);
+        List<TestItem> newItems = TestItem.createItems(120);
+
+        UpdateOperations operations = (UpdateOperations) engine.calculateDiff(oldItems, newItems);
+
+        assertEquals(1, operations.size());
+        assertDiff(oldItems, newItems);
+    }
+
+    @Test
+    public void reversedItemsAreMovedWithMinimalNumberOfMoves() {
+        List<TestItem> oldItems = TestItem.createItems(10);
+        List<TestItem> newItems = new ArrayList<>(oldItems);
+        Collections.reverse(newItems);
+
+        UpdateOperations operations = (UpdateOperations) engine.calculateDiff(oldItems, newItems);
+
+        // only one item keeps its relative order, all the others are moved
+        assertEquals(9, operations.size());
+        assertDiff(oldItems, newItems);
+    }
+
+    @Test
+    public void longestIncreasingSubsequenceIsMarkedByValue() {
+        int[] values = {3, 0, 4, 1, 5, 7, 2, 6};
+        boolean[] isPart = KeyedDiffEngine.longestIncreasingSubsequence(values);
+
+        int[] positions = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            positions[values[i]] = i;
+        }
+
+        // marked values have to appear in increasing order
+        int count = 0;
+        int lastPosition = -1;
+        for (int value = 0; value < values.length; value++) {
+            if (isPart[value]) {
+                assertTrue(Arrays.toString(isPart), positions[value] > lastPosition);
+                lastPosition = positions[value];
+                count++;
+            }
+        }
+        assertEquals(Arrays.toString(isPart), 4, count);
+    }
+
+    private void assertDiff(List<TestItem> oldItems, List<TestItem> newItems) {
+        ReplayingCallback<TestItem> callback = new ReplayingCallback<>(oldItems);
+        engine.calculateDiff(oldItems, newItems).dispatchUpdatesTo(callback);
+        callback.assertTransformedTo(newItems, TestItem.KEY_EXTRACTOR);
+    }
+}
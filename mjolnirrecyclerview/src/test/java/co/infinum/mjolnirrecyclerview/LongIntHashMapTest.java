@@ -0,0 +1,86 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongIntHashMapTest {
+
+    private static final int OPERATION_COUNT = 100000;
+
+    private static final int MISSING = -1;
+
+    @Test
+    public void randomOperationsMatchHashMap() {
+        Random random = new Random(1);
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            // keys from a small range collide often, so removals have to shift probe sequences
+            long key = random.nextInt(4) == 0 ? random.nextLong() : random.nextInt(512) - 256;
+            int value = random.nextInt(1000);
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    map.put(key, value);
+                    expected.put(key, value);
+                    break;
+                case 1:
+                    assertEquals(!expected.containsKey(key), map.putIfAbsent(key, value));
+                    if (!expected.containsKey(key)) {
+                        expected.put(key, value);
+                    }
+                    break;
+                case 2:
+                    assertEquals(expected.remove(key) != null, map.remove(key));
+                    break;
+                default:
+                    Integer expectedValue = expected.get(key);
+                    assertEquals(expectedValue != null ? expectedValue : MISSING, map.get(key, MISSING));
+                    assertEquals(expectedValue != null, map.containsKey(key));
+                    break;
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey(), MISSING));
+        }
+    }
+
+    @Test
+    public void sequentialKeysAreKeptWhileResizing() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        for (int i = 0; i < 10000; i++) {
+            map.put(i, i * 2);
+        }
+
+        assertEquals(10000, map.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i * 2, map.get(i, MISSING));
+        }
+        assertFalse(map.containsKey(10000));
+    }
+
+    @Test
+    public void clearRemovesAllKeys() {
+        LongIntHashMap map = new LongIntHashMap();
+        map.put(Long.MIN_VALUE, 1);
+        map.put(0, 2);
+        map.put(Long.MAX_VALUE, 3);
+
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(0));
+        assertTrue(map.putIfAbsent(0, 4));
+        assertEquals(4, map.get(0, MISSING));
+    }
+}
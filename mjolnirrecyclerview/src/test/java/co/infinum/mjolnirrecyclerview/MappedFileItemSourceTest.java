@@ -0,0 +1,92 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappedFileItemSourceTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final MappedFileItemSource.RecordDecoder<String> DECODER = new MappedFileItemSource.RecordDecoder<String>() {
+        @Override
+        public String decode(ByteBuffer buffer, int offset, int length) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(offset + i);
+            }
+            return new String(bytes, UTF_8);
+        }
+    };
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("records", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void variableLengthRecordsAreDecodedFromTheirOffsets() throws IOException {
+        // empty record checks that the end of a record is taken from the offset of the next one
+        String[] records = {"first", "", "third record", "x"};
+        DataOutputStream output = new DataOutputStream(new FileOutputStream(file));
+        try {
+            for (String record : records) {
+                byte[] bytes = record.getBytes(UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+        } finally {
+            output.close();
+        }
+
+        MappedFileItemSource<String> source = new MappedFileItemSource<>(file, DECODER, 2);
+        assertEquals(records.length, source.size());
+        for (int i = records.length - 1; i >= 0; i--) {
+            assertEquals(records[i], source.get(i));
+        }
+    }
+
+    @Test
+    public void fixedLengthRecordsAreDecodedFromTheirPositions() throws IOException {
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write("aaabbbccc".getBytes(UTF_8));
+        } finally {
+            output.close();
+        }
+
+        MappedFileItemSource<String> source = new MappedFileItemSource<>(file, 3, DECODER);
+        assertEquals(3, source.size());
+        assertEquals("bbb", source.get(1));
+        assertEquals("ccc", source.get(2));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedRecordIsRejected() throws IOException {
+        DataOutputStream output = new DataOutputStream(new FileOutputStream(file));
+        try {
+            output.writeInt(10);
+            output.write(new byte[9]);
+        } finally {
+            output.close();
+        }
+
+        new MappedFileItemSource<>(file, DECODER);
+    }
+}
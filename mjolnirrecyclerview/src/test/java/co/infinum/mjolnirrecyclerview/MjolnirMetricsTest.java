@@ -0,0 +1,90 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MjolnirMetricsTest {
+
+    @Test
+    public void bucketsArePowersOfTwo() {
+        assertEquals(0, MjolnirMetrics.Histogram.getBucket(0));
+        assertEquals(0, MjolnirMetrics.Histogram.getBucket(1));
+        assertEquals(1, MjolnirMetrics.Histogram.getBucket(2));
+        assertEquals(1, MjolnirMetrics.Histogram.getBucket(3));
+        assertEquals(2, MjolnirMetrics.Histogram.getBucket(4));
+        assertEquals(9, MjolnirMetrics.Histogram.getBucket(1023));
+        assertEquals(10, MjolnirMetrics.Histogram.getBucket(1024));
+        assertEquals(38, MjolnirMetrics.Histogram.getBucket((1L << 39) - 1));
+    }
+
+    @Test
+    public void longLatenciesAreInTheLastBucket() {
+        assertEquals(MjolnirMetrics.BUCKET_COUNT - 1, MjolnirMetrics.Histogram.getBucket(1L << 39));
+        assertEquals(MjolnirMetrics.BUCKET_COUNT - 1, MjolnirMetrics.Histogram.getBucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void snapshotContainsRecordedLatencies() {
+        MjolnirMetrics.Histogram histogram = new MjolnirMetrics.Histogram();
+        histogram.record(100);
+        histogram.record(300);
+        histogram.record(-5);
+
+        MjolnirMetrics.HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(3, snapshot.getCount());
+        assertEquals(400, snapshot.getTotalNanos());
+        assertEquals(300, snapshot.getMaxNanos());
+        assertEquals(1, snapshot.getBucketCount(0));
+        assertEquals(1, snapshot.getBucketCount(6));
+        assertEquals(1, snapshot.getBucketCount(8));
+    }
+
+    @Test
+    public void percentileIsUpperBoundOfItsBucket() {
+        MjolnirMetrics.Histogram histogram = new MjolnirMetrics.Histogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(5000);
+
+        MjolnirMetrics.HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1023, snapshot.getPercentileNanos(50));
+        assertEquals(1023, snapshot.getPercentileNanos(99));
+        // upper bound of the last bucket is capped by the maximum
+        assertEquals(5000, snapshot.getPercentileNanos(100));
+    }
+
+    @Test
+    public void viewTypesAreSortedAndOnlySlowOperationsAreReported() {
+        final List<Integer> slowViewTypes = new ArrayList<>();
+        MjolnirMetrics metrics = new MjolnirMetrics();
+        metrics.setListener(new MjolnirMetrics.Listener() {
+            @Override
+            public void onSlowOperation(int operation, int viewType, long durationNanos) {
+                slowViewTypes.add(viewType);
+            }
+        }, 1000);
+
+        metrics.recordBind(7, 500);
+        metrics.recordCreate(3, 2000);
+        metrics.recordBind(5, 1000);
+        metrics.recordDiffCalculation(1500);
+
+        MjolnirMetrics.Snapshot snapshot = metrics.snapshot();
+        assertArrayEquals(new int[]{3, 5, 7}, snapshot.getViewTypes());
+        assertEquals(1, snapshot.getCreateLatency(3).getCount());
+        assertEquals(0, snapshot.getBindLatency(3).getCount());
+        assertEquals(1, snapshot.getDiffCalculationLatency().getCount());
+        assertEquals(2, slowViewTypes.size());
+        assertEquals(Integer.valueOf(3), slowViewTypes.get(0));
+        assertEquals(Integer.valueOf(MjolnirMetrics.NO_VIEW_TYPE), slowViewTypes.get(1));
+
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().getBindLatency(7).getCount());
+    }
+}
@@ -0,0 +1,143 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Scheduled drains are only counted, and the queue is drained by the test, as if the next frame has come.
+ */
+public class MutationQueueTest {
+
+    private final Set<String> displayedItems = new HashSet<>();
+
+    private final List<String> applied = new ArrayList<>();
+
+    private int scheduledCount;
+
+    private final MutationQueue<String> queue = new MutationQueue<>(new MutationQueue.Target<String>() {
+        @Override
+        public void applyMutations(List<MutationQueue.Mutation<String>> mutations) {
+            for (MutationQueue.Mutation<String> mutation : mutations) {
+                applied.add(mutation.type + ":" + (mutation.item != null ? mutation.item : mutation.collection));
+            }
+        }
+
+        @Override
+        public boolean mayContain(String item) {
+            return displayedItems.contains(item);
+        }
+    }, new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            scheduledCount++;
+        }
+    });
+
+    @Test
+    public void drainIsScheduledOncePerBatch() {
+        queue.post(MutationQueue.TYPE_ADD, "a", null);
+        queue.post(MutationQueue.TYPE_ADD, "b", null);
+        assertEquals(1, scheduledCount);
+
+        queue.drain();
+        queue.post(MutationQueue.TYPE_ADD, "c", null);
+        assertEquals(2, scheduledCount);
+    }
+
+    @Test
+    public void mutationsAreAppliedInOrderOfPosting() {
+        queue.post(MutationQueue.TYPE_ADD, "a", null);
+        queue.post(MutationQueue.TYPE_SET, "b", null);
+        queue.post(MutationQueue.TYPE_REMOVE, "c", null);
+        queue.drain();
+
+        assertApplied(add("a"), MutationQueue.TYPE_SET + ":b", remove("c"));
+    }
+
+    @Test
+    public void addingAndRemovingItemWhichIsNotDisplayedCancelsOut() {
+        queue.post(MutationQueue.TYPE_ADD, "a", null);
+        queue.post(MutationQueue.TYPE_ADD, "b", null);
+        queue.post(MutationQueue.TYPE_REMOVE, "a", null);
+        queue.drain();
+
+        assertApplied(add("b"));
+    }
+
+    @Test
+    public void addingAndRemovingItemWhichMayBeDisplayedDoesNotCancelOut() {
+        // removal removes the displayed item, so the added one stays
+        displayedItems.add("a");
+        queue.post(MutationQueue.TYPE_ADD, "a", null);
+        queue.post(MutationQueue.TYPE_REMOVE, "a", null);
+        queue.drain();
+
+        assertApplied(add("a"), remove("a"));
+    }
+
+    @Test
+    public void removalDoesNotCancelOutDuplicateAdditions() {
+        queue.post(MutationQueue.TYPE_ADD, "a", null);
+        queue.post(MutationQueue.TYPE_ADD, "a", null);
+        queue.post(MutationQueue.TYPE_REMOVE, "a", null);
+        queue.drain();
+
+        assertApplied(add("a"), add("a"), remove("a"));
+    }
+
+    @Test
+    public void removalAfterAddingAllDoesNotCancelOutEarlierAddition() {
+        List<String> collection = Collections.singletonList("a");
+        queue.post(MutationQueue.TYPE_ADD, "a", null);
+        queue.post(MutationQueue.TYPE_ADD_ALL, null, collection);
+        queue.post(MutationQueue.TYPE_REMOVE, "a", null);
+        queue.drain();
+
+        assertApplied(add("a"), MutationQueue.TYPE_ADD_ALL + ":" + collection, remove("a"));
+    }
+
+    @Test
+    public void removalAfterSetDoesNotCancelOutEarlierAddition() {
+        queue.post(MutationQueue.TYPE_ADD, "a", null);
+        queue.post(MutationQueue.TYPE_SET, "b", null);
+        queue.post(MutationQueue.TYPE_REMOVE, "a", null);
+        queue.drain();
+
+        assertApplied(add("a"), MutationQueue.TYPE_SET + ":b", remove("a"));
+    }
+
+    @Test
+    public void updateDropsEarlierMutations() {
+        List<String> newItems = Collections.singletonList("x");
+        queue.post(MutationQueue.TYPE_ADD, "a", null);
+        queue.post(MutationQueue.TYPE_REMOVE, "b", null);
+        queue.post(MutationQueue.TYPE_UPDATE, null, newItems);
+        queue.post(MutationQueue.TYPE_ADD, "c", null);
+        queue.post(MutationQueue.TYPE_REMOVE, "a", null);
+        queue.drain();
+
+        // addition of a was dropped, so its removal can't be cancelled with it
+        assertApplied(MutationQueue.TYPE_UPDATE + ":" + newItems, add("c"), remove("a"));
+    }
+
+    private void assertApplied(String... expected) {
+        assertEquals(Arrays.asList(expected), applied);
+    }
+
+    private static String add(String item) {
+        return MutationQueue.TYPE_ADD + ":" + item;
+    }
+
+    private static String remove(String item) {
+        return MutationQueue.TYPE_REMOVE + ":" + item;
+    }
+}
@@ -0,0 +1,148 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pages are loaded only when the test completes them, and loaded pages are handed over on the calling thread.
+ */
+public class PagedItemSourceTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private static final int TOTAL_COUNT = 100;
+
+    private static final int MAX_RESIDENT_PAGES = 3;
+
+    private final Map<Integer, PagedItemSource.PageCallback<Integer>> requests = new HashMap<>();
+
+    private final List<String> notifications = new ArrayList<>();
+
+    private PagedItemSource<Integer> source;
+
+    @Before
+    public void setUp() {
+        PagedItemSource.PageLoader<Integer> loader = new PagedItemSource.PageLoader<Integer>() {
+            @Override
+            public void loadPage(int page, int pageSize, PagedItemSource.PageCallback<Integer> callback) {
+                requests.put(page, callback);
+            }
+        };
+        Executor directExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        source = new PagedItemSource<>(loader, PAGE_SIZE, MAX_RESIDENT_PAGES, 0, directExecutor);
+        source.attach(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                notifications.add("inserted " + position + "+" + count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                notifications.add("removed " + position + "+" + count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                notifications.add("moved " + fromPosition + "->" + toPosition);
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                notifications.add("changed " + position + "+" + count);
+            }
+        });
+    }
+
+    @Test
+    public void firstPageReportsTotalCountAndPrefetchesNextPage() {
+        assertEquals(0, source.size());
+        complete(0);
+
+        assertEquals(TOTAL_COUNT, source.size());
+        assertEquals(Integer.valueOf(5), source.get(5));
+        assertNull(source.get(15));
+        assertEquals("inserted 0+100", notifications.get(0));
+        assertTrue(requests.containsKey(1));
+    }
+
+    @Test
+    public void pagesFarthestFromLastAccessedItemAreEvicted() {
+        complete(0);
+        complete(1);
+
+        source.onItemAccessed(55);
+        complete(4);
+        complete(5);
+        complete(6);
+
+        assertEquals(MAX_RESIDENT_PAGES, source.getResidentPageCount());
+        assertNull(source.get(0));
+        assertNull(source.get(15));
+        assertEquals(Integer.valueOf(45), source.get(45));
+        assertEquals(Integer.valueOf(65), source.get(65));
+        assertTrue(notifications.contains("changed 0+10"));
+        assertTrue(notifications.contains("changed 10+10"));
+
+        // evicted page is loaded again when the user scrolls back to it
+        source.onItemAccessed(5);
+        assertTrue(requests.containsKey(0));
+    }
+
+    @Test
+    public void pageLoadedBeforeRefreshIsIgnored() {
+        complete(0);
+        PagedItemSource.PageCallback<Integer> staleCallback = requests.remove(1);
+
+        source.refresh();
+        staleCallback.onPageLoaded(page(1), TOTAL_COUNT);
+
+        assertNull(source.get(15));
+        assertEquals(0, source.getResidentPageCount());
+    }
+
+    @Test
+    public void reloadedPageDispatchesOnlyChangedItems() {
+        complete(0);
+        notifications.clear();
+
+        source.reload();
+        List<Integer> items = page(0);
+        items.set(3, -3);
+        items.set(4, -4);
+        requests.remove(0).onPageLoaded(items, TOTAL_COUNT);
+
+        assertEquals(Integer.valueOf(-3), source.get(3));
+        assertTrue(notifications.contains("changed 3+2"));
+        assertFalse(notifications.contains("changed 0+10"));
+    }
+
+    private void complete(int page) {
+        requests.remove(page).onPageLoaded(page(page), TOTAL_COUNT);
+    }
+
+    private static List<Integer> page(int page) {
+        List<Integer> items = new ArrayList<>();
+        for (int i = page * PAGE_SIZE; i < Math.min((page + 1) * PAGE_SIZE, TOTAL_COUNT); i++) {
+            items.add(i);
+        }
+        return items;
+    }
+}
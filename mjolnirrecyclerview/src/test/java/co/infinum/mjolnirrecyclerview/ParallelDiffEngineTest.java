@@ -0,0 +1,102 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelDiffEngineTest {
+
+    private static final int ITERATION_COUNT = 100;
+
+    /**
+     * Chunks are small, so that lists of a few thousand items are split into multiple chunks.
+     */
+    private static final int MIN_CHUNK_SIZE = 16;
+
+    private final KeyedDiffEngine<TestItem> chunkEngine = new KeyedDiffEngine<>(TestItem.KEY_EXTRACTOR);
+
+    @Test
+    public void chunksDiffedOnCallingThreadAreReplayedToNewItems() {
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                // nothing is picked up by the executor, so the calling thread diffs all chunks
+            }
+        };
+        assertRandomDiffs(new ParallelDiffEngine<>(chunkEngine, executor, 4, MIN_CHUNK_SIZE), new Random(8));
+    }
+
+    @Test
+    public void chunksDiffedConcurrentlyAreReplayedToNewItems() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            assertRandomDiffs(new ParallelDiffEngine<>(chunkEngine, executor, 4, MIN_CHUNK_SIZE), new Random(9));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void itemsMovedAcrossTheWholeListAreReplayedToNewItems() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            ParallelDiffEngine<TestItem> engine = new ParallelDiffEngine<>(chunkEngine, executor, 4, MIN_CHUNK_SIZE);
+            List<TestItem> oldItems = TestItem.createItems(2000);
+            List<TestItem> newItems = new ArrayList<>(oldItems);
+            // first and last items are swapped, so the whole list has to be a single chunk
+            Collections.swap(newItems, 0, newItems.size() - 1);
+            assertDiff(engine, oldItems, newItems);
+
+            Collections.reverse(newItems);
+            assertDiff(engine, oldItems, newItems);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void chunksOfDefaultEngineDontRunOnSharedDiffWorkers() {
+        final Set<String> threadNames = Collections.synchronizedSet(new HashSet<String>());
+        KeyedDiffEngine<TestItem> recordingEngine = new KeyedDiffEngine<TestItem>(TestItem.KEY_EXTRACTOR) {
+            @Override
+            void calculateDiff(List<TestItem> oldItems, List<TestItem> newItems, UpdateOperations operations) {
+                threadNames.add(Thread.currentThread().getName());
+                super.calculateDiff(oldItems, newItems, operations);
+            }
+        };
+
+        List<TestItem> oldItems = TestItem.createItems(ParallelDiffEngine.DEFAULT_MIN_CHUNK_SIZE * 4);
+        List<TestItem> newItems = TestItem.mutate(oldItems, 500, oldItems.size(), new Random(10));
+        assertDiff(new ParallelDiffEngine<>(recordingEngine), oldItems, newItems);
+
+        assertTrue(threadNames.size() >= 1);
+        for (String threadName : threadNames) {
+            assertFalse(threadName, threadName.startsWith("MjolnirDiff-"));
+        }
+    }
+
+    private static void assertRandomDiffs(ParallelDiffEngine<TestItem> engine, Random random) {
+        for (int i = 0; i < ITERATION_COUNT; i++) {
+            List<TestItem> oldItems = TestItem.createItems(500 + random.nextInt(3000));
+            List<TestItem> newItems = TestItem.mutate(oldItems, random.nextInt(300), oldItems.size(), random);
+            assertDiff(engine, oldItems, newItems);
+        }
+    }
+
+    private static void assertDiff(ParallelDiffEngine<TestItem> engine, List<TestItem> oldItems, List<TestItem> newItems) {
+        ReplayingCallback<TestItem> callback = new ReplayingCallback<>(oldItems);
+        engine.calculateDiff(oldItems, newItems).dispatchUpdatesTo(callback);
+        callback.assertTransformedTo(newItems, TestItem.KEY_EXTRACTOR);
+    }
+}
@@ -0,0 +1,183 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentItemListTest {
+
+    private static final int OPERATION_COUNT = 20000;
+
+    /**
+     * Lists are large enough to have multiple levels of nodes, so inserts split nodes and removals merge them.
+     */
+    @Test
+    public void randomOperationsMatchArrayList() {
+        Random random = new Random(3);
+        PersistentItemList<Integer> list = new PersistentItemList<>();
+        List<Integer> expected = new ArrayList<>();
+
+        List<List<Integer>> snapshots = new ArrayList<>();
+        List<List<Integer>> expectedSnapshots = new ArrayList<>();
+        int nextValue = 0;
+
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            int operation = random.nextInt(100);
+            if (operation < 40 || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                list.add(index, nextValue);
+                expected.add(index, nextValue++);
+            } else if (operation < 65) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), list.remove(index));
+            } else if (operation < 80) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.set(index, nextValue), list.set(index, nextValue));
+                nextValue++;
+            } else if (operation < 85) {
+                List<Integer> page = new ArrayList<>();
+                for (int j = random.nextInt(100); j > 0; j--) {
+                    page.add(nextValue++);
+                }
+                assertEquals(expected.addAll(page), list.addAll(page));
+            } else if (operation < 87) {
+                Set<Integer> removed = new HashSet<>();
+                for (int j = random.nextInt(50); j > 0; j--) {
+                    removed.add(expected.get(random.nextInt(expected.size())));
+                }
+                ReplayingCallback<Integer> callback = new ReplayingCallback<>(expected);
+                assertEquals(expected.removeAll(removed), list.removeAll(removed, callback));
+                assertEquals(expected, callback.getItems());
+            } else if (operation < 88) {
+                List<Integer> retained = new ArrayList<>();
+                for (Integer value : expected) {
+                    if (random.nextInt(4) != 0) {
+                        retained.add(value);
+                    }
+                }
+                assertEquals(expected.retainAll(retained), list.retainAll(retained));
+            } else if (operation < 89) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.indexOf(expected.get(index)), list.indexOf(expected.get(index)));
+                assertEquals(-1, list.indexOf(-1));
+            } else if (operation < 95) {
+                snapshots.add(list.snapshot());
+                expectedSnapshots.add(new ArrayList<>(expected));
+            } else if (operation < 99) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.get(index), list.get(index));
+            } else {
+                List<Integer> items = new ArrayList<>();
+                for (int j = random.nextInt(3000); j > 0; j--) {
+                    items.add(nextValue++);
+                }
+                list.setAll(items);
+                expected.clear();
+                expected.addAll(items);
+            }
+            assertEquals(expected.size(), list.size());
+        }
+
+        assertEquals(expected, list);
+        assertEquals(expected, list.snapshot());
+        // snapshots are not affected by modifications which were made after they were taken
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(expectedSnapshots.get(i), snapshots.get(i));
+        }
+    }
+
+    @Test
+    public void versionChangesOnlyWhenModified() {
+        PersistentItemList<Integer> list = new PersistentItemList<>(range(100));
+        long version = list.getVersion();
+
+        list.get(50);
+        list.snapshot();
+        list.removeAll(new HashSet<>(range(0)), null);
+        assertEquals(version, list.getVersion());
+
+        list.set(50, -1);
+        assertTrue(list.getVersion() != version);
+    }
+
+    @Test
+    public void removeAllFindsItemsWithContainsOfCollection() {
+        List<UnhashedItem> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(new UnhashedItem(i));
+        }
+        PersistentItemList<UnhashedItem> list = new PersistentItemList<>(items);
+
+        ReplayingCallback<UnhashedItem> callback = new ReplayingCallback<>(items);
+        assertTrue(list.removeAll(Arrays.asList(new UnhashedItem(3), new UnhashedItem(4), new UnhashedItem(50)), callback));
+
+        items.remove(50);
+        items.subList(3, 5).clear();
+        assertEquals(items, list);
+        assertEquals(items, callback.getItems());
+    }
+
+    @Test
+    public void iteratorReturnsItemsInOrder() {
+        List<Integer> values = range(1000);
+        PersistentItemList<Integer> list = new PersistentItemList<>(values);
+
+        Iterator<Integer> iterator = list.iterator();
+        for (Integer value : values) {
+            assertTrue(iterator.hasNext());
+            assertEquals(value, iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotIsImmutable() {
+        PersistentItemList<Integer> list = new PersistentItemList<>(range(10));
+        list.snapshot().add(10);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getOutOfBoundsThrows() {
+        new PersistentItemList<>(range(10)).get(10);
+    }
+
+    /**
+     * Item, which overrides only equals() in effect, like models which don't implement hashCode().
+     */
+    private static final class UnhashedItem {
+
+        final int value;
+
+        UnhashedItem(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof UnhashedItem && ((UnhashedItem) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+
+    private static List<Integer> range(int count) {
+        List<Integer> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,92 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrefetchEstimatorTest {
+
+    private static final int MIN_DISTANCE = 5;
+
+    private static final int MAX_DISTANCE = 100;
+
+    private final PrefetchEstimator estimator = new PrefetchEstimator();
+
+    @Test
+    public void firstLatencySampleIsTheAverage() {
+        estimator.onLoadStarted(1000);
+        estimator.onLoadFinished(1400);
+
+        assertEquals(400, estimator.getLastLatency());
+        assertEquals(400, estimator.getAverageLatency());
+    }
+
+    @Test
+    public void laterLatencySamplesAreSmoothed() {
+        estimator.onLoadStarted(0);
+        estimator.onLoadFinished(400);
+        estimator.onLoadStarted(1000);
+        estimator.onLoadFinished(1100);
+
+        assertEquals(100, estimator.getLastLatency());
+        // 400 + 0.3 * (100 - 400)
+        assertEquals(310, estimator.getAverageLatency());
+    }
+
+    @Test
+    public void loadFinishedWithoutStartIsIgnored() {
+        estimator.onLoadStarted(0);
+        estimator.onLoadFinished(200);
+        // e.g. items which were added after the page has already arrived
+        estimator.onLoadFinished(5000);
+
+        assertEquals(200, estimator.getLastLatency());
+        assertEquals(200, estimator.getAverageLatency());
+    }
+
+    @Test
+    public void distanceIsItemsScrolledWhilePageLoadsWithSafetyMargin() {
+        estimator.onLoadStarted(0);
+        estimator.onLoadFinished(500);
+
+        // 0.1 items per millisecond, first sample after a pause isn't smoothed
+        estimator.onScrolled(0, 1000);
+        estimator.onScrolled(40, 1400);
+
+        assertEquals(100, estimator.getVelocity(1400), 0.001);
+        // 0.1 * 500 * 1.5
+        assertEquals(75, estimator.getDistance(MIN_DISTANCE, MAX_DISTANCE, 1400));
+    }
+
+    @Test
+    public void distanceIsClampedToBounds() {
+        estimator.onLoadStarted(0);
+        estimator.onLoadFinished(10000);
+
+        estimator.onScrolled(0, 1000);
+        estimator.onScrolled(40, 1400);
+        assertEquals(MAX_DISTANCE, estimator.getDistance(MIN_DISTANCE, MAX_DISTANCE, 1400));
+
+        // scrolling back doesn't bring the next page closer
+        estimator.onScrolled(0, 1800);
+        assertEquals(MIN_DISTANCE, estimator.getDistance(MIN_DISTANCE, MAX_DISTANCE, 1800));
+    }
+
+    @Test
+    public void velocityDropsToZeroWhenScrollingStops() {
+        estimator.onScrolled(0, 1000);
+        estimator.onScrolled(50, 1100);
+
+        assertEquals(0, estimator.getVelocity(2000), 0);
+    }
+
+    @Test
+    public void velocityIsSmoothed() {
+        estimator.onScrolled(0, 1000);
+        estimator.onScrolled(40, 1400);
+        estimator.onScrolled(70, 1500);
+
+        // 0.1 + 0.5 * (0.3 - 0.1) items per millisecond
+        assertEquals(200, estimator.getVelocity(1500), 0.001);
+    }
+}
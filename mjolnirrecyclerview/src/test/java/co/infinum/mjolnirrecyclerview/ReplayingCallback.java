@@ -0,0 +1,144 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Replays update operations on a copy of the old items, the same way as RecyclerView applies notifications to its views, so it can be
+ * checked that the operations transform the old items into the new ones.
+ * <p>
+ * Inserted items are replayed as null, because notifications don't carry them, and items which were notified as changed are
+ * remembered by their positions at the end.
+ *
+ * @param <E> type of items.
+ */
+final class ReplayingCallback<E> implements ListUpdateCallback {
+
+    private final List<E> originalItems;
+
+    private final List<E> items;
+
+    private final List<Boolean> changed;
+
+    ReplayingCallback(List<E> oldItems) {
+        originalItems = new ArrayList<>(oldItems);
+        items = new ArrayList<>(oldItems);
+        changed = new ArrayList<>(oldItems.size());
+        for (int i = 0; i < oldItems.size(); i++) {
+            changed.add(false);
+        }
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+        // items can be inserted at the end, so the range starts in the list, but it doesn't have to end in it
+        checkRange(position, 1, items.size() + 1);
+        if (count < 1) {
+            fail("Inserted " + count + " items");
+        }
+        for (int i = 0; i < count; i++) {
+            items.add(position, null);
+            changed.add(position, false);
+        }
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        checkRange(position, count, items.size());
+        for (int i = 0; i < count; i++) {
+            items.remove(position);
+            changed.remove(position);
+        }
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        checkRange(fromPosition, 1, items.size());
+        checkRange(toPosition, 1, items.size());
+        items.add(toPosition, items.remove(fromPosition));
+        changed.add(toPosition, changed.remove(fromPosition));
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+        checkRange(position, count, items.size());
+        for (int i = position; i < position + count; i++) {
+            changed.set(i, true);
+        }
+    }
+
+    /**
+     * @return replayed items, in which inserted items are null.
+     */
+    List<E> getItems() {
+        return items;
+    }
+
+    boolean isChanged(int position) {
+        return changed.get(position);
+    }
+
+    /**
+     * @return number of old items, which weren't removed.
+     */
+    int getKeptCount() {
+        int count = 0;
+        for (E item : items) {
+            if (item != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks that replayed operations transformed old items into {@param newItems}: every kept item is at the position of the new
+     * item with the same key, and it was notified as changed if its contents differ. If keys are unique, also checks that no item
+     * which is present in both lists was removed and inserted again.
+     */
+    void assertTransformedTo(List<E> newItems, KeyExtractor<E> keyExtractor) {
+        assertEquals("Size", newItems.size(), items.size());
+
+        for (int i = 0; i < newItems.size(); i++) {
+            E oldItem = items.get(i);
+            E newItem = newItems.get(i);
+            if (oldItem != null) {
+                assertEquals("Key at " + i, keyExtractor.getKey(newItem), keyExtractor.getKey(oldItem));
+                if (!oldItem.equals(newItem)) {
+                    assertTrue("Change at " + i, changed.get(i));
+                }
+            }
+        }
+
+        Set<Long> newKeys = new HashSet<>();
+        for (E item : newItems) {
+            newKeys.add(keyExtractor.getKey(item));
+        }
+        if (newKeys.size() == newItems.size()) {
+            int commonCount = 0;
+            Set<Long> oldKeys = new HashSet<>();
+            for (E item : originalItems) {
+                if (oldKeys.add(keyExtractor.getKey(item)) && newKeys.contains(keyExtractor.getKey(item))) {
+                    commonCount++;
+                }
+            }
+            if (oldKeys.size() == originalItems.size()) {
+                assertEquals("Kept items", commonCount, getKeptCount());
+            }
+        }
+    }
+
+    private static void checkRange(int position, int count, int size) {
+        if (position < 0 || count < 1 || position + count > size) {
+            fail("Range " + position + "+" + count + " is out of bounds of " + size);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package co.infinum.mjolnirrecyclerview;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Items are sorted by their versions, so items with the same version are equal by the comparator and their keys tell them apart.
+ */
+public class SortedItemsTest {
+
+    private static final Comparator<TestItem> BY_VERSION = new Comparator<TestItem>() {
+        @Override
+        public int compare(TestItem first, TestItem second) {
+            return first.version < second.version ? -1 : (first.version == second.version ? 0 : 1);
+        }
+    };
+
+    private final List<TestItem> items = new ArrayList<>(Arrays.asList(
+            new TestItem(0, 1), new TestItem(1, 2), new TestItem(2, 2), new TestItem(3, 2), new TestItem(4, 5)));
+
+    @Test
+    public void itemIsInsertedAfterEqualItems() {
+        assertEquals(0, SortedItems.findInsertPosition(items, BY_VERSION, new TestItem(10, 0), 0));
+        assertEquals(1, SortedItems.findInsertPosition(items, BY_VERSION, new TestItem(10, 1), 0));
+        assertEquals(4, SortedItems.findInsertPosition(items, BY_VERSION, new TestItem(10, 2), 0));
+        assertEquals(4, SortedItems.findInsertPosition(items, BY_VERSION, new TestItem(10, 3), 0));
+        assertEquals(5, SortedItems.findInsertPosition(items, BY_VERSION, new TestItem(10, 9), 0));
+    }
+
+    @Test
+    public void insertPositionIsNotBeforeStartOfSearch() {
+        assertEquals(3, SortedItems.findInsertPosition(items, BY_VERSION, new TestItem(10, 0), 3));
+        assertEquals(5, SortedItems.findInsertPosition(items, BY_VERSION, new TestItem(10, 5), 3));
+    }
+
+    @Test
+    public void indexOfFindsEqualItemAmongItemsEqualByComparator() {
+        assertEquals(0, SortedItems.indexOf(items, BY_VERSION, new TestItem(0, 1)));
+        assertEquals(1, SortedItems.indexOf(items, BY_VERSION, new TestItem(1, 2)));
+        assertEquals(3, SortedItems.indexOf(items, BY_VERSION, new TestItem(3, 2)));
+        assertEquals(4, SortedItems.indexOf(items, BY_VERSION, new TestItem(4, 5)));
+        // item is searched only at the position given by the comparator
+        assertEquals(-1, SortedItems.indexOf(items, BY_VERSION, new TestItem(3, 5)));
+        assertEquals(-1, SortedItems.indexOf(items, BY_VERSION, new TestItem(10, 9)));
+    }
+
+    @Test
+    public void itemIsSortedAtPositionBetweenNotGreaterAndNotSmallerItems() {
+        assertTrue(SortedItems.isSortedAt(items, BY_VERSION, new TestItem(2, 2), 2));
+        assertTrue(SortedItems.isSortedAt(items, BY_VERSION, new TestItem(0, 0), 0));
+        assertTrue(SortedItems.isSortedAt(items, BY_VERSION, new TestItem(4, 9), 4));
+        assertTrue(SortedItems.isSortedAt(items, BY_VERSION, new TestItem(3, 4), 3));
+        assertFalse(SortedItems.isSortedAt(items, BY_VERSION, new TestItem(2, 3), 2));
+        assertFalse(SortedItems.isSortedAt(items, BY_VERSION, new TestItem(0, 3), 0));
+        assertFalse(SortedItems.isSortedAt(items, BY_VERSION, new TestItem(4, 1), 4));
+    }
+
+    @Test
+    public void changedItemIsMovedToItsSortedPosition() {
+        // same steps as MjolnirRecyclerAdapter.set() when the item no longer belongs to its position
+        TestItem changed = new TestItem(0, 3);
+        assertFalse(SortedItems.isSortedAt(items, BY_VERSION, changed, 0));
+        items.remove(0);
+        int newIndex = SortedItems.findInsertPosition(items, BY_VERSION, changed, 0);
+        items.add(newIndex, changed);
+
+        assertEquals(3, newIndex);
+        assertKeys(items, 1, 2, 3, 0, 4);
+    }
+
+    @Test
+    public void mergeReportsInsertionsAtTheirPositionsInOrder() {
+        List<TestItem> newItems = Arrays.asList(new TestItem(10, 0), new TestItem(11, 2), new TestItem(12, 6), new TestItem(13, 6));
+        final List<Integer> insertions = new ArrayList<>();
+
+        List<TestItem> merged = SortedItems.merge(items, newItems, BY_VERSION, new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                assertEquals(1, count);
+                insertions.add(position);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                throw new AssertionError("Merge only inserts items!");
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                throw new AssertionError("Merge only inserts items!");
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                throw new AssertionError("Merge only inserts items!");
+            }
+        });
+
+        assertKeys(merged, 10, 0, 1, 2, 3, 11, 4, 12, 13);
+        assertEquals(Arrays.asList(0, 5, 7, 8), insertions);
+    }
+
+    private static void assertKeys(List<TestItem> items, long... keys) {
+        assertEquals(keys.length, items.size());
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals("Key at " + i, keys[i], items.get(i).key);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SubsequenceDiffEngineTest {
+
+    private final List<TestItem> source = TestItem.createItems(100);
+
+    private final SubsequenceDiffEngine<TestItem> engine = new SubsequenceDiffEngine<>(source);
+
+    @Test
+    public void narrowedFilterOnlyRemovesItems() {
+        List<TestItem> oldItems = everyNth(2);
+        List<TestItem> newItems = everyNth(6);
+
+        ReplayingCallback<TestItem> callback = assertDiff(oldItems, newItems);
+        for (int i = 0; i < newItems.size(); i++) {
+            assertFalse(callback.isChanged(i));
+        }
+    }
+
+    @Test
+    public void differentFiltersRemoveAndInsertItems() {
+        assertDiff(everyNth(2), everyNth(3));
+        assertDiff(everyNth(3), source);
+        assertDiff(source, Collections.<TestItem>emptyList());
+    }
+
+    @Test
+    public void equalItemsWhichAreNotFromSourceAreReplaced() {
+        List<TestItem> oldItems = everyNth(2);
+        List<TestItem> newItems = new ArrayList<>();
+        for (TestItem item : everyNth(3)) {
+            // items are matched by identity, not by equality
+            newItems.add(new TestItem(item.key, item.version));
+        }
+
+        assertReplaced(oldItems, newItems);
+    }
+
+    @Test
+    public void reorderedItemsAreReplaced() {
+        List<TestItem> oldItems = everyNth(5);
+        List<TestItem> newItems = new ArrayList<>(oldItems);
+        Collections.reverse(newItems);
+
+        assertReplaced(oldItems, newItems);
+    }
+
+    private List<TestItem> everyNth(int n) {
+        List<TestItem> items = new ArrayList<>();
+        for (int i = 0; i < source.size(); i += n) {
+            items.add(source.get(i));
+        }
+        return items;
+    }
+
+    private void assertReplaced(List<TestItem> oldItems, List<TestItem> newItems) {
+        ReplayingCallback<TestItem> callback = new ReplayingCallback<>(oldItems);
+        engine.calculateDiff(oldItems, newItems).dispatchUpdatesTo(callback);
+        assertEquals(newItems.size(), callback.getItems().size());
+        assertEquals(0, callback.getKeptCount());
+    }
+
+    private ReplayingCallback<TestItem> assertDiff(List<TestItem> oldItems, List<TestItem> newItems) {
+        ReplayingCallback<TestItem> callback = new ReplayingCallback<>(oldItems);
+        engine.calculateDiff(oldItems, newItems).dispatchUpdatesTo(callback);
+        callback.assertTransformedTo(newItems, TestItem.KEY_EXTRACTOR);
+        return callback;
+    }
+}
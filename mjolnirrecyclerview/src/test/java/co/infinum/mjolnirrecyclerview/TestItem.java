@@ -0,0 +1,84 @@
+package co.infinum.mjolnirrecyclerview;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Item with a key and a version of its contents, which is used by all tests.
+ */
+final class TestItem {
+
+    static final KeyExtractor<TestItem> KEY_EXTRACTOR = new KeyExtractor<TestItem>() {
+        @Override
+        public long getKey(TestItem item) {
+            return item.key;
+        }
+    };
+
+    final long key;
+
+    final int version;
+
+    TestItem(long key, int version) {
+        this.key = key;
+        this.version = version;
+    }
+
+    static List<TestItem> createItems(int count) {
+        List<TestItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new TestItem(i, 0));
+        }
+        return items;
+    }
+
+    /**
+     * @return copy of {@param items} in which {@param changeCount} items were removed, inserted, changed and moved. Inserted items get
+     * keys from {@param firstNewKey} on, so keys stay unique.
+     */
+    static List<TestItem> mutate(List<TestItem> items, int changeCount, long firstNewKey, Random random) {
+        List<TestItem> newItems = new ArrayList<>(items);
+        long nextKey = firstNewKey;
+
+        for (int i = 0; i < changeCount; i++) {
+            if (!newItems.isEmpty() && random.nextBoolean()) {
+                newItems.remove(random.nextInt(newItems.size()));
+            }
+            if (random.nextBoolean()) {
+                newItems.add(random.nextInt(newItems.size() + 1), new TestItem(nextKey++, 0));
+            }
+            if (!newItems.isEmpty() && random.nextBoolean()) {
+                int changed = random.nextInt(newItems.size());
+                newItems.set(changed, new TestItem(newItems.get(changed).key, newItems.get(changed).version + 1));
+            }
+            if (newItems.size() > 1 && random.nextBoolean()) {
+                Collections.swap(newItems, random.nextInt(newItems.size()), random.nextInt(newItems.size()));
+            }
+        }
+        return newItems;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TestItem item = (TestItem) o;
+        return key == item.key && version == item.version;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (int) (key ^ (key >>> 32)) + version;
+    }
+
+    @Override
+    public String toString() {
+        return key + "v" + version;
+    }
+}
@@ -0,0 +1,112 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class UpdateOperationsTest {
+
+    private static final int ITERATION_COUNT = 1000;
+
+    /**
+     * Merged operations have to transform the items in the same way as the recorded ones.
+     */
+    @Test
+    public void mergedOperationsMatchRecordedOperations() {
+        Random random = new Random(2);
+        for (int iteration = 0; iteration < ITERATION_COUNT; iteration++) {
+            List<Integer> items = new ArrayList<>();
+            for (int i = random.nextInt(50); i > 0; i--) {
+                items.add(items.size());
+            }
+
+            ReplayingCallback<Integer> expected = new ReplayingCallback<>(items);
+            UpdateOperations operations = new UpdateOperations();
+            int size = items.size();
+
+            for (int i = random.nextInt(20); i > 0; i--) {
+                // positions are close to each other, so a lot of operations are merged
+                int type = random.nextInt(4);
+                if (type == 0 || size == 0) {
+                    int position = random.nextInt(size + 1);
+                    int count = 1 + random.nextInt(3);
+                    expected.onInserted(position, count);
+                    operations.onInserted(position, count);
+                    size += count;
+                } else if (type == 1) {
+                    int position = random.nextInt(size);
+                    int count = 1 + random.nextInt(Math.min(3, size - position));
+                    expected.onRemoved(position, count);
+                    operations.onRemoved(position, count);
+                    size -= count;
+                } else if (type == 2) {
+                    int from = random.nextInt(size);
+                    int to = random.nextInt(size);
+                    expected.onMoved(from, to);
+                    operations.onMoved(from, to);
+                } else {
+                    int position = random.nextInt(size);
+                    int count = 1 + random.nextInt(Math.min(3, size - position));
+                    expected.onChanged(position, count, null);
+                    operations.onChanged(position, count, null);
+                }
+            }
+
+            ReplayingCallback<Integer> actual = new ReplayingCallback<>(items);
+            operations.dispatchUpdatesTo(actual);
+
+            assertEquals(expected.getItems(), actual.getItems());
+            for (int i = 0; i < size; i++) {
+                assertEquals("Change at " + i, expected.isChanged(i), actual.isChanged(i));
+            }
+        }
+    }
+
+    @Test
+    public void adjacentOperationsAreMerged() {
+        UpdateOperations operations = new UpdateOperations();
+        operations.onInserted(5, 2);
+        operations.onInserted(7, 3);
+        operations.onInserted(5, 1);
+        assertEquals(1, operations.size());
+
+        operations.onRemoved(10, 2);
+        operations.onRemoved(8, 2);
+        assertEquals(2, operations.size());
+
+        operations.onChanged(0, 2, null);
+        operations.onChanged(2, 2, null);
+        assertEquals(3, operations.size());
+
+        operations.onMoved(3, 3);
+        assertEquals(3, operations.size());
+    }
+
+    @Test
+    public void operationsAreShiftedByOffset() {
+        UpdateOperations operations = new UpdateOperations();
+        operations.onInserted(0, 1);
+        operations.onRemoved(2, 1);
+        operations.onMoved(1, 0);
+
+        UpdateOperations shifted = new UpdateOperations();
+        operations.dispatchUpdatesTo(shifted, 10);
+
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 13; i++) {
+            items.add(i);
+        }
+        ReplayingCallback<Integer> expected = new ReplayingCallback<>(items);
+        expected.onInserted(10, 1);
+        expected.onRemoved(12, 1);
+        expected.onMoved(11, 10);
+
+        ReplayingCallback<Integer> actual = new ReplayingCallback<>(items);
+        shifted.dispatchUpdatesTo(actual);
+        assertEquals(expected.getItems(), actual.getItems());
+    }
+}
@@ -0,0 +1,311 @@
+package co.infinum.mjolnirrecyclerview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs diff and main thread tasks of the pipeline step by step, so items can be modified between them.
+ */
+public class UpdatePipelineTest {
+
+    private final KeyedDiffEngine<TestItem> engine = new KeyedDiffEngine<>(TestItem.KEY_EXTRACTOR);
+
+    private final Queue<Runnable> diffTasks = new ArrayDeque<>();
+
+    private final Queue<Runnable> mainTasks = new ArrayDeque<>();
+
+    private List<TestItem> items;
+
+    private long version;
+
+    private int appliedCount;
+
+    private int replacedCount;
+
+    private UpdatePipeline<TestItem> pipeline;
+
+    @Before
+    public void setUp() {
+        items = TestItem.createItems(100);
+        pipeline = new UpdatePipeline<>(new UpdatePipeline.Target<TestItem>() {
+            @Override
+            public List<TestItem> getItemsSnapshot() {
+                return Collections.unmodifiableList(new ArrayList<>(items));
+            }
+
+            @Override
+            public long getItemsVersion() {
+                return version;
+            }
+
+            @Override
+            public Executor getDiffExecutor() {
+                return new QueueExecutor(diffTasks);
+            }
+
+            @Override
+            public MjolnirMetrics getMetrics() {
+                return null;
+            }
+
+            @Override
+            public void applyUpdate(List<TestItem> newItems, MjolnirDiffResult result) {
+                ReplayingCallback<TestItem> callback = new ReplayingCallback<>(items);
+                result.dispatchUpdatesTo(callback);
+                callback.assertTransformedTo(newItems, TestItem.KEY_EXTRACTOR);
+                setItems(newItems);
+                appliedCount++;
+            }
+
+            @Override
+            public void replaceItems(List<TestItem> newItems) {
+                setItems(newItems);
+                replacedCount++;
+            }
+        }, new QueueExecutor(mainTasks));
+    }
+
+    @Test
+    public void onlyLatestUpdateIsApplied() {
+        List<TestItem> first = mutate(items, 1);
+        List<TestItem> second = mutate(items, 2);
+        List<TestItem> third = mutate(items, 3);
+
+        pipeline.submit(first, engine);
+        pipeline.submit(second, engine);
+        pipeline.submit(third, engine);
+        runAll();
+
+        assertEquals(third, items);
+        assertEquals(1, appliedCount);
+        assertEquals(2, pipeline.getSkippedCount());
+        assertFalse(pipeline.isBusy());
+    }
+
+    @Test
+    public void randomUpdatesEndWithLatestItems() {
+        Random random = new Random(10);
+        List<TestItem> latest = items;
+        for (int i = 0; i < 1000; i++) {
+            if (random.nextInt(3) == 0) {
+                latest = TestItem.mutate(latest, random.nextInt(20), 1000 * (i + 1), random);
+                pipeline.submit(latest, engine);
+            }
+            runRandomTask(random);
+        }
+        runAll();
+
+        assertEquals(latest, items);
+    }
+
+    @Test
+    public void updateIsDiffedAgainIfItemsChangeDuringDiff() {
+        List<TestItem> newItems = mutate(items, 1);
+        pipeline.submit(newItems, engine);
+
+        runNext(diffTasks);
+        setItems(items.subList(10, items.size()));
+        runAll();
+
+        assertEquals(newItems, items);
+        assertEquals(1, appliedCount);
+        assertEquals(0, replacedCount);
+    }
+
+    @Test
+    public void updateWhichCanNotBeDiffedAgainReplacesItems() {
+        List<TestItem> newItems = mutate(items, 1);
+        pipeline.submitOnce(newItems, engine);
+
+        runNext(diffTasks);
+        setItems(items.subList(10, items.size()));
+        runAll();
+
+        assertEquals(newItems, items);
+        assertEquals(0, appliedCount);
+        assertEquals(1, replacedCount);
+    }
+
+    @Test
+    public void updateWhichCanNotBeDiffedAgainReplacesItemsChangedWhileItWaits() {
+        pipeline.submit(mutate(items, 1), engine);
+        List<TestItem> newItems = mutate(items, 2);
+        pipeline.submitOnce(newItems, boundEngine(items));
+
+        setItems(items.subList(10, items.size()));
+        runAll();
+
+        assertEquals(newItems, items);
+        assertEquals(0, appliedCount);
+        assertEquals(1, replacedCount);
+    }
+
+    @Test
+    public void failedDiffIsRethrownOnMainThreadAndNextUpdateIsApplied() {
+        final RuntimeException failure = new RuntimeException();
+        pipeline.submit(mutate(items, 1), new MjolnirDiffEngine<TestItem>() {
+            @Override
+            public MjolnirDiffResult calculateDiff(List<TestItem> oldList, List<TestItem> newList) {
+                throw failure;
+            }
+        });
+
+        runNext(diffTasks);
+        try {
+            runNext(mainTasks);
+            fail("Failure of the diff is not rethrown");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e.getCause());
+        }
+        assertFalse(pipeline.isBusy());
+
+        List<TestItem> newItems = mutate(items, 2);
+        pipeline.submit(newItems, engine);
+        runAll();
+        assertEquals(newItems, items);
+    }
+
+    @Test
+    public void idleListenerRunsOnlyOnceLatestUpdateIsDispatched() {
+        final int[] idleCount = new int[1];
+        pipeline.setIdleListener(new Runnable() {
+            @Override
+            public void run() {
+                assertFalse(pipeline.isBusy());
+                idleCount[0]++;
+            }
+        });
+
+        pipeline.submit(mutate(items, 1), engine);
+        runNext(diffTasks);
+        List<TestItem> newItems = mutate(items, 2);
+        pipeline.submit(newItems, engine);
+
+        // first update is superseded, so the second one is diffed right after it
+        runNext(mainTasks);
+        assertEquals(0, idleCount[0]);
+
+        runAll();
+        assertEquals(newItems, items);
+        assertEquals(1, idleCount[0]);
+    }
+
+    @Test
+    public void producedItemsAreDiffed() {
+        final List<TestItem> newItems = mutate(items, 1);
+        pipeline.submit(new UpdatePipeline.ItemsProducer<TestItem>() {
+            @Override
+            public List<TestItem> produce(long updateGeneration) {
+                return newItems;
+            }
+        }, engine);
+        runAll();
+
+        assertEquals(newItems, items);
+    }
+
+    @Test
+    public void supersededProducerIsSkipped() {
+        List<TestItem> oldItems = items;
+        final long[] producedGeneration = new long[1];
+        pipeline.submit(new UpdatePipeline.ItemsProducer<TestItem>() {
+            @Override
+            public List<TestItem> produce(long updateGeneration) {
+                producedGeneration[0] = updateGeneration;
+                return null;
+            }
+        }, engine);
+        runAll();
+
+        assertEquals(oldItems, items);
+        assertEquals(1, pipeline.getSkippedCount());
+
+        pipeline.clear();
+        assertTrue(pipeline.isSuperseded(producedGeneration[0]));
+    }
+
+    @Test
+    public void cancelledUpdatesAreNotApplied() {
+        List<TestItem> oldItems = items;
+        pipeline.submit(mutate(items, 1), engine);
+        pipeline.cancel();
+        pipeline.submit(mutate(items, 2), engine);
+        runAll();
+
+        assertEquals(oldItems, items);
+        assertFalse(pipeline.isBusy());
+
+        pipeline.reset();
+        List<TestItem> newItems = mutate(items, 3);
+        pipeline.submit(newItems, engine);
+        runAll();
+        assertEquals(newItems, items);
+    }
+
+    /**
+     * @return engine which always diffs {@param oldItems}, like a DiffUtil.Callback which was created for them.
+     */
+    private MjolnirDiffEngine<TestItem> boundEngine(final List<TestItem> oldItems) {
+        return new MjolnirDiffEngine<TestItem>() {
+            @Override
+            public MjolnirDiffResult calculateDiff(List<TestItem> oldList, List<TestItem> newList) {
+                return engine.calculateDiff(oldItems, newList);
+            }
+        };
+    }
+
+    private List<TestItem> mutate(List<TestItem> items, int seed) {
+        return TestItem.mutate(items, 20, 1000 * seed, new Random(seed));
+    }
+
+    private void setItems(List<TestItem> newItems) {
+        items = new ArrayList<>(newItems);
+        version++;
+    }
+
+    private void runAll() {
+        while (!diffTasks.isEmpty() || !mainTasks.isEmpty()) {
+            runNext(diffTasks.isEmpty() ? mainTasks : diffTasks);
+        }
+    }
+
+    private void runRandomTask(Random random) {
+        if (!diffTasks.isEmpty() && (mainTasks.isEmpty() || random.nextBoolean())) {
+            runNext(diffTasks);
+        } else if (!mainTasks.isEmpty()) {
+            runNext(mainTasks);
+        }
+    }
+
+    private static void runNext(Queue<Runnable> tasks) {
+        tasks.remove().run();
+    }
+
+    private static final class QueueExecutor implements Executor {
+
+        private final Queue<Runnable> tasks;
+
+        QueueExecutor(Queue<Runnable> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package co.infinum.testapp.activities;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.v7.app.AppCompatActivity;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.LinearLayoutManager;
 import android.view.View;
 
@@ -13,6 +14,7 @@ import java.util.UUID;
 import butterknife.BindView;
 import butterknife.ButterKnife;
 import butterknife.OnClick;
+import co.infinum.mjolnirrecyclerview.DiffUtilDiffEngine;
 import co.infinum.mjolnirrecyclerview.MjolnirRecyclerView;
 import co.infinum.testapp.R;
 import co.infinum.testapp.adapters.UpdateAdapter;
@@ -50,6 +52,12 @@ public class UpdateActivity extends AppCompatActivity {
         recyclerView.setEmptyView(emptyView);
 
         adapter = new UpdateAdapter(this);
+        adapter.setDiffEngine(new DiffUtilDiffEngine<>(new DiffUtilDiffEngine.CallbackFactory<Item>() {
+            @Override
+            public DiffUtil.Callback createCallback(List<Item> oldItems, List<Item> newItems) {
+                return new ItemsDiffUtil(oldItems, newItems);
+            }
+        }));
         recyclerView.setAdapter(adapter);
         adapter.addAll(items);
     }
@@ -61,7 +69,7 @@ public class UpdateActivity extends AppCompatActivity {
         newList.add(new Item(2, "Plane"));
         newList.add(new Item(3, UUID.randomUUID().toString()));
 
-        adapter.update(newList, new ItemsDiffUtil(items, newList));
+        adapter.update(newList);
     }
 
     @Override
@@ -1,7 +1,6 @@
 package co.infinum.testapp.adapters;
 
 import android.content.Context;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
@@ -22,11 +21,12 @@ public class SimpleAdapter extends MjolnirRecyclerAdapter<String> {
 
     public SimpleAdapter(Context context) {
         super(context, Collections.<String>emptyList());
+        setClickDispatchEnabled(true);
     }
 
     @Override
     protected MjolnirViewHolder<String> onCreateItemViewHolder(ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.list_item_adapter, parent, false);
+        View view = inflate(R.layout.list_item_adapter, parent);
         return new TestViewHolder(view);
     }
 
@@ -48,27 +48,15 @@ public class SimpleAdapter extends MjolnirRecyclerAdapter<String> {
         @BindView(R.id.tv_text)
         TextView tvText;
 
-        @BindView(R.id.root_view)
-        View rootView;
-
         public TestViewHolder(View itemView) {
             super(itemView);
             ButterKnife.bind(this, itemView);
         }
 
         @Override
-        protected void bind(final String item, final int position, List<Object> payloads) {
+        protected void bind(String item, int position, List<Object> payloads) {
             tvPosition.setText(String.valueOf(position).concat("."));
             tvText.setText(item);
-
-            rootView.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    if (listener != null) {
-                        listener.onClick(position, item);
-                    }
-                }
-            });
         }
     }
 }
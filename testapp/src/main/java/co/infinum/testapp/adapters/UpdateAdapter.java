@@ -1,8 +1,6 @@
 package co.infinum.testapp.adapters;
 
 import android.content.Context;
-import android.os.Bundle;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
@@ -26,11 +24,12 @@ public class UpdateAdapter extends MjolnirRecyclerAdapter<Item> {
 
     public UpdateAdapter(Context context) {
         super(context, Collections.<Item>emptyList());
+        setClickDispatchEnabled(true);
     }
 
     @Override
     protected MjolnirViewHolder<Item> onCreateItemViewHolder(ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.list_item_adapter, parent, false);
+        View view = inflate(R.layout.list_item_adapter, parent);
         return new ViewHolder(view);
     }
 
@@ -42,32 +41,19 @@ public class UpdateAdapter extends MjolnirRecyclerAdapter<Item> {
         @BindView(R.id.tv_text)
         TextView tvText;
 
-        @BindView(R.id.root_view)
-        View rootView;
-
         public ViewHolder(View itemView) {
             super(itemView);
             ButterKnife.bind(this, itemView);
         }
 
         @Override
-        protected void bind(final Item item, final int position, List<Object> payloads) {
-            if (payloads.isEmpty()) {
+        protected void bind(Item item, int position, List<Object> payloads) {
+            if (hasChanged(ItemsDiffUtil.FIELD_ID)) {
                 tvPosition.setText(String.valueOf(item.getId()));
+            }
+            if (hasChanged(ItemsDiffUtil.FIELD_NAME)) {
                 tvText.setText(item.getName());
-            } else {
-                Bundle bundle = (Bundle) payloads.get(0);
-                tvText.setText(bundle.getString(ItemsDiffUtil.EXTRA_ITEM_DESCRIPTION));
             }
-
-            rootView.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    if (listener != null) {
-                        listener.onClick(position, item);
-                    }
-                }
-            });
         }
     }
 }
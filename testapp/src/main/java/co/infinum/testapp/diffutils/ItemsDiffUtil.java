@@ -1,11 +1,11 @@
 package co.infinum.testapp.diffutils;
 
-import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.v7.util.DiffUtil;
 
 import java.util.List;
 
+import co.infinum.mjolnirrecyclerview.MjolnirChangePayload;
 import co.infinum.testapp.models.Item;
 
 /**
@@ -13,7 +13,9 @@ import co.infinum.testapp.models.Item;
  */
 public class ItemsDiffUtil extends DiffUtil.Callback {
 
-    public static final String EXTRA_ITEM_DESCRIPTION = "EXTRA_ITEM_DESCRIPTION";
+    public static final int FIELD_ID = 1;
+
+    public static final int FIELD_NAME = 1 << 1;
 
     private List<Item> oldList;
 
@@ -27,9 +29,8 @@ public class ItemsDiffUtil extends DiffUtil.Callback {
     @Nullable
     @Override
     public Object getChangePayload(int oldItemPosition, int newItemPosition) {
-        Bundle bundle = new Bundle();
-        bundle.putString(EXTRA_ITEM_DESCRIPTION, newList.get(newItemPosition).getName());
-        return bundle;
+        // items are the same, so only their names can differ
+        return MjolnirChangePayload.of(FIELD_NAME);
     }
 
     @Override